@@ -31,6 +31,9 @@ import java.lang.annotation.Target;
 
 /**
  * Annotation to mark a parameter as a fact.
+ * <p>
+ * When the declared fact is missing, the rule behaves according to {@link #ifMissing()}:
+ * by default, the condition of the rule evaluates to false.
  *
  * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
  */
@@ -38,5 +41,50 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.PARAMETER})
 public @interface Fact {
+
+    /**
+     * The fact name.
+     *
+     * @return The fact name
+     */
     String value();
+
+    /**
+     * What to do when the fact is missing.
+     *
+     * @return The missing fact policy
+     */
+    Missing ifMissing() default Missing.SKIP;
+
+    /**
+     * The value injected when the fact is missing and the policy is {@link Missing#DEFAULT}.
+     * The value is converted to the type of the parameter, which must be a primitive type,
+     * a primitive wrapper type, {@link String} or an enum type. If empty, the default value
+     * of primitive types (0 or false) is used.
+     *
+     * @return The default value of the fact
+     */
+    String defaultValue() default "";
+
+    /**
+     * Policies applied when a declared fact is missing.
+     */
+    enum Missing {
+
+        /**
+         * Skip the rule: the condition evaluates to false, and the
+         * action fails if the fact is missing when the rule is executed.
+         */
+        SKIP,
+
+        /**
+         * Inject the {@link Fact#defaultValue()}.
+         */
+        DEFAULT,
+
+        /**
+         * Inject null. Not allowed for primitive types.
+         */
+        NULL
+    }
 }
@@ -63,4 +63,18 @@ public @interface Rule {
      */
     double threshold() default org.jeasy.rules.api.Rule.DEFAULT_THRESHOLD;
 
+    /**
+     * The rule rate limit, in executions per second.
+     *
+     * @return The rule rate limit
+     */
+    double rateLimit() default org.jeasy.rules.api.Rule.NO_RATE_LIMIT;
+
+    /**
+     * Whether the rule's condition is a pure function of the facts it reads.
+     *
+     * @return true if the rule's condition is pure
+     */
+    boolean pure() default false;
+
 }
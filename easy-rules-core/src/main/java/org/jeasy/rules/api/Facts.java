@@ -23,12 +23,12 @@
  */
 package org.jeasy.rules.api;
 
+import org.jeasy.rules.core.LogicalInsertions;
+
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * This class encapsulates a set of facts and represents a facts namespace.
@@ -38,7 +38,8 @@ import java.util.Set;
  */
 public class Facts implements Iterable<Fact<?>> {
 
-    private final Set<Fact<?>> facts = new HashSet<>();
+    private final Map<String, Fact<?>> facts = new HashMap<>();
+    private long version;
 
     /**
      * Add a fact, replacing any fact with the same name.
@@ -49,13 +50,27 @@ public class Facts implements Iterable<Fact<?>> {
     public <T> void put(String name, T value) {
         Objects.requireNonNull(name, "fact name must not be null");
         Objects.requireNonNull(value, "fact value must not be null");
-        Fact<?> retrievedFact = getFact(name);
-        if (retrievedFact != null) {
-            remove(retrievedFact);
-        }
         add(new Fact<>(name, value));
     }
     
+    /**
+     * Add a fact logically, replacing any fact with the same name.
+     * <p>
+     * When called from the action of a rule fired by an inference engine or session (on
+     * the thread firing the rule), the fact is justified by the activation of the rule: it
+     * is removed automatically as soon as the condition of the rule no longer holds, or when
+     * the rule is fired again without adding the fact logically again. A fact justified by
+     * several rules is removed once none of them holds. Otherwise, this method behaves like
+     * {@link #put(String, Object)}.
+     *
+     * @param name of the fact to add, must not be null
+     * @param value of the fact to add, must not be null
+     */
+    public <T> void putLogical(String name, T value) {
+        put(name, value);
+        LogicalInsertions.record(this, name);
+    }
+
     /**
      * Add a fact, replacing any fact with the same name.
      * 
@@ -63,11 +78,8 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public <T> void add(Fact<T> fact) {
         Objects.requireNonNull(fact, "fact must not be null");
-        Fact<?> retrievedFact = getFact(fact.getName());
-        if (retrievedFact != null) {
-            remove(retrievedFact);
-        }
-        facts.add(fact);
+        facts.put(fact.getName(), fact);
+        version++;
     }
 
     /**
@@ -77,9 +89,8 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public void remove(String factName) {
         Objects.requireNonNull(factName, "fact name must not be null");
-        Fact<?> fact = getFact(factName);
-        if (fact != null) {
-            remove(fact);
+        if (facts.remove(factName) != null) {
+            version++;
         }
     }
 
@@ -90,7 +101,7 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public <T> void remove(Fact<T> fact) {
         Objects.requireNonNull(fact, "fact must not be null");
-        facts.remove(fact);
+        remove(fact.getName());
     }
 
     /**
@@ -120,10 +131,21 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public Fact<?> getFact(String factName) {
         Objects.requireNonNull(factName, "fact name must not be null");
-        return facts.stream()
-                .filter(fact -> fact.getName().equals(factName))
-                .findFirst()
-                .orElse(null);
+        return facts.get(factName);
+    }
+
+    /**
+     * Return the version of this facts namespace. The version is incremented
+     * each time a fact is added, replaced or removed, so two equal versions
+     * observed on the same instance mean that no fact has changed in between.
+     * Since adding or replacing a fact always stores a new {@link Fact} instance,
+     * the identity of the instance returned by {@link #getFact(String)} can be
+     * used as the version of a single fact.
+     *
+     * @return the current version of the facts
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -134,7 +156,7 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public Map<String, Object> asMap() {
         Map<String, Object> map = new HashMap<>();
-        for (Fact<?> fact : facts) {
+        for (Fact<?> fact : facts.values()) {
             map.put(fact.getName(), fact.getValue());
         }
         return map;
@@ -148,7 +170,7 @@ public class Facts implements Iterable<Fact<?>> {
      */
     @Override
     public Iterator<Fact<?>> iterator() {
-        return facts.iterator();
+        return facts.values().iterator();
     }
 
     /**
@@ -156,11 +178,12 @@ public class Facts implements Iterable<Fact<?>> {
      */
     public void clear() {
         facts.clear();
+        version++;
     }
 
     @Override
     public String toString() {
-        Iterator<Fact<?>> iterator = facts.iterator();
+        Iterator<Fact<?>> iterator = facts.values().iterator();
         StringBuilder stringBuilder = new StringBuilder("[");
         while (iterator.hasNext()) {
             stringBuilder.append(iterator.next().toString());
@@ -0,0 +1,339 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Detailed result of firing a set of rules.
+ * <p>
+ * Rules are identified by their ordinal, which is their position in the
+ * iteration order of the fired {@link Rules}. For each ordinal, a fire result
+ * records whether the rule has been evaluated, matched (its condition evaluated
+ * to true), sampled in (selected for execution according to its threshold),
+ * executed successfully or failed. Optionally, the time spent evaluating and
+ * executing each rule can be recorded as well.
+ * <p>
+ * A fire result is reset at the beginning of each fire, so the same instance
+ * can be reused across fires to avoid allocations. It is not thread safe.
+ * Sets of ordinals returned by this result are copies: per-rule accessors like
+ * {@link #isMatched(int)} read the result without allocating.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class FireResult {
+
+    private final boolean timingsEnabled;
+    private final BitSet evaluated = new BitSet();
+    private final BitSet matched = new BitSet();
+    private final BitSet sampled = new BitSet();
+    private final BitSet executed = new BitSet();
+    private final BitSet failed = new BitSet();
+    private Rule[] rules = new Rule[0];
+    private long[] evaluationNanos = new long[0];
+    private long[] executionNanos = new long[0];
+    private int size;
+    private boolean result;
+
+    /**
+     * Create a new {@link FireResult} without timings.
+     */
+    public FireResult() {
+        this(false);
+    }
+
+    /**
+     * Create a new {@link FireResult}.
+     *
+     * @param timingsEnabled true to record the time spent evaluating and executing each rule
+     */
+    public FireResult(boolean timingsEnabled) {
+        this.timingsEnabled = timingsEnabled;
+    }
+
+    /**
+     * Reset this result before firing the given rules.
+     *
+     * @param rules about to be fired
+     */
+    public void reset(Rules rules) {
+        size = rules.size();
+        if (this.rules.length < size) {
+            this.rules = new Rule[size];
+            if (timingsEnabled) {
+                evaluationNanos = new long[size];
+                executionNanos = new long[size];
+            }
+        } else {
+            Arrays.fill(this.rules, size, this.rules.length, null);
+        }
+        int ordinal = 0;
+        for (Rule rule : rules) {
+            this.rules[ordinal++] = rule;
+        }
+        if (timingsEnabled) {
+            Arrays.fill(evaluationNanos, 0, size, 0L);
+            Arrays.fill(executionNanos, 0, size, 0L);
+        }
+        evaluated.clear();
+        matched.clear();
+        sampled.clear();
+        executed.clear();
+        failed.clear();
+        result = false;
+    }
+
+    /**
+     * Record the evaluation of a rule.
+     *
+     * @param ordinal of the rule
+     * @param matched result of the rule's condition
+     * @param sampled true if the rule has been selected for execution according to its threshold
+     * @param nanos time spent evaluating the rule, ignored if timings are not enabled
+     */
+    public void evaluated(int ordinal, boolean matched, boolean sampled, long nanos) {
+        evaluated.set(ordinal);
+        if (matched) {
+            this.matched.set(ordinal);
+        }
+        if (sampled) {
+            this.sampled.set(ordinal);
+        }
+        if (timingsEnabled) {
+            evaluationNanos[ordinal] = nanos;
+        }
+    }
+
+    /**
+     * Record the execution of a rule.
+     *
+     * @param ordinal of the rule
+     * @param success true if the rule's actions have been performed successfully
+     * @param nanos time spent executing the rule, ignored if timings are not enabled
+     */
+    public void executed(int ordinal, boolean success, long nanos) {
+        if (success) {
+            executed.set(ordinal);
+        } else {
+            failed.set(ordinal);
+        }
+        if (timingsEnabled) {
+            executionNanos[ordinal] = nanos;
+        }
+    }
+
+    /**
+     * Whether timings are recorded.
+     *
+     * @return true if the time spent evaluating and executing each rule is recorded
+     */
+    public boolean isTimingsEnabled() {
+        return timingsEnabled;
+    }
+
+    /**
+     * Return the number of fired rules.
+     *
+     * @return the number of fired rules
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the rule having the given ordinal.
+     *
+     * @param ordinal of the rule
+     * @return the rule having the given ordinal
+     */
+    public Rule getRule(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Invalid rule ordinal: " + ordinal);
+        }
+        return rules[ordinal];
+    }
+
+    /**
+     * Return a copy of the ordinals of evaluated rules.
+     *
+     * @return the ordinals of evaluated rules
+     */
+    public BitSet getEvaluated() {
+        return (BitSet) evaluated.clone();
+    }
+
+    /**
+     * Return a copy of the ordinals of rules whose condition evaluated to true.
+     *
+     * @return the ordinals of matched rules
+     */
+    public BitSet getMatched() {
+        return (BitSet) matched.clone();
+    }
+
+    /**
+     * Return a copy of the ordinals of matched rules selected for execution
+     * according to their threshold.
+     *
+     * @return the ordinals of sampled in rules
+     */
+    public BitSet getSampled() {
+        return (BitSet) sampled.clone();
+    }
+
+    /**
+     * Return a copy of the ordinals of rules whose actions have been performed successfully.
+     *
+     * @return the ordinals of executed rules
+     */
+    public BitSet getExecuted() {
+        return (BitSet) executed.clone();
+    }
+
+    /**
+     * Return a copy of the ordinals of rules whose actions have failed.
+     *
+     * @return the ordinals of failed rules
+     */
+    public BitSet getFailed() {
+        return (BitSet) failed.clone();
+    }
+
+    /**
+     * Whether a rule has been evaluated.
+     *
+     * @param ordinal of the rule
+     * @return true if the rule has been evaluated
+     */
+    public boolean isEvaluated(int ordinal) {
+        return evaluated.get(ordinal);
+    }
+
+    /**
+     * Whether the condition of a rule evaluated to true.
+     *
+     * @param ordinal of the rule
+     * @return true if the rule has been matched
+     */
+    public boolean isMatched(int ordinal) {
+        return matched.get(ordinal);
+    }
+
+    /**
+     * Whether a matched rule has been selected for execution according to its threshold.
+     *
+     * @param ordinal of the rule
+     * @return true if the rule has been sampled in
+     */
+    public boolean isSampled(int ordinal) {
+        return sampled.get(ordinal);
+    }
+
+    /**
+     * Whether the actions of a rule have been performed successfully.
+     *
+     * @param ordinal of the rule
+     * @return true if the rule has been executed
+     */
+    public boolean isExecuted(int ordinal) {
+        return executed.get(ordinal);
+    }
+
+    /**
+     * Whether the actions of a rule have failed.
+     *
+     * @param ordinal of the rule
+     * @return true if the rule has failed
+     */
+    public boolean isFailed(int ordinal) {
+        return failed.get(ordinal);
+    }
+
+    /**
+     * Return the time spent evaluating a rule.
+     *
+     * @param ordinal of the rule
+     * @return the evaluation time in nanoseconds, or 0 if timings are not enabled
+     */
+    public long getEvaluationNanos(int ordinal) {
+        return timingsEnabled && ordinal < size ? evaluationNanos[ordinal] : 0L;
+    }
+
+    /**
+     * Return the time spent executing a rule.
+     *
+     * @param ordinal of the rule
+     * @return the execution time in nanoseconds, or 0 if timings are not enabled
+     */
+    public long getExecutionNanos(int ordinal) {
+        return timingsEnabled && ordinal < size ? executionNanos[ordinal] : 0L;
+    }
+
+    /**
+     * Return the rules having their ordinal in the given set.
+     *
+     * @param ordinals of rules, typically one of the sets returned by this result
+     * @return the corresponding rules, in their natural order
+     */
+    public List<Rule> getRules(BitSet ordinals) {
+        List<Rule> result = new ArrayList<>(ordinals.cardinality());
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0 && ordinal < size; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            result.add(rules[ordinal]);
+        }
+        return result;
+    }
+
+    /**
+     * Return the value returned by {@link RulesEngine#fire(Rules, Facts)}.
+     *
+     * @return the fire result
+     */
+    public boolean getResult() {
+        return result;
+    }
+
+    /**
+     * Set the value returned by {@link RulesEngine#fire(Rules, Facts)}.
+     *
+     * @param result the fire result
+     */
+    public void setResult(boolean result) {
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return "FireResult { " +
+                "result = " + result +
+                ", evaluated = " + evaluated +
+                ", matched = " + matched +
+                ", sampled = " + sampled +
+                ", executed = " + executed +
+                ", failed = " + failed +
+                " }";
+    }
+}
@@ -23,6 +23,9 @@
  */
 package org.jeasy.rules.api;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Abstraction for a rule that can be fired by a rules engine.
  * <p>
@@ -53,6 +56,11 @@ public interface Rule extends Comparable<Rule> {
      */
     double DEFAULT_THRESHOLD = 1d;
 
+    /**
+     * Rate limit of rules that are not rate limited.
+     */
+    double NO_RATE_LIMIT = 0d;
+
     /**
      * Getter for rule name.
      *
@@ -89,6 +97,38 @@ public interface Rule extends Comparable<Rule> {
         return DEFAULT_THRESHOLD;
     }
 
+    /**
+     * Getter for rule rate limit: the maximum number of executions of the rule per second,
+     * with bursts of up to one second worth of executions. Matched rules over their rate
+     * limit are not executed, as if they were not sampled according to their threshold.
+     *
+     * @return rule rate limit, or {@link #NO_RATE_LIMIT} if the rule is not rate limited
+     */
+    default double getRateLimit() {
+        return NO_RATE_LIMIT;
+    }
+
+    /**
+     * Whether the rule's condition is a pure function of the facts it reads.
+     * The result of evaluating a pure rule may be memoized by the rules engine
+     * and reused as long as the facts it reads are unchanged.
+     *
+     * @return true if the rule's condition is pure, false otherwise
+     */
+    default boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Getter for the names of the facts read by the rule's condition.
+     *
+     * @return the names of the facts read by the rule's condition, or an empty
+     * set if they are not declared
+     */
+    default Set<String> getReadFacts() {
+        return Collections.emptySet();
+    }
+
     /**
      * This method implements the rule's condition(s).
      * <strong>Implementations should handle any runtime exception and return true/false accordingly</strong>
@@ -54,6 +54,19 @@ public interface RuleListener {
     default void afterEvaluate(final Rule rule, final Facts facts, final Boolean evaluationResult, final Boolean randomResult) {
     }
 
+    /**
+     * Triggered when a matched rule is not executed because it is over its
+     * {@link Rule#getRateLimit() rate limit}. Engines firing rules as soon as they
+     * are evaluated report the rule as not sampled to
+     * {@link #afterEvaluate(Rule, Facts, Boolean, Boolean)}. The inference engine
+     * checks the rate limit when an activation is about to fire, and drops it.
+     *
+     * @param rule  that has been rate limited
+     * @param facts known while evaluating the rule
+     */
+    default void onRateLimited(final Rule rule, final Facts facts) {
+    }
+
     /**
      * Triggered on condition evaluation error due to any runtime exception.
      *
@@ -40,6 +40,7 @@ import java.util.TreeSet;
 public class Rules implements Iterable<Rule> {
 
     private Set<Rule> rules = new TreeSet<>();
+    private long version;
 
     /**
      * Create a new {@link Rules} object.
@@ -79,6 +80,7 @@ public class Rules implements Iterable<Rule> {
             Objects.requireNonNull(rule);
             this.rules.add(RuleProxy.asRule(rule));
         }
+        version++;
     }
 
     /**
@@ -92,6 +94,7 @@ public class Rules implements Iterable<Rule> {
             Objects.requireNonNull(rule);
             this.rules.remove(RuleProxy.asRule(rule));
         }
+        version++;
     }
 
     /**
@@ -121,6 +124,7 @@ public class Rules implements Iterable<Rule> {
      */
     public void clear() {
         rules.clear();
+        version++;
     }
 
     /**
@@ -132,6 +136,18 @@ public class Rules implements Iterable<Rule> {
         return rules.size();
     }
 
+    /**
+     * Return the version of this rules namespace. The version is incremented
+     * each time rules are registered, unregistered or cleared, so two equal
+     * versions observed on the same instance mean that the rule set has not
+     * changed in between.
+     *
+     * @return the current version of the rules
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Return an iterator on the rules set. It is not intended to remove rules
      * using this iterator.
@@ -64,6 +64,22 @@ public interface RulesEngine {
      */
     Boolean fire(Rules rules, Facts facts);
 
+    /**
+     * Fire all registered rules on given facts and record the outcome of each
+     * rule in the given result. Implementations that do not track rules only
+     * record the value returned by {@link #fire(Rules, Facts)}.
+     *
+     * @param rules to fire
+     * @param facts to fire rules on
+     * @param fireResult to reset and fill, can be reused across fires
+     * @return the given fire result
+     */
+    default FireResult fire(Rules rules, Facts facts, FireResult fireResult) {
+        fireResult.reset(rules);
+        fireResult.setResult(fire(rules, facts));
+        return fireResult;
+    }
+
     /**
      * Check rules without firing them.
      * @return a map with the result of evaluation of each rule
@@ -35,8 +35,8 @@ public interface RulesEngineListener {
     /**
      * Triggered before evaluating the rule set.
      * <strong>When this listener is used with a {@link InferenceRulesEngine},
-     * this method will be triggered before the evaluation of each candidate rule
-     * set in each iteration.</strong>
+     * this method will be triggered once, before the rule set is matched against
+     * the facts.</strong>
      *
      * @param rules to fire
      * @param facts present before firing rules
@@ -46,8 +46,7 @@ public interface RulesEngineListener {
     /**
      * Triggered after executing the rule set
      * <strong>When this listener is used with a {@link InferenceRulesEngine},
-     * this method will be triggered after the execution of each candidate rule
-     * set in each iteration.</strong>
+     * this method will be triggered once, after no more rules are activated.</strong>
      *
      * @param rules fired
      * @param facts present after firing rules
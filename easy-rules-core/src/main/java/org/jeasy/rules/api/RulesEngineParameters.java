@@ -31,7 +31,9 @@ import org.jeasy.rules.core.InferenceRulesEngine;
  *
  * <ul>
  *     <li>When parameters are used with a {@link DefaultRulesEngine}, they are applied on <strong>all registered rules</strong>.</li>
- *     <li>When parameters are used with a {@link InferenceRulesEngine}, they are applied on <strong>candidate rules in each iteration</strong>.</li>
+ *     <li>When parameters are used with a {@link InferenceRulesEngine}, the priority threshold is applied on <strong>all registered rules</strong>
+ *     and {@code skipOnFirstFailedRule} stops firing rules after the first failed action. Other parameters are ignored
+ *     since activated rules are fired one at a time.</li>
  * </ul>
  *
  * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
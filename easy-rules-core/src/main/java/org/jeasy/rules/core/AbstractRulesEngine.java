@@ -23,14 +23,20 @@
  */
 package org.jeasy.rules.core;
 
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
 import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.api.RulesEngine;
 import org.jeasy.rules.api.RulesEngineListener;
 import org.jeasy.rules.api.RulesEngineParameters;
+import org.jeasy.rules.tracing.FireSpan;
+import org.jeasy.rules.tracing.RuleTracer;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Base class for {@link RulesEngine} implementations.
@@ -42,6 +48,11 @@ public abstract class AbstractRulesEngine implements RulesEngine {
     RulesEngineParameters parameters;
     List<RuleListener> ruleListeners;
     List<RulesEngineListener> rulesEngineListeners;
+    ConditionCache conditionCache;
+    RuleTracer ruleTracer;
+    SamplingStrategy samplingStrategy = SamplingStrategy.threadLocalRandom();
+    RuleRateLimiter ruleRateLimiter = new RuleRateLimiter();
+    volatile ListenerPhases listenerPhases = ListenerPhases.EMPTY;
 
     AbstractRulesEngine() {
         this(new RulesEngineParameters());
@@ -85,19 +96,184 @@ public abstract class AbstractRulesEngine implements RulesEngine {
         return Collections.unmodifiableList(rulesEngineListeners);
     }
 
+    /**
+     * Return the cache used to memoize the conditions of pure rules.
+     * @return the condition cache, or null if memoization is disabled
+     */
+    public ConditionCache getConditionCache() {
+        return conditionCache;
+    }
+
+    /**
+     * Set the cache used to memoize the conditions of pure rules.
+     * @param conditionCache to use, or null to disable memoization
+     */
+    public void setConditionCache(ConditionCache conditionCache) {
+        this.conditionCache = conditionCache;
+    }
+
+    /**
+     * Return the strategy selecting matched rules for execution according to their threshold.
+     * @return the sampling strategy
+     */
+    public SamplingStrategy getSamplingStrategy() {
+        return samplingStrategy;
+    }
+
+    /**
+     * Set the strategy selecting matched rules for execution according to their threshold.
+     * @param samplingStrategy to use, {@link SamplingStrategy#threadLocalRandom()} by default
+     */
+    public void setSamplingStrategy(SamplingStrategy samplingStrategy) {
+        this.samplingStrategy = Objects.requireNonNull(samplingStrategy, "sampling strategy must not be null");
+    }
+
+    /**
+     * Return the limiter enforcing the rate limits of rules.
+     * @return the rule rate limiter
+     */
+    public RuleRateLimiter getRuleRateLimiter() {
+        return ruleRateLimiter;
+    }
+
+    /**
+     * Set the limiter enforcing the rate limits of rules, typically to share it with other engines.
+     * @param ruleRateLimiter to use, each engine has its own limiter by default
+     */
+    public void setRuleRateLimiter(RuleRateLimiter ruleRateLimiter) {
+        this.ruleRateLimiter = Objects.requireNonNull(ruleRateLimiter, "rule rate limiter must not be null");
+    }
+
+    /**
+     * Return the tracer creating spans for fires and rules.
+     * @return the rule tracer, or null if tracing is disabled
+     */
+    public RuleTracer getRuleTracer() {
+        return ruleTracer;
+    }
+
+    /**
+     * Set the tracer creating spans for fires and rules.
+     * @param ruleTracer to use, or null to disable tracing
+     */
+    public void setRuleTracer(RuleTracer ruleTracer) {
+        this.ruleTracer = ruleTracer;
+    }
+
+    /*
+     * Start the span of a fire, or return null if tracing is disabled or the fire is not sampled in.
+     */
+    FireSpan startFireSpan(Rules rules) {
+        RuleTracer ruleTracer = this.ruleTracer;
+        return ruleTracer == null ? null : ruleTracer.startFire(getClass().getSimpleName(), rules.size());
+    }
+
     public void registerRuleListener(RuleListener ruleListener) {
         ruleListeners.add(ruleListener);
+        updateListenerPhases();
     }
 
     public void registerRuleListeners(List<RuleListener> ruleListeners) {
         this.ruleListeners.addAll(ruleListeners);
+        updateListenerPhases();
     }
 
     public void registerRulesEngineListener(RulesEngineListener rulesEngineListener) {
         rulesEngineListeners.add(rulesEngineListener);
+        updateListenerPhases();
     }
 
     public void registerRulesEngineListeners(List<RulesEngineListener> rulesEngineListeners) {
         this.rulesEngineListeners.addAll(rulesEngineListeners);
+        updateListenerPhases();
+    }
+
+    private void updateListenerPhases() {
+        listenerPhases = new ListenerPhases(ruleListeners, rulesEngineListeners);
+    }
+
+    boolean evaluate(Rule rule, Facts facts) {
+        if (conditionCache != null && rule.isPure()) {
+            return conditionCache.evaluate(rule, facts);
+        }
+        return rule.evaluate(facts);
+    }
+
+    boolean sample(Rule rule, Facts facts) {
+        return samplingStrategy.sample(rule, facts);
+    }
+
+    /*
+     * Tokens are taken right before rules are executed, so that only executions
+     * are counted. Rules over their rate limit are reported and not executed.
+     */
+    boolean tryAcquire(Rule rule, Facts facts) {
+        if (!ruleRateLimiter.tryAcquire(rule)) {
+            onRateLimited(rule, facts);
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * Listener callbacks are dispatched to the listeners overriding them only
+     * (see ListenerPhases), with plain loops to avoid allocating on the hot path.
+     */
+
+    void onExecuteFailure(final Rule rule, final Exception exception, Facts facts) {
+        for (RuleListener ruleListener : listenerPhases.onFailure) {
+            ruleListener.onFailure(rule, facts, exception);
+        }
+    }
+
+    void onExecuteSuccess(final Rule rule, Facts facts) {
+        for (RuleListener ruleListener : listenerPhases.onSuccess) {
+            ruleListener.onSuccess(rule, facts);
+        }
+    }
+
+    void beforeExecute(final Rule rule, Facts facts) {
+        for (RuleListener ruleListener : listenerPhases.beforeExecute) {
+            ruleListener.beforeExecute(rule, facts);
+        }
+    }
+
+    boolean shouldRuleEvaluate(Rule rule, Facts facts) {
+        for (RuleListener ruleListener : listenerPhases.beforeEvaluate) {
+            if (!ruleListener.beforeEvaluate(rule, facts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void afterRuleEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+        for (RuleListener ruleListener : listenerPhases.afterEvaluate) {
+            ruleListener.afterEvaluate(rule, facts, evaluationResult, randomResult);
+        }
+    }
+
+    void onRateLimited(Rule rule, Facts facts) {
+        for (RuleListener ruleListener : listenerPhases.onRateLimited) {
+            ruleListener.onRateLimited(rule, facts);
+        }
+    }
+
+    void onEvaluationError(Rule rule, Facts facts, Exception exception) {
+        for (RuleListener ruleListener : listenerPhases.onEvaluationError) {
+            ruleListener.onEvaluationError(rule, facts, exception);
+        }
+    }
+
+    void beforeRulesEvaluate(Rules rule, Facts facts) {
+        for (RulesEngineListener rulesEngineListener : listenerPhases.beforeRulesEvaluate) {
+            rulesEngineListener.beforeEvaluate(rule, facts);
+        }
+    }
+
+    void afterRulesEvaluate(Rules rule, Facts facts) {
+        for (RulesEngineListener rulesEngineListener : listenerPhases.afterRulesExecute) {
+            rulesEngineListener.afterExecute(rule, facts);
+        }
     }
 }
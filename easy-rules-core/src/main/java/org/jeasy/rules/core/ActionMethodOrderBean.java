@@ -55,10 +55,23 @@ class ActionMethodOrderBean implements Comparable<ActionMethodOrderBean> {
         } else if (order > actionMethodOrderBean.getOrder()) {
             return 1;
         } else {
-            return method.equals(actionMethodOrderBean.getMethod()) ? 0 : 1;
+            // same order as generated adapters: by signature, so that it does not depend on reflection
+            return signature(method).compareTo(signature(actionMethodOrderBean.getMethod()));
         }
     }
 
+    private static String signature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getCanonicalName());
+        }
+        return signature.append(')').toString();
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
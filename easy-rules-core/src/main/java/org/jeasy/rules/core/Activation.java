@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+
+/**
+ * Activation of a rule on the agenda of the {@link InferenceRulesEngine}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class Activation {
+
+    private final Rule rule;
+    private final int ordinal;
+    private final int complexity;
+    private long sequence;
+
+    Activation(Rule rule, int ordinal) {
+        this.rule = rule;
+        this.ordinal = ordinal;
+        this.complexity = rule.getReadFacts().size();
+    }
+
+    /**
+     * Return the activated rule.
+     *
+     * @return the activated rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Return the position of the activated rule in the natural order of rules.
+     *
+     * @return the ordinal of the activated rule
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Return the complexity of the activated rule, which is the number of facts it reads.
+     *
+     * @return the complexity of the activated rule
+     */
+    public int getComplexity() {
+        return complexity;
+    }
+
+    /**
+     * Return the sequence number of this activation. Activations created
+     * later have a greater sequence number.
+     *
+     * @return the sequence number of this activation
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "Activation { rule = " + rule.getName() + ", sequence = " + sequence + " }";
+    }
+}
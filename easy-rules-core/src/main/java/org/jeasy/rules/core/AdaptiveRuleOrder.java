@@ -0,0 +1,400 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive evaluation order of rules having the same priority, based on their measured
+ * cost and selectivity.
+ * <p>
+ * When the engine stops at the first applied rule, the expected cost of evaluating rules
+ * of the same priority is minimized by evaluating them by ascending ratio of their mean
+ * evaluation time to their match probability: cheap rules likely to match first, rules
+ * that never match last. Otherwise, rules are evaluated in their natural order: when all
+ * rules are evaluated, the order does not change the cost, and when the engine stops at the
+ * first non triggered rule, the order would change which rules are executed.
+ * <p>
+ * Rules are only reordered within a priority: a rule is never evaluated before a rule having
+ * a lower priority value. Among rules of the same priority however, the rule applied first
+ * may change once the order is adapted. Rules without enough statistics yet are evaluated
+ * first among their priority, in their natural order, so that they get measured.
+ * <p>
+ * Statistics are collected on every evaluation, and the ranking is recomputed every
+ * <code>reorderInterval</code> fires. Statistics are halved each time rules are ranked, so
+ * that the ranking follows changes of cost and selectivity instead of being dominated by
+ * old evaluations. A new ranking is published atomically: a running fire keeps the order
+ * it started with. Statistics can be {@link #save(Path) saved} and
+ * {@link #load(Path) loaded} so that a restarted engine starts with the learned order.
+ * <p>
+ * This class is thread safe and can be shared between rules engines.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class AdaptiveRuleOrder {
+
+    /**
+     * Default number of fires between two rankings.
+     */
+    public static final int DEFAULT_REORDER_INTERVAL = 1024;
+
+    /**
+     * Minimum number of evaluations of a rule before it is ranked.
+     */
+    public static final int MIN_EVALUATIONS = 16;
+
+    private static final int MAGIC = 0x45524f31; // "ERO1"
+
+    private final int reorderInterval;
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final AtomicLong fires = new AtomicLong();
+    private final Map<Rules, Plan> plans = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile Ranking ranking = Ranking.EMPTY;
+
+    /**
+     * Create a new {@link AdaptiveRuleOrder} ranking rules every {@value #DEFAULT_REORDER_INTERVAL} fires.
+     */
+    public AdaptiveRuleOrder() {
+        this(DEFAULT_REORDER_INTERVAL);
+    }
+
+    /**
+     * Create a new {@link AdaptiveRuleOrder}.
+     *
+     * @param reorderInterval number of fires between two rankings
+     */
+    public AdaptiveRuleOrder(int reorderInterval) {
+        Assert.isTrue(reorderInterval > 0, "Reorder interval must be positive.");
+        this.reorderInterval = reorderInterval;
+    }
+
+    public int getReorderInterval() {
+        return reorderInterval;
+    }
+
+    /**
+     * Rank rules from the statistics collected so far and publish the new order.
+     * Statistics collected before the previous ranking are halved.
+     */
+    public synchronized void reorder() {
+        Map<String, Estimate> estimates = new HashMap<>();
+        for (Map.Entry<String, Statistics> entry : statistics.entrySet()) {
+            Estimate estimate = entry.getValue().decay();
+            if (estimate != null) {
+                estimates.put(entry.getKey(), estimate);
+            }
+        }
+        ranking = new Ranking(estimates);
+    }
+
+    /**
+     * Discard the statistics collected so far and go back to the natural order of rules.
+     */
+    public synchronized void reset() {
+        statistics.clear();
+        ranking = Ranking.EMPTY;
+    }
+
+    /**
+     * Return the number of recorded evaluations of a rule, evaluations recorded
+     * before the previous ranking being halved.
+     *
+     * @param ruleName name of the rule
+     * @return the decayed number of evaluations of the rule, including loaded ones
+     */
+    public long getEvaluations(String ruleName) {
+        Statistics ruleStatistics = statistics.get(ruleName);
+        return ruleStatistics == null ? 0 : Math.round(ruleStatistics.evaluations());
+    }
+
+    /**
+     * Save the statistics collected so far. The file is replaced atomically
+     * when the file system supports it.
+     *
+     * @param path of the file to save statistics to
+     * @throws IOException if statistics can not be written
+     */
+    public void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                save(outputStream);
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Save the statistics collected so far.
+     *
+     * @param outputStream to write statistics to, left open
+     * @throws IOException if statistics can not be written
+     */
+    public synchronized void save(OutputStream outputStream) throws IOException {
+        Map<String, Statistics> snapshot = new HashMap<>(statistics);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        output.writeInt(snapshot.size());
+        for (Map.Entry<String, Statistics> entry : snapshot.entrySet()) {
+            Statistics ruleStatistics = entry.getValue();
+            output.writeUTF(entry.getKey());
+            output.writeLong(Math.round(ruleStatistics.evaluations()));
+            output.writeLong(Math.round(ruleStatistics.matches()));
+            output.writeLong(Math.round(ruleStatistics.nanos()));
+        }
+        output.flush();
+    }
+
+    /**
+     * Load statistics previously {@link #save(Path) saved}, add them to the
+     * statistics collected so far and rank rules accordingly.
+     *
+     * @param path of the file to load statistics from
+     * @throws IOException if statistics can not be read
+     */
+    public void load(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            load(inputStream);
+        }
+    }
+
+    /**
+     * Load statistics previously {@link #save(OutputStream) saved}, add them to the
+     * statistics collected so far and rank rules accordingly.
+     *
+     * @param inputStream to read statistics from, left open
+     * @throws IOException if statistics can not be read
+     */
+    public synchronized void load(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a rule order statistics file");
+        }
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            Statistics ruleStatistics = statisticsOf(input.readUTF());
+            ruleStatistics.evaluations.add(input.readLong());
+            ruleStatistics.matches.add(input.readLong());
+            ruleStatistics.nanos.add(input.readLong());
+        }
+        reorder();
+    }
+
+    void evaluated(Rule rule, boolean matched, long nanos) {
+        Statistics ruleStatistics = statisticsOf(rule.getName());
+        ruleStatistics.evaluations.increment();
+        if (matched) {
+            ruleStatistics.matches.increment();
+        }
+        ruleStatistics.nanos.add(nanos);
+    }
+
+    void fired() {
+        if (fires.incrementAndGet() % reorderInterval == 0) {
+            reorder();
+        }
+    }
+
+    /*
+     * Plans are cached per rule set and reused as long as the version of
+     * the rules and the ranking are unchanged.
+     */
+    Plan planFor(Rules rules) {
+        Plan plan = plans.get(rules);
+        Ranking ranking = this.ranking;
+        if (plan != null && plan.rulesVersion == rules.getVersion() && plan.ranking == ranking) {
+            return plan;
+        }
+        plan = new Plan(rules, ranking);
+        plans.put(rules, plan);
+        return plan;
+    }
+
+    private Statistics statisticsOf(String ruleName) {
+        Statistics ruleStatistics = statistics.get(ruleName);
+        if (ruleStatistics == null) {
+            ruleStatistics = statistics.computeIfAbsent(ruleName, name -> new Statistics());
+        }
+        return ruleStatistics;
+    }
+
+    private static final class Statistics {
+
+        // recorded since the last ranking
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        // recorded before the last ranking, decayed (written while ranking only)
+        private volatile double decayedEvaluations;
+        private volatile double decayedMatches;
+        private volatile double decayedNanos;
+        // rules stay ranked once measured, even if they are no longer evaluated
+        private boolean ranked;
+
+        Estimate decay() {
+            decayedEvaluations = decayedEvaluations / 2 + evaluations.sumThenReset();
+            decayedMatches = decayedMatches / 2 + matches.sumThenReset();
+            decayedNanos = decayedNanos / 2 + nanos.sumThenReset();
+            ranked |= decayedEvaluations >= MIN_EVALUATIONS;
+            if (!ranked || decayedEvaluations == 0d) {
+                return null;
+            }
+            return new Estimate(decayedNanos / decayedEvaluations, decayedMatches / decayedEvaluations);
+        }
+
+        double evaluations() {
+            return decayedEvaluations + evaluations.sum();
+        }
+
+        double matches() {
+            return decayedMatches + matches.sum();
+        }
+
+        double nanos() {
+            return decayedNanos + nanos.sum();
+        }
+    }
+
+    private static final class Estimate {
+
+        private final double meanNanos;
+        private final double matchProbability;
+
+        Estimate(double meanNanos, double matchProbability) {
+            this.meanNanos = meanNanos;
+            this.matchProbability = matchProbability;
+        }
+
+        /*
+         * Cost of evaluating the rule per fire it stops.
+         */
+        double cost() {
+            return matchProbability == 0d ? Double.POSITIVE_INFINITY : meanNanos / matchProbability;
+        }
+    }
+
+    private static final class Ranking {
+
+        private static final Ranking EMPTY = new Ranking(Collections.emptyMap());
+
+        private final Map<String, Estimate> estimates;
+
+        Ranking(Map<String, Estimate> estimates) {
+            this.estimates = estimates;
+        }
+
+        /*
+         * Rules that are not ranked yet come first.
+         */
+        double cost(Rule rule) {
+            Estimate estimate = estimates.get(rule.getName());
+            return estimate == null ? Double.NEGATIVE_INFINITY : estimate.cost();
+        }
+    }
+
+    /**
+     * Immutable evaluation order of a rule set. Each rule is given with its
+     * ordinal in the natural order of the rule set.
+     */
+    static final class Plan {
+
+        // plans do not reference their rule set, which is a weak key of the cache
+        private final long rulesVersion;
+        private final Ranking ranking;
+        private final Rule[] order;
+        private final int[] ordinals;
+
+        private Plan(Rules rules, Ranking ranking) {
+            this.rulesVersion = rules.getVersion();
+            this.ranking = ranking;
+            Rule[] natural = new Rule[rules.size()];
+            int size = 0;
+            for (Rule rule : rules) {
+                natural[size++] = rule;
+            }
+            Integer[] indexes = new Integer[size];
+            double[] costs = new double[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+                costs[i] = ranking.cost(natural[i]);
+            }
+            int from = 0;
+            while (from < size) {
+                int to = from + 1;
+                while (to < size && natural[to].getPriority() == natural[from].getPriority()) {
+                    to++;
+                }
+                // stable sort: rules with the same cost keep their natural order
+                Arrays.sort(indexes, from, to, (first, second) -> Double.compare(costs[first], costs[second]));
+                from = to;
+            }
+            this.order = new Rule[size];
+            this.ordinals = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = natural[indexes[i]];
+                ordinals[i] = indexes[i];
+            }
+        }
+
+        int size() {
+            return order.length;
+        }
+
+        Rule rule(int index) {
+            return order[index];
+        }
+
+        int ordinal(int index) {
+            return ordinals[index];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import java.util.Arrays;
+
+/**
+ * Agenda of the {@link InferenceRulesEngine}, holding activations ordered by
+ * a {@link ConflictResolutionStrategy}.
+ * <p>
+ * The agenda is an indexed binary heap: each rule has at most one activation, whose
+ * position in the heap is indexed by the rule's ordinal, so that activations can be
+ * inserted, cancelled and polled in O(log n).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class Agenda {
+
+    private static final int NOT_ACTIVATED = -1;
+
+    private final ConflictResolutionStrategy strategy;
+    private final Activation[] heap;
+    private final int[] positions;
+    private int size;
+    private long sequence;
+
+    Agenda(int capacity, ConflictResolutionStrategy strategy) {
+        this.strategy = strategy;
+        this.heap = new Activation[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, NOT_ACTIVATED);
+    }
+
+    /**
+     * Insert the given activation, or move it to its new place if it is already on the agenda.
+     *
+     * @param activation to insert
+     */
+    void activate(Activation activation) {
+        int ordinal = activation.getOrdinal();
+        int position = positions[ordinal];
+        if (position != NOT_ACTIVATED) {
+            remove(position);
+        }
+        activation.setSequence(++sequence);
+        heap[size] = activation;
+        positions[ordinal] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Cancel the activation of the rule having the given ordinal, if any.
+     *
+     * @param ordinal of the rule
+     */
+    void cancel(int ordinal) {
+        int position = positions[ordinal];
+        if (position != NOT_ACTIVATED) {
+            remove(position);
+        }
+    }
+
+    /**
+     * Remove the first activation.
+     *
+     * @return the first activation, or null if the agenda is empty
+     */
+    Activation poll() {
+        if (size == 0) {
+            return null;
+        }
+        Activation first = heap[0];
+        remove(0);
+        return first;
+    }
+
+    boolean isActivated(int ordinal) {
+        return positions[ordinal] != NOT_ACTIVATED;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void remove(int position) {
+        Activation removed = heap[position];
+        positions[removed.getOrdinal()] = NOT_ACTIVATED;
+        Activation last = heap[--size];
+        heap[size] = null;
+        if (position == size) {
+            return;
+        }
+        heap[position] = last;
+        positions[last.getOrdinal()] = position;
+        if (strategy.compare(last, removed) < 0) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        Activation activation = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (strategy.compare(activation, heap[parent]) >= 0) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(activation, position);
+    }
+
+    private void siftDown(int position) {
+        Activation activation = heap[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && strategy.compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (strategy.compare(activation, heap[child]) <= 0) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(activation, position);
+    }
+
+    private void move(Activation activation, int position) {
+        heap[position] = activation;
+        positions[activation.getOrdinal()] = position;
+    }
+}
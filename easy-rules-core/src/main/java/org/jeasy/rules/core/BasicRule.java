@@ -26,7 +26,9 @@ package org.jeasy.rules.core;
 import org.jeasy.rules.api.Facts;
 import org.jeasy.rules.api.Rule;
 
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Basic rule implementation class that provides common methods.
@@ -58,6 +60,21 @@ public class BasicRule implements Rule {
      */
     protected double threshold;
 
+    /**
+     * Rule rate limit, in executions per second.
+     */
+    protected double rateLimit = Rule.NO_RATE_LIMIT;
+
+    /**
+     * Whether the rule's condition is pure.
+     */
+    protected boolean pure;
+
+    /**
+     * Names of the facts read by the rule's condition.
+     */
+    protected Set<String> readFacts = Collections.emptySet();
+
     protected String expression;
 
     /**
@@ -154,6 +171,30 @@ public class BasicRule implements Rule {
         this.threshold = threshold;
     }
 
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public boolean isPure() {
+        return pure;
+    }
+
+    public void setPure(boolean pure) {
+        this.pure = pure;
+    }
+
+    public Set<String> getReadFacts() {
+        return readFacts;
+    }
+
+    public void setReadFacts(Set<String> readFacts) {
+        this.readFacts = readFacts;
+    }
+
     public String getExpression() {
         return expression;
     }
@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.api.Facts;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * Plan binding facts to the parameters of a condition or action method of an annotated rule.
+ * <p>
+ * The plan is resolved once per method: binding facts does not introspect the method, and
+ * argument arrays are reused per thread. A method invoked again while its arguments are in
+ * use on the same thread (for example when an action fires rules) gets a fresh array.
+ * Missing facts are handled according to their {@link Fact#ifMissing()} policy.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class BindingPlan {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final String[] factNames;
+    private final Class<?>[] parameterTypes;
+    private final Fact.Missing[] policies;
+    private final Object[] defaultValues;
+    private final ThreadLocal<Arguments> arguments;
+
+    BindingPlan(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        this.factNames = new String[types.length];
+        this.parameterTypes = new Class<?>[types.length];
+        this.policies = new Fact.Missing[types.length];
+        this.defaultValues = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            this.parameterTypes[i] = MethodType.methodType(types[i]).wrap().returnType();
+            // validated upfront, there may be only one parameter not annotated and which is of type Facts.class
+            if (parameterAnnotations[i].length == 0) {
+                continue;
+            }
+            Fact fact = (Fact) parameterAnnotations[i][0];
+            this.factNames[i] = fact.value();
+            this.policies[i] = fact.ifMissing();
+            if (fact.ifMissing() == Fact.Missing.DEFAULT) {
+                this.defaultValues[i] = defaultValue(types[i], fact.defaultValue(), method);
+            } else if (fact.ifMissing() == Fact.Missing.NULL && types[i].isPrimitive()) {
+                throw new IllegalArgumentException(format("Fact '%s' of primitive type can not be null in method '%s'",
+                        fact.value(), method));
+            }
+        }
+        this.arguments = types.length == 0 ? null : ThreadLocal.withInitial(() -> new Arguments(types.length));
+    }
+
+    /**
+     * Bind facts to the parameters of the method. The returned array is reused by the
+     * next binding on the same thread once released, and must be released after the method is invoked.
+     *
+     * @param facts known facts
+     * @return arguments of the method, or null if a fact is missing and the rule should be skipped
+     */
+    Object[] bind(Facts facts) {
+        if (arguments == null) {
+            return NO_ARGUMENTS;
+        }
+        Arguments threadArguments = arguments.get();
+        Object[] actualParameters;
+        if (threadArguments.inUse) {
+            // reentrant binding, the arguments of this thread are still in use
+            actualParameters = new Object[factNames.length];
+        } else {
+            threadArguments.inUse = true;
+            actualParameters = threadArguments.values;
+        }
+        for (int i = 0; i < factNames.length; i++) {
+            String factName = factNames[i];
+            if (factName == null) {
+                actualParameters[i] = facts;
+                continue;
+            }
+            org.jeasy.rules.api.Fact<?> fact = facts.getFact(factName);
+            if (fact != null) {
+                actualParameters[i] = fact.getValue();
+            } else if (policies[i] == Fact.Missing.SKIP) {
+                release(actualParameters);
+                return null;
+            } else {
+                actualParameters[i] = defaultValues[i];
+            }
+        }
+        return actualParameters;
+    }
+
+    boolean accepts(Object[] actualParameters) {
+        for (int i = 0; i < actualParameters.length; i++) {
+            Object actualParameter = actualParameters[i];
+            if (actualParameter == null ? policies[i] != Fact.Missing.NULL : !parameterTypes[i].isInstance(actualParameter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clear the given arguments, so that facts are not retained after the method is invoked.
+     *
+     * @param actualParameters arguments returned by {@link #bind(Facts)}
+     */
+    void release(Object[] actualParameters) {
+        if (actualParameters.length == 0) {
+            return;
+        }
+        Arrays.fill(actualParameters, null);
+        Arguments threadArguments = arguments.get();
+        if (threadArguments.values == actualParameters) {
+            threadArguments.inUse = false;
+        }
+    }
+
+    /**
+     * Return the name of the first missing fact preventing the method from being invoked.
+     * Meant to be used for reporting only.
+     *
+     * @param facts known facts
+     * @return the name of the missing fact, or null if no fact is missing
+     */
+    String missingFact(Facts facts) {
+        for (int i = 0; i < factNames.length; i++) {
+            if (factNames[i] != null && policies[i] == Fact.Missing.SKIP && facts.getFact(factNames[i]) == null) {
+                return factNames[i];
+            }
+        }
+        return null;
+    }
+
+    private static Object defaultValue(Class<?> type, String value, Method method) {
+        Class<?> boxedType = MethodType.methodType(type).wrap().returnType();
+        try {
+            if (boxedType == String.class) {
+                return value;
+            }
+            if (boxedType.isEnum()) {
+                return enumValue(boxedType, value);
+            }
+            if (boxedType == Character.class) {
+                if (value.length() > 1) {
+                    throw new IllegalArgumentException("not a character");
+                }
+                return value.isEmpty() ? '\0' : value.charAt(0);
+            }
+            if (boxedType == Boolean.class) {
+                if (!value.isEmpty() && !value.equals("true") && !value.equals("false")) {
+                    throw new IllegalArgumentException("not a boolean");
+                }
+                return Boolean.valueOf(value);
+            }
+            String number = value.isEmpty() ? "0" : value;
+            if (boxedType == Integer.class) {
+                return Integer.valueOf(number);
+            } else if (boxedType == Long.class) {
+                return Long.valueOf(number);
+            } else if (boxedType == Double.class) {
+                return Double.valueOf(number);
+            } else if (boxedType == Float.class) {
+                return Float.valueOf(number);
+            } else if (boxedType == Short.class) {
+                return Short.valueOf(number);
+            } else if (boxedType == Byte.class) {
+                return Byte.valueOf(number);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(format("Default value '%s' can not be converted to type '%s' in method '%s'",
+                    value, type.getName(), method), e);
+        }
+        throw new IllegalArgumentException(format("Default values are not supported for type '%s' in method '%s'",
+                type.getName(), method));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> type, String value) {
+        return Enum.valueOf((Class<? extends Enum>) type, value);
+    }
+
+    private static final class Arguments {
+
+        private final Object[] values;
+        private boolean inUse;
+
+        private Arguments(int length) {
+            this.values = new Object[length];
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of condition results of {@link Rule#isPure() pure} rules.
+ * <p>
+ * For each rule and {@link Facts} instance, the cache keeps the last result of
+ * the rule's condition together with the identities of the facts it read
+ * (as declared by {@link Rule#getReadFacts()}). The result is reused as long as
+ * none of these facts has been added, replaced or removed since. When a rule does
+ * not declare the facts it reads, the result is reused only if no fact at all
+ * has changed (see {@link Facts#getVersion()}).
+ * <p>
+ * The cache is direct-mapped: an entry may be evicted by another rule/facts pair
+ * hashing to the same slot, so the cache never holds more than its maximum size.
+ * It is lock-free and can be shared between threads and rules engines.
+ * <p>
+ * <strong>Pure rules must not depend on the internal state of fact values:
+ * mutating a fact value in place is not detected by the cache.</strong>
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class ConditionCache {
+
+    /**
+     * Default maximum number of cached condition results.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a new {@link ConditionCache} with the default maximum size.
+     */
+    public ConditionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a new {@link ConditionCache}.
+     *
+     * @param maxSize maximum number of cached condition results, rounded down to a power of two
+     */
+    public ConditionCache(int maxSize) {
+        Assert.isTrue(maxSize > 0, "Max size must be positive.");
+        int capacity = Integer.highestOneBit(maxSize);
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Evaluate the condition of a rule, reusing the cached result if the facts
+     * read by the condition are unchanged.
+     *
+     * @param rule to evaluate
+     * @param facts to evaluate the rule against
+     * @return the result of the rule's condition
+     */
+    public boolean evaluate(Rule rule, Facts facts) {
+        int index = indexOf(rule, facts);
+        Entry entry = entries[index];
+        if (entry != null && entry.matches(rule, facts)) {
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        Set<String> readFacts = rule.getReadFacts();
+        String[] names = readFacts.isEmpty() ? NO_NAMES : readFacts.toArray(NO_NAMES);
+        Fact<?>[] readFactsVersions = new Fact<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            readFactsVersions[i] = facts.getFact(names[i]);
+        }
+        long factsVersion = facts.getVersion();
+        boolean result = rule.evaluate(facts);
+        entries[index] = new Entry(rule, facts, names, readFactsVersions, factsVersion, result);
+        return result;
+    }
+
+    /**
+     * Remove all cached condition results. Hit and miss counts are left unchanged.
+     */
+    public void clear() {
+        Arrays.fill(entries, null);
+    }
+
+    /**
+     * Return the maximum number of cached condition results.
+     *
+     * @return the maximum size of the cache
+     */
+    public int getMaxSize() {
+        return entries.length;
+    }
+
+    /**
+     * Return the current number of cached condition results.
+     *
+     * @return the size of the cache
+     */
+    public int size() {
+        int size = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Return the number of evaluations served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Return the number of evaluations that required to evaluate the condition.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private int indexOf(Rule rule, Facts facts) {
+        int hash = 31 * System.identityHashCode(rule) + System.identityHashCode(facts);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /*
+     * Entries are immutable so they can be safely published through a plain array.
+     */
+    private static final class Entry {
+
+        private final Rule rule;
+        private final Facts facts;
+        private final String[] readFacts;
+        private final Fact<?>[] readFactsVersions;
+        private final long factsVersion;
+        private final boolean result;
+
+        private Entry(Rule rule, Facts facts, String[] readFacts, Fact<?>[] readFactsVersions, long factsVersion, boolean result) {
+            this.rule = rule;
+            this.facts = facts;
+            this.readFacts = readFacts;
+            this.readFactsVersions = readFactsVersions;
+            this.factsVersion = factsVersion;
+            this.result = result;
+        }
+
+        private boolean matches(Rule rule, Facts facts) {
+            if (this.rule != rule || this.facts != facts) {
+                return false;
+            }
+            if (readFacts.length == 0) {
+                return factsVersion == facts.getVersion();
+            }
+            for (int i = 0; i < readFacts.length; i++) {
+                if (facts.getFact(readFacts[i]) != readFactsVersions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Strategy used by the {@link InferenceRulesEngine} to select the next activation
+ * to fire among the activations of its agenda: activations that compare lower are
+ * fired first.
+ * <p>
+ * Strategies must be consistent: the order of two activations must not change while
+ * they are on the agenda. Strategies provided by this interface fall back to the natural
+ * order of rules, so that firing order is deterministic.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@FunctionalInterface
+public interface ConflictResolutionStrategy extends Comparator<Activation> {
+
+    /**
+     * Fire activations in the natural order of rules, which is priority by default.
+     *
+     * @return the priority strategy
+     */
+    static ConflictResolutionStrategy priority() {
+        return (activation1, activation2) -> Integer.compare(activation1.getOrdinal(), activation2.getOrdinal());
+    }
+
+    /**
+     * Fire the most recent activations first.
+     *
+     * @return the recency strategy
+     */
+    static ConflictResolutionStrategy recency() {
+        return (activation1, activation2) -> {
+            int result = Long.compare(activation2.getSequence(), activation1.getSequence());
+            return result != 0 ? result : priority().compare(activation1, activation2);
+        };
+    }
+
+    /**
+     * Fire activations of the most complex rules first, that is rules reading the greatest
+     * number of facts (see {@link Rule#getReadFacts()}).
+     *
+     * @return the complexity strategy
+     */
+    static ConflictResolutionStrategy complexity() {
+        return (activation1, activation2) -> {
+            int result = Integer.compare(activation2.getComplexity(), activation1.getComplexity());
+            return result != 0 ? result : priority().compare(activation1, activation2);
+        };
+    }
+
+    /**
+     * Fire activations group by group, in the given order of groups. Activations of rules
+     * that do not belong to any of the given groups are fired last.
+     *
+     * @param groupOf function returning the group of a rule
+     * @param groups names of groups, in firing order
+     * @return the salience groups strategy
+     */
+    static ConflictResolutionStrategy salienceGroups(Function<Rule, String> groupOf, String... groups) {
+        Objects.requireNonNull(groupOf, "group function must not be null");
+        List<String> order = Arrays.asList(groups);
+        ToIntFunction<Rule> salience = rule -> {
+            int index = order.indexOf(groupOf.apply(rule));
+            return index >= 0 ? index : order.size();
+        };
+        return (activation1, activation2) -> {
+            int result = Integer.compare(salience.applyAsInt(activation1.getRule()), salience.applyAsInt(activation2.getRule()));
+            return result != 0 ? result : priority().compare(activation1, activation2);
+        };
+    }
+}
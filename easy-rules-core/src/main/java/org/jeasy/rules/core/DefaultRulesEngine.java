@@ -25,8 +25,11 @@ package org.jeasy.rules.core;
 
 import lombok.extern.slf4j.Slf4j;
 import org.jeasy.rules.api.*;
+import org.jeasy.rules.tracing.FireSpan;
+import org.jeasy.rules.tracing.Scope;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -40,6 +43,9 @@ import java.util.Map;
  */
 @Slf4j
 public final class DefaultRulesEngine extends AbstractRulesEngine {
+
+    AdaptiveRuleOrder adaptiveRuleOrder;
+
     /**
      * Create a new {@link DefaultRulesEngine} with default parameters.
      */
@@ -56,16 +62,76 @@ public final class DefaultRulesEngine extends AbstractRulesEngine {
         super(parameters);
     }
 
+    /**
+     * Return the adaptive order of rules having the same priority.
+     * @return the adaptive rule order, or null if rules are evaluated in their natural order
+     */
+    public AdaptiveRuleOrder getAdaptiveRuleOrder() {
+        return adaptiveRuleOrder;
+    }
+
+    /**
+     * Set the adaptive order of rules having the same priority. The order is only
+     * adapted when the engine stops at the first applied rule.
+     * @param adaptiveRuleOrder to use, or null to evaluate rules in their natural order
+     */
+    public void setAdaptiveRuleOrder(AdaptiveRuleOrder adaptiveRuleOrder) {
+        this.adaptiveRuleOrder = adaptiveRuleOrder;
+    }
+
     @Override
     public Boolean fire(Rules rules, Facts facts) {
-        beforeRulesEvaluate(rules, facts);
-        Boolean result = doFire(rules, facts);
-        afterRulesEvaluate(rules, facts);
+        boolean recorded = RuleEvents.isRecording();
+        long start = recorded ? System.nanoTime() : 0L;
+        FireSpan span = startFireSpan(rules);
+        Scope scope = span == null ? null : span.makeCurrent();
+        Boolean result = null;
+        try {
+            beforeRulesEvaluate(rules, facts);
+            result = doFire(rules, facts, null, span);
+            afterRulesEvaluate(rules, facts);
+        } finally {
+            if (span != null) {
+                scope.close();
+                span.end(result);
+            }
+        }
+        if (recorded) {
+            RuleEvents.rulesFired(rules.size(), result, System.nanoTime() - start);
+        }
         log.debug("Fire result:{}", result);
         return result;
     }
 
-    Boolean doFire(Rules rules, Facts facts) {
+    @Override
+    public FireResult fire(Rules rules, Facts facts, FireResult fireResult) {
+        boolean recorded = RuleEvents.isRecording();
+        long start = recorded ? System.nanoTime() : 0L;
+        fireResult.reset(rules);
+        FireSpan span = startFireSpan(rules);
+        Scope scope = span == null ? null : span.makeCurrent();
+        Boolean result = null;
+        try {
+            beforeRulesEvaluate(rules, facts);
+            result = doFire(rules, facts, fireResult, span);
+            fireResult.setResult(result);
+            afterRulesEvaluate(rules, facts);
+        } finally {
+            if (span != null) {
+                scope.close();
+                span.end(result);
+            }
+        }
+        if (recorded) {
+            RuleEvents.rulesFired(rules.size(), result, System.nanoTime() - start);
+        }
+        log.debug("Fire result:{}", fireResult);
+        return fireResult;
+    }
+
+    Boolean doFire(Rules rules, Facts facts, FireResult fireResult, FireSpan span) {
+        final AdaptiveRuleOrder adaptiveRuleOrder = this.adaptiveRuleOrder;
+        final FireObserver observer = FireObserver.of(fireResult, adaptiveRuleOrder, span);
         if (rules.isEmpty()) {
             log.warn("No rules registered! Nothing to apply");
             return true;
@@ -74,7 +140,18 @@ public final class DefaultRulesEngine extends AbstractRulesEngine {
         log(rules);
         log(facts);
         log.debug("Rules evaluation started");
-        for (Rule rule : rules) {
+        AdaptiveRuleOrder.Plan plan = null;
+        if (adaptiveRuleOrder != null) {
+            adaptiveRuleOrder.fired();
+            if (parameters.isSkipOnFirstAppliedRule()) {
+                plan = adaptiveRuleOrder.planFor(rules);
+            }
+        }
+        Iterator<Rule> iterator = plan == null ? rules.iterator() : null;
+        int size = plan == null ? rules.size() : plan.size();
+        for (int index = 0; index < size; index++) {
+            final Rule rule = plan == null ? iterator.next() : plan.rule(index);
+            final int ordinal = plan == null ? index : plan.ordinal(index);
             final String name = rule.getName();
             final int priority = rule.getPriority();
             if (priority > parameters.getPriorityThreshold()) {
@@ -87,37 +164,35 @@ public final class DefaultRulesEngine extends AbstractRulesEngine {
                 continue;
             }
             boolean evaluationResult = false;
+            long start = observer.start();
             try {
-                evaluationResult = rule.evaluate(facts);
+                evaluationResult = evaluate(rule, facts);
             } catch (Exception exception) {
                 log.error("Rule '" + name + "' evaluated with error", exception);
                 onEvaluationError(rule, facts, exception);
                 // give the option to either skip next rules on evaluation error or continue by considering the evaluation error as false
                 if (parameters.isSkipOnFirstNonTriggeredRule()) {
+                    observer.evaluated(rule, ordinal, false, false, start, observer.elapsed(start));
                     log.warn("Next rules will be skipped since parameter skipOnFirstNonTriggeredRule is set");
                     continue; //异常，则执行下一个
                 }
             }
 
+            long elapsed = observer.elapsed(start);
             boolean randomResult = false;
             if (evaluationResult) {
-                Double threshold = rule.getThreshold();
-                if (threshold > Rule.DEFAULT_THRESHOLD) {
-                    threshold = Rule.DEFAULT_THRESHOLD;
-                }
-                if (threshold < 0d) {
-                    threshold = 0d;
-                }
-                Double randomValue = RandomUtils.nextDouble(0, Rule.DEFAULT_THRESHOLD);
-                randomResult = randomValue < threshold;
-                log.info("Rule '{}' has been evaluated to {}, randomResult is {}, {} -> {}", name, evaluationResult, randomResult, randomValue, threshold);
+                randomResult = sample(rule, facts) && tryAcquire(rule, facts);
+                log.info("Rule '{}' has been evaluated to {}, randomResult is {}, threshold is {}", name, evaluationResult, randomResult, rule.getThreshold());
             }
+            observer.evaluated(rule, ordinal, evaluationResult, randomResult, start, elapsed);
             afterRuleEvaluate(rule, facts, evaluationResult, randomResult);
 
             if (evaluationResult && randomResult) {
                 try {
                     beforeExecute(rule, facts);
+                    start = observer.start();
                     rule.execute(facts);
+                    observer.executed(rule, ordinal, true, start, observer.elapsed(start));
                     log.debug("Rule '{}' performed action successfully", name);
                     onExecuteSuccess(rule, facts);
                     if (parameters.isSkipOnFirstAppliedRule()) {
@@ -125,6 +200,7 @@ public final class DefaultRulesEngine extends AbstractRulesEngine {
                         return true; //有一个执行成功，则不再往下执行
                     }
                 } catch (Exception exception) {
+                    observer.executed(rule, ordinal, false, start, observer.elapsed(start));
                     log.error("Rule '" + name + "' performed action with error", exception);
                     onExecuteFailure(rule, exception, facts);
                     if (parameters.isSkipOnFirstFailedRule()) {
@@ -172,41 +248,9 @@ public final class DefaultRulesEngine extends AbstractRulesEngine {
         Map<Rule, Boolean> result = new HashMap<>();
         for (Rule rule : rules) {
             if (shouldRuleEvaluate(rule, facts)) {
-                result.put(rule, rule.evaluate(facts));
+                result.put(rule, evaluate(rule, facts));
             }
         }
         return result;
     }
-
-    private void onExecuteFailure(final Rule rule, final Exception exception, Facts facts) {
-        ruleListeners.forEach(ruleListener -> ruleListener.onFailure(rule, facts, exception));
-    }
-
-    private void onExecuteSuccess(final Rule rule, Facts facts) {
-        ruleListeners.forEach(ruleListener -> ruleListener.onSuccess(rule, facts));
-    }
-
-    private void beforeExecute(final Rule rule, Facts facts) {
-        ruleListeners.forEach(ruleListener -> ruleListener.beforeExecute(rule, facts));
-    }
-
-    private boolean shouldRuleEvaluate(Rule rule, Facts facts) {
-        return ruleListeners.stream().allMatch(ruleListener -> ruleListener.beforeEvaluate(rule, facts));
-    }
-
-    private void afterRuleEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
-        ruleListeners.forEach(ruleListener -> ruleListener.afterEvaluate(rule, facts, evaluationResult, randomResult));
-    }
-
-    private void onEvaluationError(Rule rule, Facts facts, Exception exception) {
-        ruleListeners.forEach(ruleListener -> ruleListener.onEvaluationError(rule, facts, exception));
-    }
-
-    private void beforeRulesEvaluate(Rules rule, Facts facts) {
-        rulesEngineListeners.forEach(rulesEngineListener -> rulesEngineListener.beforeEvaluate(rule, facts));
-    }
-
-    private void afterRulesEvaluate(Rules rule, Facts facts) {
-        rulesEngineListeners.forEach(rulesEngineListener -> rulesEngineListener.afterExecute(rule, facts));
-    }
 }
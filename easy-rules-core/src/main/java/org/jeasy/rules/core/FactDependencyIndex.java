@@ -0,0 +1,304 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from fact names to the rules depending on them, used by the {@link InferenceRulesEngine}
+ * to find the rules to evaluate again after facts have changed.
+ * <p>
+ * Rule conditions are opaque predicates, so they cannot be split into single-fact tests
+ * and joins as in a Rete network: this index only records, for each fact name read by at
+ * least one rule (see {@link Rule#getReadFacts()}), the ordinals of the rules reading it.
+ * When a fact changes, the conditions of these rules are evaluated again as a whole. Rules
+ * that do not declare the facts they read are not indexed: they are evaluated again after
+ * any change.
+ * <p>
+ * Rules are identified by their ordinal, which is their position in the natural order of
+ * rules, so that working memory state and activations can be indexed by ordinal. An index
+ * is immutable, all state lives in a {@link WorkingMemory}.
+ * <p>
+ * A compiled index can be written to a compact binary file with {@link #writeTo(Path)} and
+ * read back with {@link #readFrom(Path, Rules)}, which binds the stored entries to the given
+ * rules by ordinal. Reading an index checks the name, priority and read facts of every rule
+ * against the file, so it goes through all rules as compiling does: it only saves grouping
+ * rules by fact name.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class FactDependencyIndex {
+
+    private static final int MAGIC = 0x45524E54;
+    private static final int FORMAT_VERSION = 2;
+
+    private final Rules source;
+    private final int priorityThreshold;
+    private final Rule[] rules;
+    private final String[] factNames;
+    private final int[][] dependentRules;
+    private final int[] unindexedRules;
+
+    private FactDependencyIndex(Rules source, int priorityThreshold, Rule[] rules, String[] factNames, int[][] dependentRules, int[] unindexedRules) {
+        this.source = source;
+        this.priorityThreshold = priorityThreshold;
+        this.rules = rules;
+        this.factNames = factNames;
+        this.dependentRules = dependentRules;
+        this.unindexedRules = unindexedRules;
+    }
+
+    /**
+     * Compile the fact dependency index of the given rules.
+     *
+     * @param rules to compile
+     * @param priorityThreshold rules having a priority greater than this threshold are not compiled
+     * @return the compiled fact dependency index
+     */
+    static FactDependencyIndex compile(Rules rules, int priorityThreshold) {
+        List<Rule> indexedRules = new ArrayList<>();
+        Map<String, List<Integer>> successors = new LinkedHashMap<>();
+        List<Integer> unindexed = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.getPriority() > priorityThreshold) {
+                break;
+            }
+            int ordinal = indexedRules.size();
+            indexedRules.add(rule);
+            if (rule.getReadFacts().isEmpty()) {
+                unindexed.add(ordinal);
+            } else {
+                for (String factName : rule.getReadFacts()) {
+                    successors.computeIfAbsent(factName, name -> new ArrayList<>()).add(ordinal);
+                }
+            }
+        }
+        String[] factNames = successors.keySet().toArray(new String[0]);
+        int[][] dependentRules = new int[factNames.length][];
+        for (int i = 0; i < factNames.length; i++) {
+            dependentRules[i] = toArray(successors.get(factNames[i]));
+        }
+        return new FactDependencyIndex(rules, priorityThreshold, indexedRules.toArray(new Rule[0]), factNames, dependentRules, toArray(unindexed));
+    }
+
+    /**
+     * Write this index to the given file, replacing it if it exists. Rules are
+     * written by name, priority and read facts only, to check that the index is
+     * read back with the same rules.
+     *
+     * @param path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path path) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(path);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(priorityThreshold);
+            output.writeInt(rules.length);
+            for (Rule rule : rules) {
+                writeString(output, rule.getName());
+                output.writeInt(rule.getPriority());
+                output.writeInt(rule.getReadFacts().size());
+                for (String factName : rule.getReadFacts()) {
+                    writeString(output, factName);
+                }
+            }
+            output.writeInt(factNames.length);
+            for (int factIndex = 0; factIndex < factNames.length; factIndex++) {
+                writeString(output, factNames[factIndex]);
+                writeInts(output, dependentRules[factIndex]);
+            }
+            writeInts(output, unindexedRules);
+        }
+    }
+
+    /**
+     * Read an index written with {@link #writeTo(Path)} and bind it to the given rules.
+     * The file is memory-mapped while it is read.
+     *
+     * @param path of the file to read
+     * @param rules to bind the index to, in the same order as the rules of the written index
+     * @return the index bound to the given rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a index, or if the rules do not match
+     * the rules of the written index
+     */
+    public static FactDependencyIndex readFrom(Path path, Rules rules) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("File " + path + " is not a compiled fact dependency index");
+            }
+            int priorityThreshold = buffer.getInt();
+            Rule[] indexedRules = new Rule[buffer.getInt()];
+            int ordinal = 0;
+            for (Rule rule : rules) {
+                if (ordinal == indexedRules.length) {
+                    if (rule.getPriority() <= priorityThreshold) {
+                        throw new IllegalArgumentException("Rule '" + rule.getName() + "' is not in the compiled fact dependency index");
+                    }
+                    break;
+                }
+                String name = readString(buffer);
+                int priority = buffer.getInt();
+                if (!rule.getName().equals(name) || rule.getPriority() != priority) {
+                    throw new IllegalArgumentException("Rule '" + rule.getName() + "' does not match rule '"
+                            + name + "' of the compiled fact dependency index at ordinal " + ordinal);
+                }
+                int readFactCount = buffer.getInt();
+                boolean sameReadFacts = rule.getReadFacts().size() == readFactCount;
+                for (int i = 0; i < readFactCount; i++) {
+                    sameReadFacts &= rule.getReadFacts().contains(readString(buffer));
+                }
+                if (!sameReadFacts) {
+                    throw new IllegalArgumentException("Facts read by rule '" + rule.getName()
+                            + "' do not match the facts of the compiled fact dependency index");
+                }
+                indexedRules[ordinal++] = rule;
+            }
+            if (ordinal != indexedRules.length) {
+                throw new IllegalArgumentException("The compiled fact dependency index has " + indexedRules.length
+                        + " rules but only " + ordinal + " rules are given");
+            }
+            String[] factNames = new String[buffer.getInt()];
+            int[][] dependentRules = new int[factNames.length][];
+            for (int factIndex = 0; factIndex < factNames.length; factIndex++) {
+                factNames[factIndex] = readString(buffer);
+                dependentRules[factIndex] = readInts(buffer, indexedRules.length);
+            }
+            int[] unindexedRules = readInts(buffer, indexedRules.length);
+            return new FactDependencyIndex(rules, priorityThreshold, indexedRules, factNames, dependentRules, unindexedRules);
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("File " + path + " is truncated", exception);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int bound) {
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+            if (values[i] < 0 || values[i] >= bound) {
+                throw new IllegalArgumentException("Invalid rule ordinal: " + values[i]);
+            }
+        }
+        return values;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Return the rules this index has been compiled from.
+     *
+     * @return the rules of this index
+     */
+    public Rules getRules() {
+        return source;
+    }
+
+    /**
+     * Return the priority threshold this index has been compiled with.
+     *
+     * @return the priority threshold of this index
+     */
+    public int getPriorityThreshold() {
+        return priorityThreshold;
+    }
+
+    /**
+     * Return the number of rules in this index, which excludes rules above the
+     * priority threshold used to compile it.
+     *
+     * @return the number of rules in this index
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    Rule getRule(int ordinal) {
+        return rules[ordinal];
+    }
+
+    int getFactCount() {
+        return factNames.length;
+    }
+
+    String getFactName(int factIndex) {
+        return factNames[factIndex];
+    }
+
+    int[] getDependentRules(int factIndex) {
+        return dependentRules[factIndex];
+    }
+
+    int[] getUnindexedRules() {
+        return unindexedRules;
+    }
+}
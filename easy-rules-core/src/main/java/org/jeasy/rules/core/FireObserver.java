@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.tracing.FireSpan;
+
+/**
+ * Reports the evaluations and executions of rules during a fire of a {@link DefaultRulesEngine}
+ * to the fire result, JFR events, the adaptive rule order and rule spans, whichever are enabled.
+ * <p>
+ * What is enabled is resolved once per fire, and rules are only timed if one of them is.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class FireObserver {
+
+    private static final FireObserver NONE = new FireObserver(null, false, null, null);
+
+    private final FireResult fireResult;
+    private final boolean recorded;
+    private final AdaptiveRuleOrder adaptiveRuleOrder;
+    private final FireSpan span;
+    private final boolean timed;
+
+    private FireObserver(FireResult fireResult, boolean recorded, AdaptiveRuleOrder adaptiveRuleOrder, FireSpan span) {
+        this.fireResult = fireResult;
+        this.recorded = recorded;
+        this.adaptiveRuleOrder = adaptiveRuleOrder;
+        this.span = span;
+        this.timed = recorded || adaptiveRuleOrder != null || span != null || fireResult != null && fireResult.isTimingsEnabled();
+    }
+
+    /**
+     * @param fireResult to report to, may be null
+     * @param adaptiveRuleOrder to report evaluations to, may be null
+     * @param span of the fire, may be null
+     * @return an observer of the current fire
+     */
+    static FireObserver of(FireResult fireResult, AdaptiveRuleOrder adaptiveRuleOrder, FireSpan span) {
+        boolean recorded = RuleEvents.isRecording();
+        FireSpan ruleSpan = span != null && span.isRuleSpansEnabled() ? span : null;
+        if (fireResult == null && !recorded && adaptiveRuleOrder == null && ruleSpan == null) {
+            return NONE;
+        }
+        return new FireObserver(fireResult, recorded, adaptiveRuleOrder, ruleSpan);
+    }
+
+    /**
+     * @return the current time if rules are timed, 0 otherwise
+     */
+    long start() {
+        return timed ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * @param start returned by {@link #start()}
+     * @return the time elapsed since start if rules are timed, 0 otherwise
+     */
+    long elapsed(long start) {
+        return timed ? System.nanoTime() - start : 0L;
+    }
+
+    void evaluated(Rule rule, int ordinal, boolean matched, boolean sampled, long start, long elapsed) {
+        if (fireResult != null) {
+            fireResult.evaluated(ordinal, matched, sampled, elapsed);
+        }
+        if (recorded) {
+            RuleEvents.ruleEvaluated(rule, matched, elapsed);
+        }
+        if (adaptiveRuleOrder != null) {
+            adaptiveRuleOrder.evaluated(rule, matched, elapsed);
+        }
+        if (span != null) {
+            span.evaluated(rule, start, elapsed, matched);
+        }
+    }
+
+    void executed(Rule rule, int ordinal, boolean success, long start, long elapsed) {
+        if (fireResult != null) {
+            fireResult.executed(ordinal, success, elapsed);
+        }
+        if (recorded) {
+            RuleEvents.ruleExecuted(rule, success, elapsed);
+        }
+        if (span != null) {
+            span.executed(rule, start, elapsed, success);
+        }
+    }
+}
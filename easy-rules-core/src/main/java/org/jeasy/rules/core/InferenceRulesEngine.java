@@ -31,26 +31,59 @@ import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.api.RulesEngine;
 import org.jeasy.rules.api.RulesEngineListener;
 import org.jeasy.rules.api.RulesEngineParameters;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.jeasy.rules.tracing.FireSpan;
+import org.jeasy.rules.tracing.Scope;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Inference {@link RulesEngine} implementation.
  *
- * Rules are selected based on given facts and fired according to their natural
- * order which is priority by default. This implementation continuously selects
- * and fires rules until no more rules are applicable.
+ * Rules are matched against given facts through a {@link FactDependencyIndex}: matched rules
+ * are activated on an agenda and fired one at a time according to a
+ * {@link ConflictResolutionStrategy}, which is the natural order of rules by default.
+ * After each action, only the rules depending on facts added, replaced or removed by
+ * the action are evaluated again, and this implementation continues firing rules until
+ * no more rules are activated.
+ * <p>
+ * An activation is fired only once: a rule is activated again only if one of the facts it
+ * reads (see {@link Rule#getReadFacts()}) changes, or any fact changes if the rule does not
+ * declare the facts it reads. An action updating a fact in place should put it again in the
+ * facts so that the change is seen by other rules.
+ * <p>
+ * Each call to {@link #fire(Rules, Facts)} starts matching from scratch. To update the
+ * results of a previous fire incrementally after facts have changed, including the
+ * retraction of facts added logically, use an {@link InferenceSession}.
+ * <p>
+ * To protect against rules activating each other endlessly, the number of cycles (fired
+ * activations) and the number of firings of each rule can be limited, and oscillations
+ * can be detected: when a rule is about to be fired again on the same values of facts
+ * as a previous firing, no further activation is fired. When a limit is reached or an
+ * oscillation is detected, a warning is logged and firing stops.
  *
  * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
  */
 @Slf4j
 public final class InferenceRulesEngine extends AbstractRulesEngine {
+
+    /**
+     * Default minimum number of rules to evaluate for conditions to be evaluated in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_MATCHING_THRESHOLD = 128;
+
     private final DefaultRulesEngine delegate;
+    private ConflictResolutionStrategy conflictResolutionStrategy = ConflictResolutionStrategy.priority();
+    private int maxCycles = Integer.MAX_VALUE;
+    private int maxFiringsPerRule = Integer.MAX_VALUE;
+    private boolean oscillationDetection;
+    private ForkJoinPool matchingPool;
+    private int parallelMatchingThreshold = DEFAULT_PARALLEL_MATCHING_THRESHOLD;
 
     /**
      * Create a new inference rules engine with default parameters.
@@ -69,29 +102,162 @@ public final class InferenceRulesEngine extends AbstractRulesEngine {
         delegate = new DefaultRulesEngine(parameters);
     }
 
+    /**
+     * Fire rules until no more rules are activated.
+     *
+     * @return true if at least one rule has been executed successfully
+     */
     @Override
     public Boolean fire(Rules rules, Facts facts) {
-        return true;
-//        Set<Rule> selectedRules;
-//        do {
-//            log.debug("Selecting candidate rules based on the following facts: {}", facts);
-//            selectedRules = selectCandidates(rules, facts);
-//            if (!selectedRules.isEmpty()) {
-//                delegate.fire(new Rules(selectedRules), facts);
-//            } else {
-//                log.debug("No candidate rules found for facts: {}", facts);
-//            }
-//        } while (!selectedRules.isEmpty());
-    }
-
-    private Set<Rule> selectCandidates(Rules rules, Facts facts) {
-        Set<Rule> candidates = new TreeSet<>();
-        for (Rule rule : rules) {
-            if (rule.evaluate(facts)) {
-                candidates.add(rule);
+        return newSession(rules, facts).fire();
+    }
+
+    /**
+     * Create a new inference session matching the given rules against the given facts.
+     * The session is created with the current parameters and conflict resolution strategy
+     * of this engine.
+     *
+     * @param rules to fire
+     * @param facts to fire rules on
+     * @return a new inference session
+     */
+    public InferenceSession newSession(Rules rules, Facts facts) {
+        return newSession(compile(rules), facts);
+    }
+
+    /**
+     * Create a new inference session matching the rules of the given index against the
+     * given facts. The session is created with the current parameters and conflict resolution
+     * strategy of this engine.
+     *
+     * @param index compiled from the rules to fire
+     * @param facts to fire rules on
+     * @return a new inference session
+     */
+    public InferenceSession newSession(FactDependencyIndex index, Facts facts) {
+        return new InferenceSession(this, index.getRules(), facts, new WorkingMemory(index, facts, this,
+                conflictResolutionStrategy, matchingPool, parallelMatchingThreshold));
+    }
+
+    /**
+     * Compile the fact dependency index of the given rules, excluding rules above the priority threshold.
+     *
+     * @param rules to compile
+     * @return the compiled fact dependency index
+     */
+    public FactDependencyIndex compile(Rules rules) {
+        return FactDependencyIndex.compile(rules, parameters.getPriorityThreshold());
+    }
+
+    /**
+     * Read the fact dependency index of the given rules from the given file if it has been compiled
+     * from the same rules, or compile it and write it to the file otherwise. Reading the index
+     * checks every rule against the file, so it is not much cheaper than compiling it again.
+     *
+     * @param rules to compile
+     * @param path of the compiled fact dependency index
+     * @return the compiled fact dependency index
+     * @throws IOException if the file cannot be read or written
+     */
+    public FactDependencyIndex compile(Rules rules, Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            try {
+                FactDependencyIndex index = FactDependencyIndex.readFrom(path, rules);
+                if (index.getPriorityThreshold() == parameters.getPriorityThreshold()) {
+                    return index;
+                }
+                log.info("Compiled fact dependency index {} has another priority threshold, it will be compiled again", path);
+            } catch (IllegalArgumentException exception) {
+                log.info("Compiled fact dependency index {} does not match rules, it will be compiled again: {}", path, exception.getMessage());
+            }
+        }
+        FactDependencyIndex index = compile(rules);
+        index.writeTo(path);
+        return index;
+    }
+
+    boolean fire(Rules rules, Facts facts, WorkingMemory workingMemory) {
+        FireSpan span = startFireSpan(rules);
+        if (span == null) {
+            return doFire(rules, facts, workingMemory, null);
+        }
+        Boolean result = null;
+        workingMemory.setSpan(span);
+        try (Scope scope = span.makeCurrent()) {
+            result = doFire(rules, facts, workingMemory, span);
+            return result;
+        } finally {
+            workingMemory.setSpan(null);
+            span.end(result);
+        }
+    }
+
+    private boolean doFire(Rules rules, Facts facts, WorkingMemory workingMemory, FireSpan span) {
+        final boolean traced = span != null && span.isRuleSpansEnabled();
+        beforeRulesEvaluate(rules, facts);
+        boolean result = false;
+        if (rules.isEmpty()) {
+            log.warn("No rules registered! Nothing to apply");
+        } else {
+            log.debug("{}", parameters);
+            workingMemory.start();
+            int cycles = 0;
+            int ordinal;
+            while ((ordinal = workingMemory.nextActivation()) >= 0) {
+                Rule rule = workingMemory.getRule(ordinal);
+                final String name = rule.getName();
+                if (cycles == maxCycles) {
+                    log.warn("Maximum number of cycles ({}) reached at rule '{}', next activations will be skipped", maxCycles, name);
+                    workingMemory.reactivate(ordinal);
+                    break;
+                }
+                if (workingMemory.getFirings(ordinal) == maxFiringsPerRule) {
+                    log.warn("Maximum number of firings ({}) reached at rule '{}', next activations will be skipped", maxFiringsPerRule, name);
+                    workingMemory.reactivate(ordinal);
+                    break;
+                }
+                if (!tryAcquire(rule, facts)) {
+                    log.debug("Rule '{}' is over its rate limit, its activation has been dropped", name);
+                    continue;
+                }
+                cycles++;
+                if (oscillationDetection && !workingMemory.recordFiringState(ordinal)) {
+                    log.warn("Rule '{}' is oscillating: it is fired again on the same facts, next activations will be skipped", name);
+                    workingMemory.reactivate(ordinal);
+                    break;
+                }
+                workingMemory.beforeFiring(ordinal);
+                boolean failed = false;
+                long start = 0L;
+                try {
+                    beforeExecute(rule, facts);
+                    start = traced ? System.nanoTime() : 0L;
+                    rule.execute(facts);
+                    if (traced) {
+                        span.executed(rule, start, System.nanoTime() - start, true);
+                    }
+                    log.debug("Rule '{}' performed action successfully", name);
+                    onExecuteSuccess(rule, facts);
+                    result = true;
+                } catch (Exception exception) {
+                    if (traced && start != 0L) {
+                        span.executed(rule, start, System.nanoTime() - start, false);
+                    }
+                    log.error("Rule '" + name + "' performed action with error", exception);
+                    onExecuteFailure(rule, exception, facts);
+                    failed = true;
+                }
+                workingMemory.afterFiring(ordinal);
+                if (failed && parameters.isSkipOnFirstFailedRule()) {
+                    log.debug("Next rules will be skipped since parameter skipOnFirstFailedRule is set");
+                    break;
+                }
+                workingMemory.propagateChanges();
             }
         }
-        return candidates;
+        afterRulesEvaluate(rules, facts);
+        log.debug("Fire result:{}", result);
+        return result;
     }
 
     @Override
@@ -99,6 +265,126 @@ public final class InferenceRulesEngine extends AbstractRulesEngine {
         return delegate.check(rules, facts);
     }
 
+    /**
+     * Return the strategy used to select the next activation to fire.
+     * @return the conflict resolution strategy
+     */
+    public ConflictResolutionStrategy getConflictResolutionStrategy() {
+        return conflictResolutionStrategy;
+    }
+
+    /**
+     * Set the strategy used to select the next activation to fire.
+     * @param conflictResolutionStrategy to use
+     */
+    public void setConflictResolutionStrategy(ConflictResolutionStrategy conflictResolutionStrategy) {
+        this.conflictResolutionStrategy = Objects.requireNonNull(conflictResolutionStrategy, "conflict resolution strategy must not be null");
+    }
+
+    /**
+     * Return the maximum number of activations fired by a call to {@link #fire(Rules, Facts)}.
+     * @return the maximum number of cycles
+     */
+    public int getMaxCycles() {
+        return maxCycles;
+    }
+
+    /**
+     * Set the maximum number of activations fired by a call to {@link #fire(Rules, Facts)}.
+     * @param maxCycles maximum number of cycles, unlimited by default
+     */
+    public void setMaxCycles(int maxCycles) {
+        if (maxCycles < 0) {
+            throw new IllegalArgumentException("max cycles must not be negative");
+        }
+        this.maxCycles = maxCycles;
+    }
+
+    /**
+     * Return the maximum number of times a rule is fired by a call to {@link #fire(Rules, Facts)}.
+     * @return the maximum number of firings per rule
+     */
+    public int getMaxFiringsPerRule() {
+        return maxFiringsPerRule;
+    }
+
+    /**
+     * Set the maximum number of times a rule is fired by a call to {@link #fire(Rules, Facts)}.
+     * @param maxFiringsPerRule maximum number of firings per rule, unlimited by default
+     */
+    public void setMaxFiringsPerRule(int maxFiringsPerRule) {
+        if (maxFiringsPerRule < 0) {
+            throw new IllegalArgumentException("max firings per rule must not be negative");
+        }
+        this.maxFiringsPerRule = maxFiringsPerRule;
+    }
+
+    /**
+     * Return whether oscillating rules are detected.
+     * @return true if oscillation detection is enabled
+     */
+    public boolean isOscillationDetection() {
+        return oscillationDetection;
+    }
+
+    /**
+     * Enable or disable the detection of oscillating rules. Values of facts are compared
+     * by their hash code, so this should only be enabled when facts implement
+     * {@code hashCode} consistently with {@code equals}. Disabled by default.
+     * @param oscillationDetection true to detect oscillating rules
+     */
+    public void setOscillationDetection(boolean oscillationDetection) {
+        this.oscillationDetection = oscillationDetection;
+    }
+
+    /**
+     * Return the pool used to evaluate conditions in parallel.
+     * @return the matching pool, or null if conditions are evaluated on the calling thread
+     */
+    public ForkJoinPool getMatchingPool() {
+        return matchingPool;
+    }
+
+    /**
+     * Set the pool used to evaluate conditions in parallel. When set, rules to evaluate
+     * after a change are partitioned across the pool if there are at least
+     * {@link #getParallelMatchingThreshold()} of them. Only conditions are evaluated in
+     * parallel, so they must be thread safe and must not modify facts: listeners are
+     * notified and rules are fired on the calling thread, in a deterministic order.
+     * @param matchingPool to use, or null to evaluate conditions on the calling thread
+     */
+    public void setMatchingPool(ForkJoinPool matchingPool) {
+        this.matchingPool = matchingPool;
+    }
+
+    /**
+     * Return the minimum number of rules to evaluate for conditions to be evaluated in parallel.
+     * @return the parallel matching threshold
+     */
+    public int getParallelMatchingThreshold() {
+        return parallelMatchingThreshold;
+    }
+
+    /**
+     * Set the minimum number of rules to evaluate for conditions to be evaluated in parallel.
+     * @param parallelMatchingThreshold the parallel matching threshold, {@link #DEFAULT_PARALLEL_MATCHING_THRESHOLD} by default
+     */
+    public void setParallelMatchingThreshold(int parallelMatchingThreshold) {
+        if (parallelMatchingThreshold < 1) {
+            throw new IllegalArgumentException("parallel matching threshold must be positive");
+        }
+        this.parallelMatchingThreshold = parallelMatchingThreshold;
+    }
+
+    /**
+     * Set the cache used to memoize the conditions of pure rules.
+     * @param conditionCache to use, or null to disable memoization
+     */
+    public void setConditionCache(ConditionCache conditionCache) {
+        super.setConditionCache(conditionCache);
+        delegate.setConditionCache(conditionCache);
+    }
+
     /**
      * Register a rule listener.
      * @param ruleListener to register
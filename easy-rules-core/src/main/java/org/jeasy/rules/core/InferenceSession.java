@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rules;
+
+/**
+ * Long-lived inference session of an {@link InferenceRulesEngine}.
+ * <p>
+ * A session keeps the state of matching its rules against its facts between fires:
+ * the first fire evaluates all rules, while subsequent fires only evaluate the rules
+ * depending on facts changed in the meantime. Facts added logically by rules
+ * (see {@link Facts#putLogical(String, Object)}) are maintained across fires, so
+ * derived facts are retracted as soon as their justification no longer holds.
+ * <p>
+ * Rules must not be modified while the session is in use. A session is not thread safe.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class InferenceSession {
+
+    private final InferenceRulesEngine rulesEngine;
+    private final Rules rules;
+    private final Facts facts;
+    private final WorkingMemory workingMemory;
+
+    InferenceSession(InferenceRulesEngine rulesEngine, Rules rules, Facts facts, WorkingMemory workingMemory) {
+        this.rulesEngine = rulesEngine;
+        this.rules = rules;
+        this.facts = facts;
+        this.workingMemory = workingMemory;
+    }
+
+    /**
+     * Fire rules until no more rules are activated.
+     *
+     * @return true if at least one rule has been executed successfully
+     */
+    public Boolean fire() {
+        return rulesEngine.fire(rules, facts, workingMemory);
+    }
+
+    /**
+     * Return the facts of this session.
+     *
+     * @return the facts of this session
+     */
+    public Facts getFacts() {
+        return facts;
+    }
+
+    /**
+     * Return the rules of this session.
+     *
+     * @return the rules of this session
+     */
+    public Rules getRules() {
+        return rules;
+    }
+}
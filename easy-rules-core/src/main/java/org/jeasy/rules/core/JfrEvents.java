@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jeasy.rules.api.Rule;
+
+/**
+ * Java Flight Recorder events of the engine. This class must only be loaded
+ * through {@link RuleEvents}, which checks that the JFR API is available.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class JfrEvents {
+
+    static final String CATEGORY = "Easy Rules";
+
+    private JfrEvents() {
+    }
+
+    static void register() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                RuleEvents.recording = isRecording();
+            }
+        });
+        RuleEvents.recording = isRecording();
+    }
+
+    private static boolean isRecording() {
+        if (!FlightRecorder.isInitialized()) {
+            return false;
+        }
+        for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void ruleEvaluated(Rule rule, boolean evaluationResult, long nanos) {
+        RuleEvaluated event = new RuleEvaluated();
+        if (event.shouldCommit()) {
+            event.ruleName = rule.getName();
+            event.priority = rule.getPriority();
+            event.evaluationResult = evaluationResult;
+            event.evaluationTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void ruleExecuted(Rule rule, boolean success, long nanos) {
+        RuleExecuted event = new RuleExecuted();
+        if (event.shouldCommit()) {
+            event.ruleName = rule.getName();
+            event.priority = rule.getPriority();
+            event.success = success;
+            event.executionTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void rulesFired(int rules, boolean result, long nanos) {
+        RulesFired event = new RulesFired();
+        if (event.shouldCommit()) {
+            event.rules = rules;
+            event.result = result;
+            event.fireTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void factMissing(String ruleName, String factName, boolean inCondition) {
+        FactMissing event = new FactMissing();
+        if (event.shouldCommit()) {
+            event.ruleName = ruleName;
+            event.factName = factName;
+            event.inCondition = inCondition;
+            event.commit();
+        }
+    }
+
+    @Name("org.jeasy.rules.RuleEvaluated")
+    @Label("Rule Evaluated")
+    @Description("Evaluation of the condition of a rule")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class RuleEvaluated extends Event {
+        @Label("Rule Name")
+        String ruleName;
+        @Label("Priority")
+        int priority;
+        @Label("Evaluation Result")
+        boolean evaluationResult;
+        @Label("Evaluation Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long evaluationTime;
+    }
+
+    @Name("org.jeasy.rules.RuleExecuted")
+    @Label("Rule Executed")
+    @Description("Execution of the actions of a rule")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class RuleExecuted extends Event {
+        @Label("Rule Name")
+        String ruleName;
+        @Label("Priority")
+        int priority;
+        @Label("Success")
+        boolean success;
+        @Label("Execution Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long executionTime;
+    }
+
+    @Name("org.jeasy.rules.RulesFired")
+    @Label("Rules Fired")
+    @Description("Firing of a set of rules by a rules engine")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class RulesFired extends Event {
+        @Label("Rules")
+        int rules;
+        @Label("Result")
+        boolean result;
+        @Label("Fire Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long fireTime;
+    }
+
+    @Name("org.jeasy.rules.FactMissing")
+    @Label("Fact Missing")
+    @Description("A fact declared by a rule is missing")
+    @Category(CATEGORY)
+    static class FactMissing extends Event {
+        @Label("Rule Name")
+        String ruleName;
+        @Label("Fact Name")
+        String factName;
+        @Label("In Condition")
+        boolean inCondition;
+    }
+}
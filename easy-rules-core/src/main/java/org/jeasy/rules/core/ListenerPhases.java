@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineListener;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registered listeners split by the callbacks they are interested in.
+ * <p>
+ * A listener is interested in a callback when its class overrides the corresponding
+ * default method of {@link RuleListener} or {@link RulesEngineListener}: default methods
+ * are no-ops, so listeners that do not override them can safely be skipped. Capabilities
+ * are computed once per listener class, and each phase is dispatched by iterating
+ * over an array of interested listeners, which is empty when no listener is interested.
+ * <p>
+ * Instances are immutable, a new instance is created whenever a listener is registered.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class ListenerPhases {
+
+    static final int BEFORE_EVALUATE = 1;
+    static final int AFTER_EVALUATE = 1 << 1;
+    static final int ON_EVALUATION_ERROR = 1 << 2;
+    static final int BEFORE_EXECUTE = 1 << 3;
+    static final int ON_SUCCESS = 1 << 4;
+    static final int ON_FAILURE = 1 << 5;
+    static final int BEFORE_RULES_EVALUATE = 1 << 6;
+    static final int AFTER_RULES_EXECUTE = 1 << 7;
+    static final int ON_RATE_LIMITED = 1 << 8;
+
+    private static final RuleListener[] NO_RULE_LISTENERS = new RuleListener[0];
+    private static final RulesEngineListener[] NO_RULES_ENGINE_LISTENERS = new RulesEngineListener[0];
+
+    private static final ClassValue<Integer> CAPABILITIES = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int capabilities = 0;
+            if (RuleListener.class.isAssignableFrom(type)) {
+                capabilities |= overrides(type, RuleListener.class, BEFORE_EVALUATE, "beforeEvaluate", Rule.class, Facts.class);
+                capabilities |= overrides(type, RuleListener.class, AFTER_EVALUATE, "afterEvaluate", Rule.class, Facts.class, Boolean.class, Boolean.class);
+                capabilities |= overrides(type, RuleListener.class, ON_EVALUATION_ERROR, "onEvaluationError", Rule.class, Facts.class, Exception.class);
+                capabilities |= overrides(type, RuleListener.class, BEFORE_EXECUTE, "beforeExecute", Rule.class, Facts.class);
+                capabilities |= overrides(type, RuleListener.class, ON_SUCCESS, "onSuccess", Rule.class, Facts.class);
+                capabilities |= overrides(type, RuleListener.class, ON_FAILURE, "onFailure", Rule.class, Facts.class, Exception.class);
+                capabilities |= overrides(type, RuleListener.class, ON_RATE_LIMITED, "onRateLimited", Rule.class, Facts.class);
+            }
+            if (RulesEngineListener.class.isAssignableFrom(type)) {
+                capabilities |= overrides(type, RulesEngineListener.class, BEFORE_RULES_EVALUATE, "beforeEvaluate", Rules.class, Facts.class);
+                capabilities |= overrides(type, RulesEngineListener.class, AFTER_RULES_EXECUTE, "afterExecute", Rules.class, Facts.class);
+            }
+            return capabilities;
+        }
+    };
+
+    static final ListenerPhases EMPTY = new ListenerPhases(new ArrayList<>(), new ArrayList<>());
+
+    final RuleListener[] beforeEvaluate;
+    final RuleListener[] afterEvaluate;
+    final RuleListener[] onEvaluationError;
+    final RuleListener[] beforeExecute;
+    final RuleListener[] onSuccess;
+    final RuleListener[] onFailure;
+    final RuleListener[] onRateLimited;
+    final RulesEngineListener[] beforeRulesEvaluate;
+    final RulesEngineListener[] afterRulesExecute;
+
+    ListenerPhases(List<RuleListener> ruleListeners, List<RulesEngineListener> rulesEngineListeners) {
+        this.beforeEvaluate = subscribers(ruleListeners, BEFORE_EVALUATE);
+        this.afterEvaluate = subscribers(ruleListeners, AFTER_EVALUATE);
+        this.onEvaluationError = subscribers(ruleListeners, ON_EVALUATION_ERROR);
+        this.beforeExecute = subscribers(ruleListeners, BEFORE_EXECUTE);
+        this.onSuccess = subscribers(ruleListeners, ON_SUCCESS);
+        this.onFailure = subscribers(ruleListeners, ON_FAILURE);
+        this.onRateLimited = subscribers(ruleListeners, ON_RATE_LIMITED);
+        this.beforeRulesEvaluate = engineSubscribers(rulesEngineListeners, BEFORE_RULES_EVALUATE);
+        this.afterRulesExecute = engineSubscribers(rulesEngineListeners, AFTER_RULES_EXECUTE);
+    }
+
+    /**
+     * Return the callbacks overridden by a listener class.
+     *
+     * @param type of the listener
+     * @return a mask of the phases the listener is interested in
+     */
+    static int capabilitiesOf(Class<?> type) {
+        return CAPABILITIES.get(type);
+    }
+
+    private static RuleListener[] subscribers(List<RuleListener> listeners, int phase) {
+        List<RuleListener> subscribers = new ArrayList<>();
+        for (RuleListener listener : listeners) {
+            if ((capabilitiesOf(listener.getClass()) & phase) != 0) {
+                subscribers.add(listener);
+            }
+        }
+        return subscribers.isEmpty() ? NO_RULE_LISTENERS : subscribers.toArray(NO_RULE_LISTENERS);
+    }
+
+    private static RulesEngineListener[] engineSubscribers(List<RulesEngineListener> listeners, int phase) {
+        List<RulesEngineListener> subscribers = new ArrayList<>();
+        for (RulesEngineListener listener : listeners) {
+            if ((capabilitiesOf(listener.getClass()) & phase) != 0) {
+                subscribers.add(listener);
+            }
+        }
+        return subscribers.isEmpty() ? NO_RULES_ENGINE_LISTENERS : subscribers.toArray(NO_RULES_ENGINE_LISTENERS);
+    }
+
+    private static int overrides(Class<?> type, Class<?> listenerType, int phase, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return method.getDeclaringClass() == listenerType ? 0 : phase;
+        } catch (NoSuchMethodException | SecurityException e) {
+            // can not tell, assume the listener is interested
+            return phase;
+        }
+    }
+}
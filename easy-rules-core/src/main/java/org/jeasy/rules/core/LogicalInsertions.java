@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Records the facts added logically (see {@link Facts#putLogical(String, Object)}) by
+ * the action of a rule fired by an {@link InferenceRulesEngine}.
+ * <p>
+ * Insertions are recorded only while the engine is firing a rule on the calling thread,
+ * and only for the facts the rule is fired on. Facts added logically outside of a firing
+ * are not tracked. Recordings are nested, so that an action can fire another inference
+ * engine on the same thread.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class LogicalInsertions {
+
+    private static final ThreadLocal<Recording> CURRENT_RECORDING = new ThreadLocal<>();
+
+    private LogicalInsertions() {
+    }
+
+    /**
+     * Record that a fact has been added logically. This method is called by
+     * {@link Facts#putLogical(String, Object)}, it is not intended to be called directly.
+     *
+     * @param facts the fact has been added to
+     * @param name of the fact
+     */
+    public static void record(Facts facts, String name) {
+        Recording recording = CURRENT_RECORDING.get();
+        if (recording != null && recording.facts == facts) {
+            if (recording.names == null) {
+                recording.names = new LinkedHashSet<>();
+            }
+            recording.names.add(name);
+        }
+    }
+
+    /**
+     * Start recording the facts added logically on the calling thread.
+     *
+     * @param facts the rule is fired on
+     * @return the new recording
+     */
+    static Recording start(Facts facts) {
+        Recording recording = new Recording(facts, CURRENT_RECORDING.get());
+        CURRENT_RECORDING.set(recording);
+        return recording;
+    }
+
+    /**
+     * Stop a recording started with {@link #start(Facts)}.
+     *
+     * @param recording to stop
+     * @return the names of the facts added logically during the recording
+     */
+    static Set<String> stop(Recording recording) {
+        if (recording.previous != null) {
+            CURRENT_RECORDING.set(recording.previous);
+        } else {
+            CURRENT_RECORDING.remove();
+        }
+        return recording.names != null ? recording.names : Collections.emptySet();
+    }
+
+    static final class Recording {
+
+        private final Facts facts;
+        private final Recording previous;
+        private Set<String> names;
+
+        private Recording(Facts facts, Recording previous) {
+            this.facts = facts;
+            this.previous = previous;
+        }
+    }
+}
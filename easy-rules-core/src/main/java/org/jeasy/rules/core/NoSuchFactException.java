@@ -23,15 +23,33 @@
  */
 package org.jeasy.rules.core;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thrown when a fact declared by an action is missing.
+ * <p>
+ * Instances are shared per fact name and carry no stack trace, so that skipping an
+ * action does not allocate. Fact names are the ones declared by {@code @Fact} parameters.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
 class NoSuchFactException extends RuntimeException {
 
+    private static final ConcurrentMap<String, NoSuchFactException> INSTANCES = new ConcurrentHashMap<>();
+
     private final String missingFact;
 
-    public NoSuchFactException(String message, String missingFact) {
-        super(message);
+    private NoSuchFactException(String missingFact) {
+        super(String.format("No fact named '%s' found in known facts", missingFact), null, false, false);
         this.missingFact = missingFact;
     }
 
+    static NoSuchFactException of(String missingFact) {
+        NoSuchFactException exception = INSTANCES.get(missingFact);
+        return exception != null ? exception : INSTANCES.computeIfAbsent(missingFact, NoSuchFactException::new);
+    }
+
     public String getMissingFact() {
         return missingFact;
     }
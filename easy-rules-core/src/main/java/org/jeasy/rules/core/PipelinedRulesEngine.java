@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngine;
+import org.jeasy.rules.api.RulesEngineParameters;
+import org.jeasy.rules.tracing.FireSpan;
+import org.jeasy.rules.tracing.Scope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Pipelined {@link RulesEngine} implementation.
+ * <p>
+ * Firing rules is split in two stages: rules are evaluated on the caller's thread,
+ * then matched rules are queued to an action executor that executes their actions.
+ * {@link #fireAsync(Rules, Facts)} returns as soon as all rules have been evaluated,
+ * with a handle that is completed once all actions have been executed.
+ * <p>
+ * Actions of rules fired on the same {@link Facts} instance are executed one at a time,
+ * in the natural order of rules and in the order in which fires have been submitted.
+ * Since facts are not thread safe, a fire (or a check) on facts whose actions are still
+ * pending waits for these actions to be executed before evaluating rules. Actions of
+ * rules fired on different facts may be executed concurrently, depending on the action
+ * executor.
+ * <p>
+ * Facts must not be modified by the caller until the handle returned by
+ * {@link #fireAsync(Rules, Facts)} is completed, and must not be fired from several
+ * threads at the same time.
+ * <p>
+ * <strong>Since all rules are evaluated before any action is executed, this engine
+ * must only be used with rule sets whose conditions do not depend on the effects of
+ * the actions of other rules.</strong> For the same reason, when the parameter
+ * {@code skipOnFirstAppliedRule} is set, rules evaluation stops at the first rule
+ * selected for execution, whether its actions succeed or not.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@Slf4j
+public final class PipelinedRulesEngine extends AbstractRulesEngine {
+
+    private final Executor actionExecutor;
+    private final Map<Facts, CompletableFuture<Boolean>> pendingActions = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new {@link PipelinedRulesEngine} with default parameters.
+     *
+     * @param actionExecutor used to execute the actions of matched rules
+     */
+    public PipelinedRulesEngine(final Executor actionExecutor) {
+        this(new RulesEngineParameters(), actionExecutor);
+    }
+
+    /**
+     * Create a new {@link PipelinedRulesEngine}.
+     *
+     * @param parameters     of the engine
+     * @param actionExecutor used to execute the actions of matched rules
+     */
+    public PipelinedRulesEngine(final RulesEngineParameters parameters, final Executor actionExecutor) {
+        super(parameters);
+        this.actionExecutor = Objects.requireNonNull(actionExecutor, "action executor must not be null");
+    }
+
+    /**
+     * Fire all registered rules on given facts and wait for their actions to be executed.
+     */
+    @Override
+    public Boolean fire(Rules rules, Facts facts) {
+        return fireAsync(rules, facts).join();
+    }
+
+    /**
+     * Evaluate all registered rules on given facts and queue the actions of matched rules.
+     * If actions of a previous fire on the same facts are pending, this method waits for
+     * them to be executed before evaluating rules.
+     *
+     * @param rules to fire
+     * @param facts to fire rules on
+     * @return a handle completed with the fire result once all actions have been executed
+     */
+    public CompletableFuture<Boolean> fireAsync(Rules rules, Facts facts) {
+        awaitPendingActions(facts);
+        FireSpan span = startFireSpan(rules);
+        if (span == null) {
+            beforeRulesEvaluate(rules, facts);
+            List<Rule> matchedRules = match(rules, facts, null);
+            return enqueue(facts, () -> executeAll(rules, matchedRules, facts, null));
+        }
+        // the fire span is current while rules are evaluated and while actions are executed
+        List<Rule> matchedRules;
+        try (Scope scope = span.makeCurrent()) {
+            beforeRulesEvaluate(rules, facts);
+            matchedRules = match(rules, facts, span);
+        } catch (RuntimeException exception) {
+            span.end(null);
+            throw exception;
+        }
+        CompletableFuture<Boolean> result = enqueue(facts, () -> {
+            try (Scope scope = span.makeCurrent()) {
+                return executeAll(rules, matchedRules, facts, span);
+            }
+        });
+        return result.whenComplete((fireResult, throwable) -> span.end(fireResult));
+    }
+
+    private Boolean executeAll(Rules rules, List<Rule> matchedRules, Facts facts, FireSpan span) {
+        Boolean result = rules.isEmpty() || execute(matchedRules, facts, span);
+        afterRulesEvaluate(rules, facts);
+        log.debug("Fire result:{}", result);
+        return result;
+    }
+
+    private List<Rule> match(Rules rules, Facts facts, FireSpan span) {
+        final boolean traced = span != null && span.isRuleSpansEnabled();
+        List<Rule> matchedRules = new ArrayList<>();
+        if (rules.isEmpty()) {
+            log.warn("No rules registered! Nothing to apply");
+            return matchedRules;
+        }
+        log.debug("{}", parameters);
+        log.debug("Rules evaluation started");
+        for (Rule rule : rules) {
+            final String name = rule.getName();
+            final int priority = rule.getPriority();
+            if (priority > parameters.getPriorityThreshold()) {
+                log.warn("Rule priority ({}) exceeded at rule '{}' with priority={}, next rules will be skipped",
+                        parameters.getPriorityThreshold(), name, priority);
+                break;
+            }
+            if (!shouldRuleEvaluate(rule, facts)) {
+                log.debug("Rule '{}' has been skipped before being evaluated", name);
+                continue;
+            }
+            boolean evaluationResult = false;
+            long start = traced ? System.nanoTime() : 0L;
+            try {
+                evaluationResult = evaluate(rule, facts);
+            } catch (Exception exception) {
+                log.error("Rule '" + name + "' evaluated with error", exception);
+                onEvaluationError(rule, facts, exception);
+                if (parameters.isSkipOnFirstNonTriggeredRule()) {
+                    if (traced) {
+                        span.evaluated(rule, start, System.nanoTime() - start, false);
+                    }
+                    continue;
+                }
+            }
+            if (traced) {
+                span.evaluated(rule, start, System.nanoTime() - start, evaluationResult);
+            }
+            boolean randomResult = evaluationResult && sample(rule, facts) && tryAcquire(rule, facts);
+            afterRuleEvaluate(rule, facts, evaluationResult, randomResult);
+            if (evaluationResult && randomResult) {
+                log.debug("Rule '{}' has been matched, its actions are queued for execution", name);
+                matchedRules.add(rule);
+                if (parameters.isSkipOnFirstAppliedRule()) {
+                    log.debug("Next rules will be skipped since parameter skipOnFirstAppliedRule is set");
+                    break;
+                }
+            }
+        }
+        return matchedRules;
+    }
+
+    private boolean execute(List<Rule> matchedRules, Facts facts, FireSpan span) {
+        final boolean traced = span != null && span.isRuleSpansEnabled();
+        for (Rule rule : matchedRules) {
+            final String name = rule.getName();
+            long start = 0L;
+            try {
+                beforeExecute(rule, facts);
+                start = traced ? System.nanoTime() : 0L;
+                rule.execute(facts);
+                if (traced) {
+                    span.executed(rule, start, System.nanoTime() - start, true);
+                }
+                log.debug("Rule '{}' performed action successfully", name);
+                onExecuteSuccess(rule, facts);
+                if (parameters.isSkipOnFirstAppliedRule()) {
+                    return true;
+                }
+            } catch (Exception exception) {
+                if (traced && start != 0L) {
+                    span.executed(rule, start, System.nanoTime() - start, false);
+                }
+                log.error("Rule '" + name + "' performed action with error", exception);
+                onExecuteFailure(rule, exception, facts);
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Conditions must not read facts while actions of a previous fire write them on the executor.
+     */
+    private void awaitPendingActions(Facts facts) {
+        CompletableFuture<Boolean> pending = pendingActions.get(facts);
+        if (pending != null) {
+            log.debug("Waiting for pending actions on facts before evaluating rules");
+            // failures are reported by the handle of the previous fire
+            pending.handle((result, throwable) -> null).join();
+        }
+    }
+
+    /*
+     * Actions on the same facts are chained: each batch is submitted to the executor
+     * only once the previous batch queued for these facts has completed.
+     */
+    private CompletableFuture<Boolean> enqueue(Facts facts, Supplier<Boolean> actions) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> previous = pendingActions.put(facts, result);
+        Runnable task = () -> {
+            try {
+                result.complete(actions.get());
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            } finally {
+                pendingActions.remove(facts, result);
+            }
+        };
+        if (previous == null) {
+            submit(task, result, facts);
+        } else {
+            previous.whenComplete((previousResult, throwable) -> submit(task, result, facts));
+        }
+        return result;
+    }
+
+    private void submit(Runnable task, CompletableFuture<Boolean> result, Facts facts) {
+        try {
+            actionExecutor.execute(task);
+        } catch (RuntimeException exception) {
+            pendingActions.remove(facts, result);
+            result.completeExceptionally(exception);
+        }
+    }
+
+    @Override
+    public Map<Rule, Boolean> check(Rules rules, Facts facts) {
+        awaitPendingActions(facts);
+        beforeRulesEvaluate(rules, facts);
+        Map<Rule, Boolean> result = new HashMap<>();
+        for (Rule rule : rules) {
+            if (shouldRuleEvaluate(rule, facts)) {
+                result.put(rule, evaluate(rule, facts));
+            }
+        }
+        afterRulesEvaluate(rules, facts);
+        log.debug("Check result:{}", result);
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Base class of {@link Rule} adapters generated at compile time for annotated rule classes.
+ * <p>
+ * Adapters are generated by the rule annotation processor along with a {@link RuleAdapterFactory},
+ * and are used by {@link RuleProxy#asRule(Object)} instead of adapting annotated rule objects
+ * reflectively. This class is not meant to be extended by hand.
+ *
+ * @param <T> type of the annotated rule
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public abstract class RuleAdapter<T> implements Rule {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleAdapter.class);
+
+    protected final T target;
+    private final String name;
+    private final String description;
+    private final int priority;
+    private final double threshold;
+    private final double rateLimit;
+    private final boolean pure;
+    private final Set<String> readFacts;
+
+    protected RuleAdapter(T target, String name, String description, int priority, double threshold,
+                          boolean pure, Set<String> readFacts) {
+        this(target, name, description, priority, threshold, Rule.NO_RATE_LIMIT, pure, readFacts);
+    }
+
+    protected RuleAdapter(T target, String name, String description, int priority, double threshold,
+                          double rateLimit, boolean pure, Set<String> readFacts) {
+        this.target = target;
+        this.name = name;
+        this.description = description;
+        this.priority = priority;
+        this.threshold = threshold;
+        this.rateLimit = rateLimit;
+        this.pure = pure;
+        this.readFacts = readFacts;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public double getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    @Override
+    public boolean isPure() {
+        return pure;
+    }
+
+    @Override
+    public Set<String> getReadFacts() {
+        return readFacts;
+    }
+
+    @Override
+    public int compareTo(final Rule otherRule) {
+        int otherPriority = otherRule.getPriority();
+        if (priority < otherPriority) {
+            return -1;
+        } else if (priority > otherPriority) {
+            return 1;
+        } else {
+            return name.compareTo(otherRule.getName());
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof Rule)) {
+            return false;
+        }
+        Rule otherRule = (Rule) o;
+        return priority == otherRule.getPriority()
+                && threshold == otherRule.getThreshold()
+                && name.equals(otherRule.getName())
+                && Objects.equals(description, otherRule.getDescription());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name.hashCode();
+        result = 31 * result + (description != null ? description.hashCode() : 0);
+        result = 31 * result + priority;
+        result = 31 * result + Double.valueOf(threshold).hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return target.toString();
+    }
+
+    public T getTarget() {
+        return target;
+    }
+
+    /**
+     * Return the annotated object adapted by the given rule, if any.
+     *
+     * @param rule to unwrap
+     * @return the annotated rule object, or null if the given rule is not an adapter
+     */
+    protected static Object targetOf(Rule rule) {
+        if (rule instanceof RuleAdapter) {
+            return ((RuleAdapter<?>) rule).getTarget();
+        }
+        if (rule instanceof RuleProxy) {
+            return ((RuleProxy) rule).getTarget();
+        }
+        return null;
+    }
+
+    /**
+     * Called by generated conditions when a declared fact is missing.
+     *
+     * @param factName name of the missing fact
+     * @param facts known facts
+     * @return false
+     */
+    protected boolean missingFact(String factName, Facts facts) {
+        RuleEvents.factMissing(name, factName, true);
+        LOGGER.debug("Rule '{}' has been evaluated to false due to a declared but missing fact '{}'",
+                target.getClass().getName(), factName);
+        return false;
+    }
+
+    /**
+     * Called by generated conditions when the type of an injected fact does not match the parameter type.
+     *
+     * @param methodName name of the condition method
+     * @return false
+     */
+    protected boolean conditionTypeMismatch(String methodName) {
+        LOGGER.warn("Types of injected facts in method '{}' in rule '{}' do not match parameters types",
+                methodName, target.getClass().getName());
+        return false;
+    }
+
+    /**
+     * Called by generated actions when a declared fact is missing.
+     *
+     * @param factName name of the missing fact
+     * @return the exception to throw
+     */
+    protected RuntimeException missingActionFact(String factName) {
+        RuleEvents.factMissing(name, factName, false);
+        return NoSuchFactException.of(factName);
+    }
+
+    /**
+     * Called by generated actions when the type of an injected fact does not match the parameter type.
+     *
+     * @param methodName name of the action method
+     * @return the exception to throw
+     */
+    protected IllegalArgumentException actionTypeMismatch(String methodName) {
+        return new IllegalArgumentException(format("Types of injected facts in method '%s' in rule '%s' do not match parameters types",
+                methodName, target.getClass().getName()));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+
+/**
+ * Factory of {@link Rule} adapters for a given annotated rule class.
+ * <p>
+ * Factories are generated at compile time by the rule annotation processor, as the nested
+ * {@code Factory} class of the adapter of each annotated rule class. The adapter of a rule
+ * class {@code com.acme.Outer.MyRule} is {@code com.acme.Outer_MyRule_RuleAdapter}. When a
+ * factory is available in the class loader of the exact class of an annotated rule object,
+ * {@link RuleProxy#asRule(Object)} uses it instead of adapting the object reflectively.
+ *
+ * @param <T> type of the annotated rule
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public interface RuleAdapterFactory<T> {
+
+    /**
+     * Return the annotated rule class supported by this factory.
+     *
+     * @return the annotated rule class
+     */
+    Class<T> getRuleClass();
+
+    /**
+     * Adapt the given annotated rule object to the {@link Rule} interface.
+     *
+     * @param rule to adapt
+     * @return the adapted rule
+     */
+    Rule adapt(T rule);
+}
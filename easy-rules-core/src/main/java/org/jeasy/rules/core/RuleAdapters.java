@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the {@link RuleAdapterFactory} generated for annotated rule classes.
+ * <p>
+ * The factory of a rule class is the nested {@code Factory} class of its generated adapter,
+ * whose name is derived from the name of the rule class (see {@link RuleAdapterFactory}). It is
+ * looked up once per rule class, in the class loader of the rule class, and cached in a
+ * {@link ClassValue}, so the cache does not prevent rule classes from being unloaded.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class RuleAdapters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleAdapters.class);
+
+    static final String ADAPTER_SUFFIX = "_RuleAdapter";
+    static final String FACTORY_SUFFIX = "$Factory";
+
+    private static final ClassValue<RuleAdapterFactory<?>> FACTORY = new ClassValue<RuleAdapterFactory<?>>() {
+        @Override
+        protected RuleAdapterFactory<?> computeValue(Class<?> ruleClass) {
+            return loadFactory(ruleClass);
+        }
+    };
+
+    private RuleAdapters() { }
+
+    /**
+     * Return the factory generated for the given annotated rule class.
+     *
+     * @param ruleClass annotated rule class
+     * @return the factory of the rule class, or null if no adapter has been generated for it
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RuleAdapterFactory<T> factoryOf(Class<T> ruleClass) {
+        return (RuleAdapterFactory<T>) FACTORY.get(ruleClass);
+    }
+
+    /**
+     * Return the name of the adapter generated for the given rule class: the names of the
+     * rule class and of its enclosing classes joined by underscores, followed by
+     * {@value #ADAPTER_SUFFIX}, in the package of the rule class.
+     *
+     * @param ruleClass annotated rule class
+     * @return the name of the adapter, or null if no adapter can be generated for local or anonymous classes
+     */
+    static String adapterName(Class<?> ruleClass) {
+        StringBuilder name = new StringBuilder(ADAPTER_SUFFIX);
+        Class<?> topLevelClass = ruleClass;
+        for (Class<?> type = ruleClass; type != null; type = type.getDeclaringClass()) {
+            if (type.isLocalClass() || type.isAnonymousClass()) {
+                return null;
+            }
+            name.insert(0, type.getSimpleName()).insert(0, '_');
+            topLevelClass = type;
+        }
+        String topLevelName = topLevelClass.getName();
+        int lastDot = topLevelName.lastIndexOf('.');
+        return (lastDot < 0 ? "" : topLevelName.substring(0, lastDot + 1)) + name.substring(1);
+    }
+
+    private static RuleAdapterFactory<?> loadFactory(Class<?> ruleClass) {
+        String adapterName = adapterName(ruleClass);
+        if (adapterName == null) {
+            return null;
+        }
+        String factoryName = adapterName + FACTORY_SUFFIX;
+        try {
+            Class<?> factoryClass = Class.forName(factoryName, true, ruleClass.getClassLoader());
+            RuleAdapterFactory<?> factory = (RuleAdapterFactory<?>) factoryClass.getDeclaredConstructor().newInstance();
+            if (factory.getRuleClass() != ruleClass) {
+                LOGGER.warn("Rule adapter factory '{}' does not adapt rule '{}', it will be adapted reflectively",
+                        factoryName, ruleClass.getName());
+                return null;
+            }
+            return factory;
+        } catch (ClassNotFoundException e) {
+            // no adapter has been generated for the rule class
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            // stale factory of a rule class that has been changed, its rules are adapted reflectively
+            LOGGER.warn("Unable to load rule adapter factory '{}', rule '{}' will be adapted reflectively",
+                    factoryName, ruleClass.getName(), e);
+            return null;
+        }
+    }
+}
@@ -28,7 +28,11 @@ import org.jeasy.rules.api.Condition;
 import org.jeasy.rules.api.Rule;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builder to create {@link Rule} instances.
@@ -41,6 +45,9 @@ public class RuleBuilder {
     private String description = Rule.DEFAULT_DESCRIPTION;
     private int priority = Rule.DEFAULT_PRIORITY;
     private double threshold = Rule.DEFAULT_THRESHOLD;
+    private double rateLimit = Rule.NO_RATE_LIMIT;
+    private boolean pure;
+    private Set<String> readFacts = Collections.emptySet();
 
     private Condition condition = Condition.FALSE;
     private final List<Action> actions = new ArrayList<>();
@@ -89,6 +96,38 @@ public class RuleBuilder {
         return this;
     }
 
+    /**
+     * Set rule rate limit.
+     *
+     * @param rateLimit maximum number of executions of the rule per second
+     * @return the builder instance
+     */
+    public RuleBuilder rateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    /**
+     * Mark the rule's condition as pure.
+     *
+     * @param pure true if the rule's condition is a pure function of the facts it reads
+     * @return the builder instance
+     */
+    public RuleBuilder pure(boolean pure) {
+        this.pure = pure;
+        return this;
+    }
+
+    /**
+     * Declare the facts read by the rule's condition.
+     *
+     * @param readFacts names of the facts read by the rule's condition
+     * @return the builder instance
+     */
+    public RuleBuilder readFacts(String... readFacts) {
+        this.readFacts = new LinkedHashSet<>(Arrays.asList(readFacts));
+        return this;
+    }
 
     /**
      * Set rule condition.
@@ -118,6 +157,10 @@ public class RuleBuilder {
      * @return a new rule instance
      */
     public Rule build() {
-        return new DefaultRule(name, description, priority, condition, actions);
+        DefaultRule rule = new DefaultRule(name, description, priority, threshold, condition, actions);
+        rule.setRateLimit(rateLimit);
+        rule.setPure(pure);
+        rule.setReadFacts(readFacts);
+        return rule;
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+
+/**
+ * Entry point of the Java Flight Recorder events emitted by the engine.
+ * <p>
+ * Events are only emitted when a flight recording is running: otherwise each method
+ * costs a single read of a volatile field. The JFR API (<code>jdk.jfr</code>) is only
+ * referenced by {@link JfrEvents}, which is loaded if the API is available at runtime
+ * (Java 8u262+, Java 11+), so that the engine still runs on JVMs without it.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class RuleEvents {
+
+    private static final boolean AVAILABLE = register();
+
+    /*
+     * Updated by JfrEvents when recordings are started or stopped.
+     */
+    static volatile boolean recording;
+
+    private RuleEvents() {
+    }
+
+    private static boolean register() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, RuleEvents.class.getClassLoader());
+            JfrEvents.register();
+            return true;
+        } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return true if JFR events are currently recorded.
+     *
+     * @return true if a flight recording is running
+     */
+    static boolean isRecording() {
+        return AVAILABLE && recording;
+    }
+
+    static void ruleEvaluated(Rule rule, boolean evaluationResult, long nanos) {
+        if (isRecording()) {
+            JfrEvents.ruleEvaluated(rule, evaluationResult, nanos);
+        }
+    }
+
+    static void ruleExecuted(Rule rule, boolean success, long nanos) {
+        if (isRecording()) {
+            JfrEvents.ruleExecuted(rule, success, nanos);
+        }
+    }
+
+    static void rulesFired(int rules, boolean result, long nanos) {
+        if (isRecording()) {
+            JfrEvents.rulesFired(rules, result, nanos);
+        }
+    }
+
+    static void factMissing(String ruleName, String factName, boolean inCondition) {
+        if (isRecording()) {
+            JfrEvents.factMissing(ruleName, factName, inCondition);
+        }
+    }
+}
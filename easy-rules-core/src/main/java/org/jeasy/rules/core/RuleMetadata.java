@@ -0,0 +1,378 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Priority;
+import org.jeasy.rules.annotation.Threshold;
+import org.jeasy.rules.api.Rule;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * Metadata of an annotated rule class, shared by all {@link RuleProxy} instances of the class.
+ * <p>
+ * Metadata is computed and the rule definition is validated once per class,
+ * the first time an instance of the class is adapted.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class RuleMetadata {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final int MAX_LAMBDA_ARITY = 3;
+    private static final Class<?>[] FUNCTIONS = {Function0.class, Function1.class, Function2.class, Function3.class};
+    private static final Class<?>[] PROCEDURES = {Procedure0.class, Procedure1.class, Procedure2.class, Procedure3.class};
+    private static final Registry METADATA = new Registry(new RuleDefinitionValidator());
+
+    final String name;
+    final String description;
+    final int priority;
+    final double threshold;
+    final double rateLimit;
+    final boolean pure;
+    final Set<String> readFacts;
+    final MethodInvoker condition;
+    final MethodInvoker[] actions;
+    final MethodInvoker priorityMethod;
+    final MethodInvoker thresholdMethod;
+    final Method compareToMethod;
+    final MethodInvoker compareTo;
+
+    /**
+     * Return the metadata of the given annotated rule class.
+     *
+     * @param ruleClass annotated rule class
+     * @return the metadata of the rule class
+     * @throws IllegalArgumentException if the rule class is not a well defined rule
+     */
+    static RuleMetadata of(Class<?> ruleClass) {
+        return METADATA.get(ruleClass);
+    }
+
+    /*
+     * Metadata of rule classes, computed and validated once per class with the given validator
+     */
+    static final class Registry extends ClassValue<RuleMetadata> {
+
+        private final RuleDefinitionValidator ruleDefinitionValidator;
+
+        Registry(RuleDefinitionValidator ruleDefinitionValidator) {
+            this.ruleDefinitionValidator = ruleDefinitionValidator;
+        }
+
+        @Override
+        protected RuleMetadata computeValue(Class<?> ruleClass) {
+            ruleDefinitionValidator.validateRuleDefinition(ruleClass);
+            return new RuleMetadata(ruleClass);
+        }
+    }
+
+    private RuleMetadata(Class<?> ruleClass) {
+        Method[] methods = ruleClass.getMethods();
+        org.jeasy.rules.annotation.Rule annotation = Utils.findAnnotation(org.jeasy.rules.annotation.Rule.class, ruleClass);
+        Method conditionMethod = null;
+        Set<ActionMethodOrderBean> actionMethods = new TreeSet<>();
+        Method priorityMethod = null;
+        Method thresholdMethod = null;
+        Method compareToMethod = null;
+        for (Method method : methods) {
+            if (conditionMethod == null && method.isAnnotationPresent(Condition.class)) {
+                conditionMethod = method;
+            }
+            if (method.isAnnotationPresent(Action.class)) {
+                actionMethods.add(new ActionMethodOrderBean(method, method.getAnnotation(Action.class).order()));
+            }
+            if (priorityMethod == null && method.isAnnotationPresent(Priority.class)) {
+                priorityMethod = method;
+            }
+            if (thresholdMethod == null && method.isAnnotationPresent(Threshold.class)) {
+                thresholdMethod = method;
+            }
+            // skip the compareTo(Object) bridge of Comparable rules, it accepts rules of any class
+            if (compareToMethod == null && method.getName().equals("compareTo") && !method.isBridge()) {
+                compareToMethod = method;
+            }
+        }
+        this.condition = new MethodInvoker(ruleClass, conditionMethod);
+        this.actions = new MethodInvoker[actionMethods.size()];
+        int index = 0;
+        for (ActionMethodOrderBean actionMethod : actionMethods) {
+            this.actions[index++] = new MethodInvoker(ruleClass, actionMethod.getMethod());
+        }
+        this.priorityMethod = priorityMethod != null ? new MethodInvoker(ruleClass, priorityMethod) : null;
+        this.thresholdMethod = thresholdMethod != null ? new MethodInvoker(ruleClass, thresholdMethod) : null;
+        this.compareToMethod = compareToMethod;
+        this.compareTo = compareToMethod != null && compareToMethod.getParameterCount() == 1
+                ? new MethodInvoker(ruleClass, compareToMethod) : null;
+        this.name = annotation.name().equals(Rule.DEFAULT_NAME) ? ruleClass.getSimpleName() : annotation.name();
+        this.description = annotation.description().equals(Rule.DEFAULT_DESCRIPTION)
+                ? defaultDescription(conditionMethod, actionMethods) : annotation.description();
+        this.priority = annotation.priority();
+        this.threshold = annotation.threshold();
+        this.rateLimit = annotation.rateLimit();
+        this.pure = annotation.pure();
+        this.readFacts = ruleReadFacts(conditionMethod);
+    }
+
+    private static Set<String> ruleReadFacts(Method conditionMethod) {
+        Set<String> readFacts = new LinkedHashSet<>();
+        for (Annotation[] annotations : conditionMethod.getParameterAnnotations()) {
+            if (annotations.length == 0) {
+                // the condition has access to all facts
+                return Collections.emptySet();
+            }
+            readFacts.add(((Fact) (annotations[0])).value());
+        }
+        return Collections.unmodifiableSet(readFacts);
+    }
+
+    // Default description = "when " + conditionMethodName + " then " + comma separated actionMethodsNames
+    private static String defaultDescription(Method conditionMethod, Set<ActionMethodOrderBean> actionMethods) {
+        StringBuilder description = new StringBuilder();
+        if (conditionMethod != null) {
+            description.append("when ");
+            description.append(conditionMethod.getName());
+            description.append(" then ");
+        }
+        Iterator<ActionMethodOrderBean> iterator = actionMethods.iterator();
+        while (iterator.hasNext()) {
+            description.append(iterator.next().getMethod().getName());
+            if (iterator.hasNext()) {
+                description.append(",");
+            }
+        }
+        return description.toString();
+    }
+
+    /*
+     * Invokes a method of annotated objects. Public instance methods of public classes
+     * having up to MAX_LAMBDA_ARITY parameters are invoked through a class spun by the
+     * LambdaMetafactory, which the JIT compiles to a plain interface call. Other methods
+     * are invoked through a method handle taking the annotated object and an array of arguments.
+     */
+    static final class MethodInvoker {
+
+        final Method method;
+        final BindingPlan plan;
+        private final Invoker invoker;
+
+        private MethodInvoker(Class<?> ruleClass, Method method) {
+            this.method = method;
+            this.plan = new BindingPlan(method);
+            try {
+                if (!method.isAccessible()) {
+                    method.setAccessible(true);
+                }
+                MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+                Invoker spunInvoker = isSpinnable(method) ? spunInvoker(method, methodHandle) : null;
+                this.invoker = spunInvoker != null ? spunInvoker : handleInvoker(method, methodHandle);
+            } catch (IllegalAccessException | RuntimeException exception) {
+                throw new IllegalArgumentException(format("Method '%s' of rule '%s' is not accessible",
+                        method.getName(), ruleClass.getName()), exception);
+            }
+        }
+
+        Object invoke(Object target, Object[] actualParameters) throws Throwable {
+            return invoker.invoke(target, actualParameters);
+        }
+
+        /*
+         * Spun classes are defined in this package and resolve the types of the method
+         * with the class loader of this class, so they must be public and visible from it.
+         */
+        private static boolean isSpinnable(Method method) {
+            if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+                    || !Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                    || method.getParameterCount() > MAX_LAMBDA_ARITY) {
+                return false;
+            }
+            if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getReturnType())) {
+                return false;
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!isVisible(parameterType)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isVisible(Class<?> type) {
+            if (type.isPrimitive()) {
+                return true;
+            }
+            if (type.isArray()) {
+                return isVisible(type.getComponentType());
+            }
+            try {
+                return Modifier.isPublic(type.getModifiers())
+                        && Class.forName(type.getName(), false, RuleMetadata.class.getClassLoader()) == type;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+
+        private static Invoker spunInvoker(Method method, MethodHandle methodHandle) {
+            Object function;
+            try {
+                function = spin(method, methodHandle);
+            } catch (Throwable throwable) {
+                // fall back to the method handle
+                return null;
+            }
+            boolean procedure = method.getReturnType() == void.class;
+            switch (method.getParameterCount()) {
+                case 0:
+                    if (procedure) {
+                        Procedure0 procedure0 = (Procedure0) function;
+                        return (target, arguments) -> {
+                            procedure0.invoke(target);
+                            return null;
+                        };
+                    }
+                    Function0 function0 = (Function0) function;
+                    return (target, arguments) -> function0.invoke(target);
+                case 1:
+                    if (procedure) {
+                        Procedure1 procedure1 = (Procedure1) function;
+                        return (target, arguments) -> {
+                            procedure1.invoke(target, arguments[0]);
+                            return null;
+                        };
+                    }
+                    Function1 function1 = (Function1) function;
+                    return (target, arguments) -> function1.invoke(target, arguments[0]);
+                case 2:
+                    if (procedure) {
+                        Procedure2 procedure2 = (Procedure2) function;
+                        return (target, arguments) -> {
+                            procedure2.invoke(target, arguments[0], arguments[1]);
+                            return null;
+                        };
+                    }
+                    Function2 function2 = (Function2) function;
+                    return (target, arguments) -> function2.invoke(target, arguments[0], arguments[1]);
+                default:
+                    if (procedure) {
+                        Procedure3 procedure3 = (Procedure3) function;
+                        return (target, arguments) -> {
+                            procedure3.invoke(target, arguments[0], arguments[1], arguments[2]);
+                            return null;
+                        };
+                    }
+                    Function3 function3 = (Function3) function;
+                    return (target, arguments) -> function3.invoke(target, arguments[0], arguments[1], arguments[2]);
+            }
+        }
+
+        private static Object spin(Method method, MethodHandle methodHandle) throws Throwable {
+            int arity = method.getParameterCount();
+            boolean procedure = method.getReturnType() == void.class;
+            MethodType erasedType = MethodType.genericMethodType(arity + 1);
+            MethodType instantiatedType = methodHandle.type().wrap();
+            if (procedure) {
+                erasedType = erasedType.changeReturnType(void.class);
+                instantiatedType = instantiatedType.changeReturnType(void.class);
+            }
+            Class<?> functionalInterface = procedure ? PROCEDURES[arity] : FUNCTIONS[arity];
+            CallSite callSite = LambdaMetafactory.metafactory(MethodHandles.lookup(), "invoke",
+                    MethodType.methodType(functionalInterface), erasedType, methodHandle, instantiatedType);
+            return callSite.getTarget().invoke();
+        }
+
+        private static Invoker handleInvoker(Method method, MethodHandle methodHandle) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+            }
+            MethodHandle handle = methodHandle
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKER_TYPE);
+            return (target, arguments) -> handle.invokeExact(target, arguments);
+        }
+    }
+
+    @FunctionalInterface
+    interface Invoker {
+        Object invoke(Object target, Object[] arguments) throws Throwable;
+    }
+
+    // functional interfaces implemented by spun classes, per arity and for methods returning a value or not
+
+    @FunctionalInterface
+    interface Function0 {
+        Object invoke(Object target) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Function1 {
+        Object invoke(Object target, Object argument) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Function2 {
+        Object invoke(Object target, Object argument1, Object argument2) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Function3 {
+        Object invoke(Object target, Object argument1, Object argument2, Object argument3) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Procedure0 {
+        void invoke(Object target) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Procedure1 {
+        void invoke(Object target, Object argument) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Procedure2 {
+        void invoke(Object target, Object argument1, Object argument2) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Procedure3 {
+        void invoke(Object target, Object argument1, Object argument2, Object argument3) throws Throwable;
+    }
+}
@@ -23,370 +23,237 @@
  */
 package org.jeasy.rules.core;
 
-import org.jeasy.rules.annotation.*;
 import org.jeasy.rules.api.Facts;
 import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.core.RuleMetadata.MethodInvoker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.util.*;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Objects;
+import java.util.Set;
 
 import static java.lang.String.format;
 
 /**
- * Main class to create rule proxies from annotated objects.
+ * Main class to create rules from annotated objects.
+ * <p>
+ * An annotated object is adapted to the {@link Rule} interface by an instance of this class.
+ * Rule metadata (name, description, condition and action methods, etc) is resolved and validated
+ * once per annotated class and shared by all its instances. Calling a rule therefore goes
+ * neither through a dynamic proxy dispatching on method names nor through reflective lookups.
+ * <p>
+ * Condition and action methods are invoked with {@code invokeExact} through method handles
+ * adapted to a common signature (the annotated object and an array of arguments). These
+ * handles are held by the shared metadata, not by constants, so the JIT does not constant-fold
+ * them: each call still goes through the spreading adapter of the method. Adapters generated
+ * at compile time (see {@link RuleAdapterFactory}) call the annotated methods directly.
+ * <p>
+ * Rules returned by {@link #asRule(Object)} used to be dynamic proxies whose invocation
+ * handler was an instance of this class. They are now instances of this class (or of
+ * generated adapters), which no longer implements {@link java.lang.reflect.InvocationHandler}.
  *
  * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
  */
-public class RuleProxy implements InvocationHandler {
+public class RuleProxy implements Rule {
 
-    private final Object target;
-    private String name;
-    private String description;
-    private Integer priority;
-    private Double threshold;
-    private Method[] methods;
-    private Method conditionMethod;
-    private Set<ActionMethodOrderBean> actionMethods;
-    private Method compareToMethod;
-    private Method toStringMethod;
-    private org.jeasy.rules.annotation.Rule annotation;
-
-    private static final RuleDefinitionValidator ruleDefinitionValidator = new RuleDefinitionValidator();
     private static final Logger LOGGER = LoggerFactory.getLogger(RuleProxy.class);
 
+    private final Object target;
+    private final RuleMetadata metadata;
+    private final int priority;
+    private final double threshold;
+
     /**
      * Makes the rule object implement the {@link Rule} interface.
+     * <p>
+     * If an adapter has been generated at compile time for the class of the rule object
+     * (see {@link RuleAdapterFactory}), it is used. Otherwise, the rule object is validated
+     * and adapted reflectively.
      *
      * @param rule the annotated rule object.
-     * @return a proxy that implements the {@link Rule} interface.
+     * @return a rule adapting the annotated rule object to the {@link Rule} interface.
      */
+    @SuppressWarnings("unchecked")
     public static Rule asRule(final Object rule) {
-        Rule result;
         if (rule instanceof Rule) {
-            result = (Rule) rule;
-        } else {
-            ruleDefinitionValidator.validateRuleDefinition(rule);
-            result = (Rule) Proxy.newProxyInstance(
-                    Rule.class.getClassLoader(),
-                    new Class[]{Rule.class, Comparable.class},
-                    new RuleProxy(rule));
+            return (Rule) rule;
         }
-        return result;
+        RuleAdapterFactory<Object> factory = (RuleAdapterFactory<Object>) RuleAdapters.factoryOf(rule.getClass());
+        if (factory != null) {
+            return factory.adapt(rule);
+        }
+        return new RuleProxy(rule, RuleMetadata.of(rule.getClass()));
     }
 
-    private RuleProxy(final Object target) {
+    private RuleProxy(final Object target, final RuleMetadata metadata) {
         this.target = target;
+        this.metadata = metadata;
+        this.priority = metadata.priorityMethod != null
+                ? ((Number) invokeMetadataMethod(metadata.priorityMethod)).intValue() : metadata.priority;
+        this.threshold = metadata.thresholdMethod != null
+                ? ((Number) invokeMetadataMethod(metadata.thresholdMethod)).doubleValue() : metadata.threshold;
     }
 
     @Override
-    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-        String methodName = method.getName();
-        switch (methodName) {
-            case "getName":
-                return getRuleName();
-            case "getDescription":
-                return getRuleDescription();
-            case "getPriority":
-                return getRulePriority();
-            case "getThreshold":
-                return getRuleThreshold();
-            case "compareTo":
-                return compareToMethod(args);
-            case "evaluate":
-                return evaluateMethod(args);
-            case "execute":
-                return executeMethod(args);
-            case "equals":
-                return equalsMethod(args);
-            case "hashCode":
-                return hashCodeMethod();
-            case "toString":
-                return toStringMethod();
-            default:
-                return null;
-        }
-    }
-
-    private Object evaluateMethod(final Object[] args) throws IllegalAccessException, InvocationTargetException {
-        Facts facts = (Facts) args[0];
-        Method conditionMethod = getConditionMethod();
-        try {
-            List<Object> actualParameters = getActualParameters(conditionMethod, facts);
-            return conditionMethod.invoke(target, actualParameters.toArray()); // validated upfront
-        } catch (NoSuchFactException e) {
-            LOGGER.warn("Rule '{}' has been evaluated to false due to a declared but missing fact '{}' in {}",
-                    getTargetClass().getName(), e.getMissingFact(), facts);
-            return false;
-        } catch (IllegalArgumentException e) {
-            LOGGER.warn("Types of injected facts in method '{}' in rule '{}' do not match parameters types",
-                    conditionMethod.getName(), getTargetClass().getName(), e);
-            return false;
-        }
-    }
-
-    private Object executeMethod(final Object[] args) throws IllegalAccessException, InvocationTargetException {
-        Facts facts = (Facts) args[0];
-        for (ActionMethodOrderBean actionMethodBean : getActionMethodBeans()) {
-            Method actionMethod = actionMethodBean.getMethod();
-            List<Object> actualParameters = getActualParameters(actionMethod, facts);
-            actionMethod.invoke(target, actualParameters.toArray());
-        }
-        return null;
+    public String getName() {
+        return metadata.name;
     }
 
-    private Object compareToMethod(final Object[] args) throws Exception {
-        Method compareToMethod = getCompareToMethod();
-        Object otherRule = args[0]; // validated upfront
-        if (compareToMethod != null && Proxy.isProxyClass(otherRule.getClass())) {
-            if (compareToMethod.getParameters().length != 1) {
-                throw new IllegalArgumentException("compareTo method must have a single argument");
-            }
-            RuleProxy ruleProxy = (RuleProxy) Proxy.getInvocationHandler(otherRule);
-            return compareToMethod.invoke(target, ruleProxy.getTarget());
-        } else {
-            return compareTo((Rule) otherRule);
-        }
+    @Override
+    public String getDescription() {
+        return metadata.description;
     }
 
-    private List<Object> getActualParameters(Method method, Facts facts) {
-        List<Object> actualParameters = new ArrayList<>();
-        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        for (Annotation[] annotations : parameterAnnotations) {
-            if (annotations.length == 1) {
-                String factName = ((Fact) (annotations[0])).value(); //validated upfront.
-                Object fact = facts.get(factName);
-                if (fact == null && !facts.asMap().containsKey(factName)) {
-                    throw new NoSuchFactException(format("No fact named '%s' found in known facts: %n%s", factName, facts), factName);
-                }
-                actualParameters.add(fact);
-            } else {
-                actualParameters.add(facts); //validated upfront, there may be only one parameter not annotated and which is of type Facts.class
-            }
-        }
-        return actualParameters;
+    @Override
+    public int getPriority() {
+        return priority;
     }
 
-    private boolean equalsMethod(final Object[] args) throws Exception {
-        if (!(args[0] instanceof Rule)) {
-            return false;
-        }
-        Rule otherRule = (Rule) args[0];
-        int otherPriority = otherRule.getPriority();
-        int priority = getRulePriority();
-        if (priority != otherPriority) {
-            return false;
-        }
-
-        double otherThreshold = otherRule.getThreshold();
-        double threshold = getRuleThreshold();
-        if (threshold != otherThreshold) {
-            return false;
-        }
-
-        String otherName = otherRule.getName();
-        String name = getRuleName();
-        if (!name.equals(otherName)) {
-            return false;
-        }
-        String otherDescription = otherRule.getDescription();
-        String description = getRuleDescription();
-        return Objects.equals(description, otherDescription);
+    @Override
+    public double getThreshold() {
+        return threshold;
     }
 
-    private int hashCodeMethod() throws Exception {
-        int result = getRuleName().hashCode();
-        int priority = getRulePriority();
-        String description = getRuleDescription();
-        result = 31 * result + (description != null ? description.hashCode() : 0);
-        result = 31 * result + priority;
-        result = 31 * result + threshold.hashCode();
-        return result;
+    @Override
+    public double getRateLimit() {
+        return metadata.rateLimit;
     }
 
-    private Method getToStringMethod() {
-        if (this.toStringMethod == null) {
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if ("toString".equals(method.getName())) {
-                    this.toStringMethod = method;
-                    return this.toStringMethod;
-                }
-            }
-        }
-        return this.toStringMethod;
+    @Override
+    public boolean isPure() {
+        return metadata.pure;
     }
 
-    private String toStringMethod() throws Exception {
-        Method toStringMethod = getToStringMethod();
-        if (toStringMethod != null) {
-            return (String) toStringMethod.invoke(target);
-        } else {
-            return getRuleName();
-        }
+    @Override
+    public Set<String> getReadFacts() {
+        return metadata.readFacts;
     }
 
-    private int compareTo(final Rule otherRule) throws Exception {
-        int otherPriority = otherRule.getPriority();
-        int priority = getRulePriority();
-        if (priority < otherPriority) {
-            return -1;
-        } else if (priority > otherPriority) {
-            return 1;
-        } else {
-            String otherName = otherRule.getName();
-            String name = getRuleName();
-            return name.compareTo(otherName);
+    @Override
+    public boolean evaluate(final Facts facts) {
+        MethodInvoker condition = metadata.condition;
+        BindingPlan plan = condition.plan;
+        Object[] actualParameters = plan.bind(facts);
+        if (actualParameters == null) {
+            String missingFact = plan.missingFact(facts);
+            RuleEvents.factMissing(getName(), missingFact, true);
+            LOGGER.debug("Rule '{}' has been evaluated to false due to a declared but missing fact '{}'",
+                    target.getClass().getName(), missingFact);
+            return false;
         }
-    }
-
-    private double getRuleThreshold() throws Exception {
-        if (this.threshold == null) {
-            double threshold = Rule.DEFAULT_THRESHOLD;
-
-            org.jeasy.rules.annotation.Rule rule = getRuleAnnotation();
-            if (rule.threshold() != Rule.DEFAULT_THRESHOLD) {
-                threshold = rule.threshold();
-            }
-
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Threshold.class)) {
-                    threshold = (int) method.invoke(target);
-                    break;
-                }
+        try {
+            if (!plan.accepts(actualParameters)) {
+                LOGGER.warn("Types of injected facts in method '{}' in rule '{}' do not match parameters types",
+                        condition.method.getName(), target.getClass().getName());
+                return false;
             }
-            this.threshold = threshold;
+            return (boolean) condition.invoke(target, actualParameters); // validated upfront
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new UndeclaredThrowableException(throwable);
+        } finally {
+            plan.release(actualParameters);
         }
-        return this.threshold;
     }
 
-    private int getRulePriority() throws Exception {
-        if (this.priority == null) {
-            int priority = Rule.DEFAULT_PRIORITY;
-
-            org.jeasy.rules.annotation.Rule rule = getRuleAnnotation();
-            if (rule.priority() != Rule.DEFAULT_PRIORITY) {
-                priority = rule.priority();
-            }
-
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Priority.class)) {
-                    priority = (int) method.invoke(target);
-                    break;
-                }
+    @Override
+    public void execute(final Facts facts) throws Exception {
+        for (MethodInvoker action : metadata.actions) {
+            BindingPlan plan = action.plan;
+            Object[] actualParameters = plan.bind(facts);
+            if (actualParameters == null) {
+                String missingFact = plan.missingFact(facts);
+                RuleEvents.factMissing(getName(), missingFact, false);
+                throw NoSuchFactException.of(missingFact);
             }
-            this.priority = priority;
-        }
-        return this.priority;
-    }
-
-    private Method getConditionMethod() {
-        if (this.conditionMethod == null) {
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Condition.class)) {
-                    this.conditionMethod = method;
-                    return this.conditionMethod;
+            try {
+                if (!plan.accepts(actualParameters)) {
+                    throw new IllegalArgumentException(format("Types of injected facts in method '%s' in rule '%s' do not match parameters types",
+                            action.method.getName(), target.getClass().getName()));
                 }
+                action.invoke(target, actualParameters);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new UndeclaredThrowableException(throwable);
+            } finally {
+                plan.release(actualParameters);
             }
         }
-        return this.conditionMethod;
     }
 
-    private Set<ActionMethodOrderBean> getActionMethodBeans() {
-        if (this.actionMethods == null) {
-            this.actionMethods = new TreeSet<>();
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Action.class)) {
-                    Action actionAnnotation = method.getAnnotation(Action.class);
-                    int order = actionAnnotation.order();
-                    this.actionMethods.add(new ActionMethodOrderBean(method, order));
-                }
+    @Override
+    public int compareTo(final Rule otherRule) {
+        Object otherTarget = metadata.compareToMethod != null ? RuleAdapter.targetOf(otherRule) : null;
+        if (otherTarget != null) {
+            if (metadata.compareTo == null) {
+                throw new IllegalArgumentException("compareTo method must have a single argument");
             }
-        }
-        return this.actionMethods;
-    }
-
-    private Method getCompareToMethod() {
-        if (this.compareToMethod == null) {
-            Method[] methods = getMethods();
-            for (Method method : methods) {
-                if (method.getName().equals("compareTo")) {
-                    this.compareToMethod = method;
-                    return this.compareToMethod;
+            // rules of other classes are compared by priority and name
+            if (metadata.compareToMethod.getParameterTypes()[0].isInstance(otherTarget)) {
+                try {
+                    return (int) metadata.compareTo.invoke(target, new Object[]{otherTarget});
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable throwable) {
+                    throw new UndeclaredThrowableException(throwable);
                 }
             }
         }
-        return this.compareToMethod;
-    }
-
-    private Method[] getMethods() {
-        if (this.methods == null) {
-            this.methods = getTargetClass().getMethods();
-        }
-        return this.methods;
-    }
-
-    private org.jeasy.rules.annotation.Rule getRuleAnnotation() {
-        if (this.annotation == null) {
-            this.annotation = Utils.findAnnotation(org.jeasy.rules.annotation.Rule.class, getTargetClass());
-        }
-        return this.annotation;
-    }
-
-    private String getRuleName() {
-        if (this.name == null) {
-            org.jeasy.rules.annotation.Rule rule = getRuleAnnotation();
-            this.name = rule.name().equals(Rule.DEFAULT_NAME) ? getTargetClass().getSimpleName() : rule.name();
+        int otherPriority = otherRule.getPriority();
+        if (priority < otherPriority) {
+            return -1;
+        } else if (priority > otherPriority) {
+            return 1;
+        } else {
+            return metadata.name.compareTo(otherRule.getName());
         }
-        return this.name;
     }
 
-    private String getRuleDescription() {
-        if (this.description == null) {
-            // Default description = "when " + conditionMethodName + " then " + comma separated actionMethodsNames
-            StringBuilder description = new StringBuilder();
-            appendConditionMethodName(description);
-            appendActionMethodsNames(description);
-            org.jeasy.rules.annotation.Rule rule = getRuleAnnotation();
-            this.description = rule.description().equals(Rule.DEFAULT_DESCRIPTION) ? description.toString() : rule.description();
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof Rule)) {
+            return false;
         }
-        return this.description;
+        Rule otherRule = (Rule) o;
+        return priority == otherRule.getPriority()
+                && threshold == otherRule.getThreshold()
+                && metadata.name.equals(otherRule.getName())
+                && Objects.equals(metadata.description, otherRule.getDescription());
     }
 
-    private void appendConditionMethodName(StringBuilder description) {
-        Method method = getConditionMethod();
-        if (method != null) {
-            description.append("when ");
-            description.append(method.getName());
-            description.append(" then ");
-        }
+    @Override
+    public int hashCode() {
+        int result = metadata.name.hashCode();
+        result = 31 * result + (metadata.description != null ? metadata.description.hashCode() : 0);
+        result = 31 * result + priority;
+        result = 31 * result + Double.valueOf(threshold).hashCode();
+        return result;
     }
 
-    private void appendActionMethodsNames(StringBuilder description) {
-        Iterator<ActionMethodOrderBean> iterator = getActionMethodBeans().iterator();
-        while (iterator.hasNext()) {
-            description.append(iterator.next().getMethod().getName());
-            if (iterator.hasNext()) {
-                description.append(",");
-            }
-        }
+    @Override
+    public String toString() {
+        return target.toString();
     }
 
     public Object getTarget() {
         return target;
     }
 
-    private Class<?> getTargetClass() {
-        return target.getClass();
+    RuleMetadata getMetadata() {
+        return metadata;
     }
 
+    private Object invokeMetadataMethod(MethodInvoker invoker) {
+        try {
+            return invoker.invoke(target, new Object[0]);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalArgumentException(format("Unable to invoke method '%s' on rule '%s'",
+                    invoker.method.getName(), target.getClass().getName()), throwable);
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Rule;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Enforces the {@link Rule#getRateLimit() rate limits} of rules.
+ * <p>
+ * Each rate limited rule has a token bucket holding up to one second worth of
+ * executions. Buckets are striped to avoid contention between threads: the rate of a
+ * rule is split among up to one stripe per processor, each thread takes tokens from
+ * its own stripe and only falls back to the other stripes when its stripe is empty.
+ * Stripes are lock-free (one compare-and-set per acquired token, see
+ * <a href="https://en.wikipedia.org/wiki/Generic_cell_rate_algorithm">GCRA</a>) and
+ * padded to live on distinct cache lines.
+ * <p>
+ * Rules engines have their own limiter by default. A limiter can be shared between
+ * engines to enforce rate limits across them. Rules are identified by their names.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class RuleRateLimiter {
+
+    private static final int MAX_STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    /**
+     * Create a new {@link RuleRateLimiter}.
+     */
+    public RuleRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    RuleRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Take a token for an execution of a rule.
+     *
+     * @param rule to execute
+     * @return true if the rule is not rate limited or is under its rate limit, false if it is over it
+     */
+    public boolean tryAcquire(Rule rule) {
+        double rateLimit = rule.getRateLimit();
+        if (rateLimit <= 0d) {
+            return true;
+        }
+        String name = rule.getName();
+        TokenBucket bucket = buckets.get(name);
+        if (bucket == null || bucket.rate != rateLimit) {
+            // first execution of the rule, or its rate limit has changed
+            bucket = buckets.compute(name, (key, current) -> current != null && current.rate == rateLimit
+                    ? current : new TokenBucket(rateLimit, clock.getAsLong()));
+        }
+        return bucket.tryAcquire(clock.getAsLong());
+    }
+
+    /**
+     * Refill the buckets of all rules.
+     */
+    public void reset() {
+        buckets.clear();
+    }
+
+    static final class TokenBucket {
+
+        // one long per 64 bytes cache line
+        private static final int PADDING = 8;
+
+        final double rate;
+        private final int mask;
+        private final long interval;
+        private final long tolerance;
+        private final AtomicLongArray theoreticalArrivalTimes;
+
+        TokenBucket(double rate, long now) {
+            this.rate = rate;
+            int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit((int) Math.max(1d, Math.min(rate, 1 << 30))));
+            this.mask = stripes - 1;
+            // each stripe refills one token every interval and holds up to burst tokens
+            this.interval = Math.max(1L, (long) (stripes * 1_000_000_000d / rate));
+            long burst = Math.max(1L, (long) (rate / stripes));
+            this.tolerance = interval * (burst - 1);
+            this.theoreticalArrivalTimes = new AtomicLongArray(stripes * PADDING);
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                theoreticalArrivalTimes.set(stripe * PADDING, now);
+            }
+        }
+
+        boolean tryAcquire(long now) {
+            int first = (int) Thread.currentThread().getId();
+            for (int i = 0; i <= mask; i++) {
+                int index = ((first + i) & mask) * PADDING;
+                long arrivalTime = theoreticalArrivalTimes.get(index);
+                while (arrivalTime - now <= tolerance) {
+                    if (theoreticalArrivalTimes.compareAndSet(index, arrivalTime, (arrivalTime - now < 0 ? now : arrivalTime) + interval)) {
+                        return true;
+                    }
+                    arrivalTime = theoreticalArrivalTimes.get(index);
+                }
+            }
+            return false;
+        }
+    }
+}
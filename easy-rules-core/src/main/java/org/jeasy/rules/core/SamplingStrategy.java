@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strategy used by rules engines to decide whether a matched rule is selected for
+ * execution according to its {@link Rule#getThreshold() threshold}: a rule having a
+ * threshold of 0.3 should be selected for about 30% of its matches.
+ * <p>
+ * Strategies provided by this interface select rules having a threshold greater than or
+ * equal to 1 and reject rules having a threshold lower than or equal to 0 without any draw.
+ * The decision is reported to listeners (see {@link org.jeasy.rules.api.RuleListener#afterEvaluate})
+ * and to fire results (see {@link org.jeasy.rules.api.FireResult#getSampled()}).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@FunctionalInterface
+public interface SamplingStrategy {
+
+    /**
+     * Decide whether a matched rule is selected for execution.
+     *
+     * @param rule whose condition matched
+     * @param facts the rule has been evaluated against
+     * @return true if the rule should be executed
+     */
+    boolean sample(Rule rule, Facts facts);
+
+    /**
+     * Select rules at random with a thread local generator, which does not contend between
+     * threads. This is the default strategy of rules engines.
+     *
+     * @return the thread local random strategy
+     */
+    static SamplingStrategy threadLocalRandom() {
+        return (rule, facts) -> {
+            double threshold = rule.getThreshold();
+            if (threshold >= Rule.DEFAULT_THRESHOLD) {
+                return true;
+            }
+            return threshold > 0d && ThreadLocalRandom.current().nextDouble() < threshold;
+        };
+    }
+
+    /**
+     * Select rules according to a stable hash of the value of a fact, so that the decision
+     * is reproducible: for example, hashing a <code>userId</code> fact puts each user
+     * consistently in or out of a rule having a threshold lower than 1. The hash is salted
+     * with the name of the rule, so that rules having the same threshold select different
+     * subsets of users. When the fact is missing, rules are selected at random.
+     * <p>
+     * The value is hashed with its {@link Object#hashCode()}, so its class must provide a
+     * hash code that is stable across JVMs, like strings, numbers and enums (by name).
+     *
+     * @param factName name of the fact to hash
+     * @return the fact hash strategy
+     */
+    static SamplingStrategy factHash(String factName) {
+        Objects.requireNonNull(factName, "fact name must not be null");
+        SamplingStrategy fallback = threadLocalRandom();
+        return (rule, facts) -> {
+            double threshold = rule.getThreshold();
+            if (threshold >= Rule.DEFAULT_THRESHOLD) {
+                return true;
+            }
+            if (threshold <= 0d) {
+                return false;
+            }
+            Fact<?> fact = facts.getFact(factName);
+            if (fact == null || fact.getValue() == null) {
+                return fallback.sample(rule, facts);
+            }
+            Object value = fact.getValue();
+            int valueHash = value instanceof Enum ? ((Enum<?>) value).name().hashCode() : value.hashCode();
+            long hash = ((long) rule.getName().hashCode() << 32) ^ (valueHash & 0xffffffffL);
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            // 53 high bits as a double uniformly distributed in [0, 1)
+            return (hash >>> 11) * 0x1.0p-53 < threshold;
+        };
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.tracing.FireSpan;
+import org.jeasy.rules.tracing.Scope;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * State of a {@link FactDependencyIndex} matched against a {@link Facts} instance.
+ * <p>
+ * The working memory holds the instances of the indexed facts seen so far. After each action, changed
+ * facts are detected by comparing these instances with the current ones (a fact that is
+ * updated in place without being put again is not seen as changed), and only the rules
+ * depending on changed facts are evaluated again. Rules whose condition is satisfied are
+ * activated on the {@link Agenda}, which fires activations in the order defined by its
+ * {@link ConflictResolutionStrategy}. A fired activation is consumed: its rule is activated
+ * again only after one of its facts changes.
+ * <p>
+ * Facts added logically by an action (see {@link Facts#putLogical(String, Object)}) are
+ * justified by the activation of the rule: they are removed when the rule is evaluated
+ * again to false (or fails to evaluate), or when the rule is fired again without adding
+ * them logically again, unless another rule still justifies them. A justified fact that
+ * has been replaced by another fact in the meantime is no longer maintained.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@Slf4j
+final class WorkingMemory {
+
+    private static final byte NOT_MATCHED = 0;
+    private static final byte MATCHED = 1;
+    private static final byte FAILED = 2;
+    private static final int MIN_BATCH_SIZE = 16;
+
+    private final FactDependencyIndex index;
+    private final Facts facts;
+    private final AbstractRulesEngine rulesEngine;
+    private final Fact<?>[] observedFacts;
+    private final Activation[] activations;
+    private final Agenda agenda;
+    private final int[] firings;
+    private final BitSet dirtyRules;
+    private final byte[] results;
+    private final Exception[] errors;
+    private final ForkJoinPool matchingPool;
+    private final int parallelMatchingThreshold;
+    private final Set<String>[] supportedFacts;
+    private final Map<String, BitSet> justifications = new HashMap<>();
+    private final Map<String, Fact<?>> logicalFacts = new HashMap<>();
+    private Set<Long> firingStates;
+    private long factsVersion;
+    private boolean initialized;
+    private FireSpan span;
+    private LogicalInsertions.Recording recording;
+
+    @SuppressWarnings("unchecked")
+    WorkingMemory(FactDependencyIndex index, Facts facts, AbstractRulesEngine rulesEngine, ConflictResolutionStrategy strategy,
+                  ForkJoinPool matchingPool, int parallelMatchingThreshold) {
+        this.index = index;
+        this.facts = facts;
+        this.rulesEngine = rulesEngine;
+        this.observedFacts = new Fact<?>[index.getFactCount()];
+        this.activations = new Activation[index.size()];
+        this.agenda = new Agenda(index.size(), strategy);
+        this.dirtyRules = new BitSet(index.size());
+        this.firings = new int[index.size()];
+        this.results = new byte[index.size()];
+        this.errors = new Exception[index.size()];
+        this.matchingPool = matchingPool;
+        this.parallelMatchingThreshold = parallelMatchingThreshold;
+        this.supportedFacts = new Set[index.size()];
+    }
+
+    /**
+     * Set the span of the current fire, null if the fire is not traced.
+     */
+    void setSpan(FireSpan span) {
+        this.span = span;
+    }
+
+    /**
+     * Prepare a new fire: on the first fire, load the current facts and
+     * evaluate all rules, then only propagate facts changed since the previous fire.
+     */
+    void start() {
+        Arrays.fill(firings, 0);
+        firingStates = null;
+        if (initialized) {
+            propagateChanges();
+        } else {
+            initialize();
+            initialized = true;
+        }
+    }
+
+    private void initialize() {
+        for (int factIndex = 0; factIndex < observedFacts.length; factIndex++) {
+            observedFacts[factIndex] = facts.getFact(index.getFactName(factIndex));
+        }
+        factsVersion = facts.getVersion();
+        dirtyRules.set(0, index.size());
+        match(dirtyRules);
+        dirtyRules.clear();
+    }
+
+    /**
+     * Remove the first activation from the agenda.
+     *
+     * @return the ordinal of the activated rule, or -1 if the agenda is empty
+     */
+    int nextActivation() {
+        Activation activation = agenda.poll();
+        return activation != null ? activation.getOrdinal() : -1;
+    }
+
+    /**
+     * Propagate the facts changed since the last propagation and update the agenda.
+     */
+    void propagateChanges() {
+        // retracting unjustified facts changes facts again
+        while (facts.getVersion() != factsVersion) {
+            factsVersion = facts.getVersion();
+            collectDirtyRules();
+            match(dirtyRules);
+            dirtyRules.clear();
+        }
+    }
+
+    private void collectDirtyRules() {
+        for (int factIndex = 0; factIndex < observedFacts.length; factIndex++) {
+            Fact<?> fact = facts.getFact(index.getFactName(factIndex));
+            if (fact != observedFacts[factIndex]) {
+                observedFacts[factIndex] = fact;
+                for (int successor : index.getDependentRules(factIndex)) {
+                    dirtyRules.set(successor);
+                }
+            }
+        }
+        for (int ordinal : index.getUnindexedRules()) {
+            dirtyRules.set(ordinal);
+        }
+    }
+
+    /**
+     * Put back on the agenda an activation removed without being fired.
+     *
+     * @param ordinal of the activated rule
+     */
+    void reactivate(int ordinal) {
+        agenda.activate(activation(ordinal));
+    }
+
+    int getFirings(int ordinal) {
+        return firings[ordinal];
+    }
+
+    void beforeFiring(int ordinal) {
+        firings[ordinal]++;
+        recording = LogicalInsertions.start(facts);
+    }
+
+    /**
+     * Justify the facts added logically by the rule that has just been fired, and
+     * retract the facts it justified previously but did not add again.
+     *
+     * @param ordinal of the fired rule
+     */
+    void afterFiring(int ordinal) {
+        Set<String> previouslySupported = supportedFacts[ordinal];
+        Set<String> supported = LogicalInsertions.stop(recording);
+        recording = null;
+        for (String name : supported) {
+            justifications.computeIfAbsent(name, key -> new BitSet()).set(ordinal);
+            logicalFacts.put(name, facts.getFact(name));
+        }
+        supportedFacts[ordinal] = supported.isEmpty() ? null : supported;
+        if (previouslySupported != null) {
+            for (String name : previouslySupported) {
+                if (!supported.contains(name)) {
+                    unjustify(ordinal, name);
+                }
+            }
+        }
+    }
+
+    private void unjustifyAll(int ordinal) {
+        Set<String> supported = supportedFacts[ordinal];
+        if (supported != null) {
+            supportedFacts[ordinal] = null;
+            for (String name : supported) {
+                unjustify(ordinal, name);
+            }
+        }
+    }
+
+    private void unjustify(int ordinal, String name) {
+        BitSet justification = justifications.get(name);
+        if (justification == null) {
+            return;
+        }
+        justification.clear(ordinal);
+        if (justification.isEmpty()) {
+            justifications.remove(name);
+            Fact<?> logicalFact = logicalFacts.remove(name);
+            if (facts.getFact(name) == logicalFact) {
+                log.debug("Fact '{}' is no longer justified and has been retracted", name);
+                facts.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Record the state of facts in which a rule is about to be fired.
+     *
+     * @param ordinal of the rule
+     * @return false if the rule has already been fired in the same state
+     */
+    boolean recordFiringState(int ordinal) {
+        if (firingStates == null) {
+            firingStates = new HashSet<>();
+        }
+        long state = ordinal;
+        if (index.getUnindexedRules().length == 0) {
+            for (Fact<?> fact : observedFacts) {
+                state = mix(state, fact == null ? 0 : Objects.hashCode(fact.getValue()));
+            }
+        } else {
+            long factsState = 0;
+            for (Fact<?> fact : facts) {
+                // order independent, facts are not iterated in a stable order
+                factsState += mix(fact.getName().hashCode(), Objects.hashCode(fact.getValue()));
+            }
+            state = mix(state, Long.hashCode(factsState));
+        }
+        return firingStates.add(state);
+    }
+
+    private static long mix(long state, int hash) {
+        return (state + hash) * 0x9E3779B97F4A7C15L;
+    }
+
+    Rule getRule(int ordinal) {
+        return index.getRule(ordinal);
+    }
+
+    /*
+     * Conditions are evaluated in parallel when a matching pool is set and there are enough
+     * rules to evaluate. Only conditions are evaluated concurrently: listeners are notified
+     * and the agenda is updated on the calling thread, in the natural order of rules.
+     */
+    private void match(BitSet ordinals) {
+        int count = ordinals.cardinality();
+        if (matchingPool == null || count < parallelMatchingThreshold) {
+            for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+                if (beforeEvaluation(ordinal)) {
+                    evaluateCondition(ordinal);
+                    afterEvaluation(ordinal);
+                }
+            }
+            return;
+        }
+        int[] candidates = new int[count];
+        int size = 0;
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            if (beforeEvaluation(ordinal)) {
+                candidates[size++] = ordinal;
+            }
+        }
+        int batchSize = Math.max(MIN_BATCH_SIZE, size / (matchingPool.getParallelism() * 4));
+        matchingPool.invoke(new MatchingTask(candidates, 0, size, batchSize));
+        for (int i = 0; i < size; i++) {
+            afterEvaluation(candidates[i]);
+        }
+    }
+
+    private boolean beforeEvaluation(int ordinal) {
+        agenda.cancel(ordinal);
+        Rule rule = index.getRule(ordinal);
+        if (!rulesEngine.shouldRuleEvaluate(rule, facts)) {
+            log.debug("Rule '{}' has been skipped before being evaluated", rule.getName());
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * May be called concurrently for different rules. When the fire is traced, conditions
+     * are evaluated in the context of the fire span, including on threads of the matching pool.
+     */
+    private void evaluateCondition(int ordinal) {
+        FireSpan span = this.span;
+        if (span == null) {
+            doEvaluateCondition(ordinal);
+            return;
+        }
+        try (Scope scope = span.makeCurrent()) {
+            if (span.isRuleSpansEnabled()) {
+                long start = System.nanoTime();
+                doEvaluateCondition(ordinal);
+                span.evaluated(index.getRule(ordinal), start, System.nanoTime() - start, results[ordinal] == MATCHED);
+            } else {
+                doEvaluateCondition(ordinal);
+            }
+        }
+    }
+
+    private void doEvaluateCondition(int ordinal) {
+        try {
+            results[ordinal] = rulesEngine.evaluate(index.getRule(ordinal), facts) ? MATCHED : NOT_MATCHED;
+        } catch (Exception exception) {
+            results[ordinal] = FAILED;
+            errors[ordinal] = exception;
+        }
+    }
+
+    private void afterEvaluation(int ordinal) {
+        Rule rule = index.getRule(ordinal);
+        String name = rule.getName();
+        if (results[ordinal] == FAILED) {
+            Exception exception = errors[ordinal];
+            errors[ordinal] = null;
+            log.error("Rule '" + name + "' evaluated with error", exception);
+            rulesEngine.onEvaluationError(rule, facts, exception);
+            unjustifyAll(ordinal);
+            return;
+        }
+        boolean evaluationResult = results[ordinal] == MATCHED;
+        if (!evaluationResult) {
+            unjustifyAll(ordinal);
+        }
+        boolean randomResult = evaluationResult && rulesEngine.sample(rule, facts);
+        rulesEngine.afterRuleEvaluate(rule, facts, evaluationResult, randomResult);
+        if (evaluationResult && randomResult) {
+            log.debug("Rule '{}' has been activated", name);
+            agenda.activate(activation(ordinal));
+        }
+    }
+
+    private final class MatchingTask extends RecursiveAction {
+
+        private final int[] candidates;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+
+        private MatchingTask(int[] candidates, int from, int to, int batchSize) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    evaluateCondition(candidates[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MatchingTask(candidates, from, middle, batchSize),
+                        new MatchingTask(candidates, middle, to, batchSize));
+            }
+        }
+    }
+
+    private Activation activation(int ordinal) {
+        Activation activation = activations[ordinal];
+        if (activation == null) {
+            activation = new Activation(index.getRule(ordinal), ordinal);
+            activations[ordinal] = activation;
+        }
+        return activation;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Span exporter appending finished spans to a file, one JSON object per line:
+ * <pre>
+ * {"name":"rules.fire","traceId":"...","spanId":"...","parentSpanId":null,"startEpochNanos":...,"durationNanos":...,"attributes":{...}}
+ * </pre>
+ * Spans are buffered: they are written to the file when the buffer is full,
+ * when the exporter is {@link #flush() flushed} and when it is closed.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private final Writer writer;
+
+    /**
+     * Create a new {@link FileSpanExporter} appending spans to the given file.
+     *
+     * @param path of the file, created if needed
+     * @throws IOException if the file can not be opened
+     */
+    public FileSpanExporter(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        try {
+            writer.write(toJson(span));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write buffered spans to the file.
+     */
+    public synchronized void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String toJson(Span span) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"name\":");
+        appendString(json, span.getName());
+        json.append(",\"traceId\":");
+        appendString(json, span.getTraceId());
+        json.append(",\"spanId\":");
+        appendString(json, span.getSpanId());
+        json.append(",\"parentSpanId\":");
+        appendString(json, span.getParentSpanId());
+        json.append(",\"startEpochNanos\":").append(span.getStartEpochNanos());
+        json.append(",\"durationNanos\":").append(span.getDurationNanos());
+        json.append(",\"attributes\":{");
+        boolean first = true;
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, attribute.getKey());
+            json.append(':');
+            Object value = attribute.getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                appendString(json, value == null ? null : value.toString());
+            }
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
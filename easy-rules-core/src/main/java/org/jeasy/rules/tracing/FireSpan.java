@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jeasy.rules.api.Rule;
+
+/**
+ * Span of a fire in progress, created by {@link RuleTracer#startFire(String, int)}.
+ * <p>
+ * Rules engines report the evaluation and the execution of rules to the span of the fire,
+ * possibly from several threads, and {@link #end(Boolean) end} it once the fire is complete.
+ * Times are given in {@link System#nanoTime()} units.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class FireSpan {
+
+    private final RuleTracer tracer;
+    private final SpanContext context;
+    private final SpanContext parent;
+    private final String engine;
+    private final int ruleCount;
+    private final long startEpochNanos;
+    private final long startNanos;
+
+    FireSpan(RuleTracer tracer, SpanContext context, SpanContext parent, String engine, int ruleCount) {
+        this.tracer = tracer;
+        this.context = context;
+        this.parent = parent;
+        this.engine = engine;
+        this.ruleCount = ruleCount;
+        this.startNanos = System.nanoTime();
+        this.startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    }
+
+    public SpanContext getContext() {
+        return context;
+    }
+
+    /**
+     * Return true if rules evaluations and executions should be timed and reported to this span.
+     *
+     * @return true if rule spans are enabled
+     */
+    public boolean isRuleSpansEnabled() {
+        return tracer.isRuleSpansEnabled();
+    }
+
+    /**
+     * Make the context of this span the current context of the calling thread.
+     *
+     * @return a scope to close to restore the previous context
+     */
+    public Scope makeCurrent() {
+        return context.makeCurrent();
+    }
+
+    /**
+     * Report the evaluation of a rule.
+     *
+     * @param rule evaluated
+     * @param startNanos start time of the evaluation
+     * @param nanos duration of the evaluation
+     * @param matched result of the rule's condition
+     */
+    public void evaluated(Rule rule, long startNanos, long nanos, boolean matched) {
+        if (tracer.isTraced(nanos)) {
+            Map<String, Object> attributes = ruleAttributes(rule);
+            attributes.put("rule.matched", matched);
+            tracer.export(new Span(Span.EVALUATE, context.newChild(), context.getSpanId(), epochNanos(startNanos), nanos, attributes));
+        }
+    }
+
+    /**
+     * Report the execution of a rule.
+     *
+     * @param rule executed
+     * @param startNanos start time of the execution
+     * @param nanos duration of the execution
+     * @param success true if the actions of the rule have been performed successfully
+     */
+    public void executed(Rule rule, long startNanos, long nanos, boolean success) {
+        if (tracer.isTraced(nanos)) {
+            Map<String, Object> attributes = ruleAttributes(rule);
+            attributes.put("rule.success", success);
+            tracer.export(new Span(Span.EXECUTE, context.newChild(), context.getSpanId(), epochNanos(startNanos), nanos, attributes));
+        }
+    }
+
+    /**
+     * End this span and export it.
+     *
+     * @param result of the fire, null if the fire failed
+     */
+    public void end(Boolean result) {
+        long nanos = System.nanoTime() - startNanos;
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("rules.engine", engine);
+        attributes.put("rules.count", ruleCount);
+        if (result != null) {
+            attributes.put("rules.result", result);
+        }
+        tracer.export(new Span(Span.FIRE, context, parent == null ? null : parent.getSpanId(), startEpochNanos, nanos, attributes));
+    }
+
+    private long epochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanos);
+    }
+
+    private static Map<String, Object> ruleAttributes(Rule rule) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("rule.name", rule.getName());
+        attributes.put("rule.priority", rule.getPriority());
+        return attributes;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracer creating spans for fires and, optionally, for the evaluation and the execution of rules.
+ * <p>
+ * When a tracer is set on a rules engine, each fire {@link Sampler sampled in} opens a span,
+ * child of the {@link SpanContext#current() current context} of the calling thread, which is
+ * made current while the fire runs, so that nested fires and instrumented code called by rules
+ * belong to the same trace. The fire span is propagated to the threads executing actions in the
+ * {@link org.jeasy.rules.core.PipelinedRulesEngine} and evaluating conditions in parallel in the
+ * {@link org.jeasy.rules.core.InferenceRulesEngine}.
+ * <p>
+ * Rule spans are created only for evaluations and executions lasting at least the rule span
+ * threshold, to keep traces readable and cheap. When a fire is not sampled, nothing is timed
+ * nor allocated.
+ * <p>
+ * Finished spans are handed to a {@link SpanExporter}. This class is thread safe.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class RuleTracer {
+
+    /**
+     * Rule span threshold disabling rule spans.
+     */
+    public static final long NO_RULE_SPANS = -1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleTracer.class);
+
+    private final SpanExporter exporter;
+    private final Sampler sampler;
+    private final long ruleSpanThresholdNanos;
+
+    /**
+     * Create a new {@link RuleTracer} tracing all fires whose parent context, if any,
+     * is sampled, without rule spans.
+     *
+     * @param exporter of finished spans
+     */
+    public RuleTracer(SpanExporter exporter) {
+        this(exporter, Sampler.parentBased(Sampler.alwaysOn()), NO_RULE_SPANS);
+    }
+
+    /**
+     * Create a new {@link RuleTracer}.
+     *
+     * @param exporter of finished spans
+     * @param sampler deciding which fires are traced
+     * @param ruleSpanThresholdNanos minimum duration of rule evaluations and executions to trace,
+     *                               0 to trace all of them, {@link #NO_RULE_SPANS} to trace none
+     */
+    public RuleTracer(SpanExporter exporter, Sampler sampler, long ruleSpanThresholdNanos) {
+        this.exporter = Objects.requireNonNull(exporter, "exporter must not be null");
+        this.sampler = Objects.requireNonNull(sampler, "sampler must not be null");
+        if (ruleSpanThresholdNanos < NO_RULE_SPANS) {
+            throw new IllegalArgumentException("Rule span threshold must be positive, 0 or NO_RULE_SPANS");
+        }
+        this.ruleSpanThresholdNanos = ruleSpanThresholdNanos;
+    }
+
+    /**
+     * Start the span of a fire, if the fire is sampled in. Called by rules engines.
+     *
+     * @param engine name of the rules engine
+     * @param ruleCount number of fired rules
+     * @return the span of the fire, or null if the fire is not traced
+     */
+    public FireSpan startFire(String engine, int ruleCount) {
+        SpanContext parent = SpanContext.current();
+        if (!sampler.shouldSample(parent)) {
+            return null;
+        }
+        SpanContext context = parent == null ? SpanContext.newRoot() : parent.newChild();
+        return new FireSpan(this, context, parent, engine, ruleCount);
+    }
+
+    public long getRuleSpanThresholdNanos() {
+        return ruleSpanThresholdNanos;
+    }
+
+    boolean isRuleSpansEnabled() {
+        return ruleSpanThresholdNanos != NO_RULE_SPANS;
+    }
+
+    boolean isTraced(long ruleNanos) {
+        return ruleSpanThresholdNanos != NO_RULE_SPANS && ruleNanos >= ruleSpanThresholdNanos;
+    }
+
+    void export(Span span) {
+        try {
+            exporter.export(span);
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Unable to export span {}", span, exception);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decide whether a fire is traced. When a fire is not sampled, no span is
+ * created for the fire nor for its rules.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@FunctionalInterface
+public interface Sampler {
+
+    /**
+     * Decide whether a fire is traced.
+     *
+     * @param parent context of the fire, null if the fire is the root of a new trace
+     * @return true to trace the fire
+     */
+    boolean shouldSample(SpanContext parent);
+
+    /**
+     * Return a sampler tracing all fires.
+     *
+     * @return a sampler tracing all fires
+     */
+    static Sampler alwaysOn() {
+        return parent -> true;
+    }
+
+    /**
+     * Return a sampler tracing no fire.
+     *
+     * @return a sampler tracing no fire
+     */
+    static Sampler alwaysOff() {
+        return parent -> false;
+    }
+
+    /**
+     * Return a sampler tracing a random ratio of fires.
+     *
+     * @param ratio of fires to trace, between 0 and 1
+     * @return a sampler tracing the given ratio of fires
+     */
+    static Sampler ratio(double ratio) {
+        if (ratio < 0d || ratio > 1d) {
+            throw new IllegalArgumentException("Ratio must be between 0 and 1");
+        }
+        return parent -> ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+    /**
+     * Return a sampler following the decision of the parent context, if any,
+     * and delegating to the given sampler for root fires.
+     *
+     * @param root sampler of fires without parent context
+     * @return a parent based sampler
+     */
+    static Sampler parentBased(Sampler root) {
+        return parent -> parent != null ? parent.isSampled() : root.shouldSample(null);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Finished span exported by a {@link RuleTracer}.
+ * <p>
+ * Fire spans are named {@value #FIRE}, rule spans are named {@value #EVALUATE}
+ * or {@value #EXECUTE} and carry the name and priority of the rule as attributes.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class Span {
+
+    public static final String FIRE = "rules.fire";
+    public static final String EVALUATE = "rule.evaluate";
+    public static final String EXECUTE = "rule.execute";
+
+    private final String name;
+    private final SpanContext context;
+    private final String parentSpanId;
+    private final long startEpochNanos;
+    private final long durationNanos;
+    private final Map<String, Object> attributes;
+
+    Span(String name, SpanContext context, String parentSpanId, long startEpochNanos, long durationNanos,
+         Map<String, Object> attributes) {
+        this.name = name;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.startEpochNanos = startEpochNanos;
+        this.durationNanos = durationNanos;
+        this.attributes = Collections.unmodifiableMap(attributes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SpanContext getContext() {
+        return context;
+    }
+
+    public String getTraceId() {
+        return context.getTraceId();
+    }
+
+    public String getSpanId() {
+        return context.getSpanId();
+    }
+
+    /**
+     * Return the id of the parent span.
+     *
+     * @return the parent span id, or null if this span is the root of its trace
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Return the start time of the span.
+     *
+     * @return the start time in nanoseconds since the epoch
+     */
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Return the attributes of the span. Values are strings, numbers or booleans.
+     *
+     * @return an unmodifiable map of attributes
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "Span { name = '" + name + "', traceId = " + context.getTraceId() + ", spanId = " + context.getSpanId() +
+                ", parentSpanId = " + parentSpanId + ", startEpochNanos = " + startEpochNanos +
+                ", durationNanos = " + durationNanos + ", attributes = " + attributes + " }";
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identity of a span within a trace, in the format of the W3C trace context:
+ * a trace id of 32 lower case hexadecimal characters and a span id of 16.
+ * <p>
+ * Each thread has a current context, which is the parent of the spans started by
+ * rules engines on that thread. To make fires part of a distributed trace, make the
+ * context of the enclosing span current before firing rules:
+ * <pre>
+ * try (Scope scope = SpanContext.of(traceId, spanId, true).makeCurrent()) {
+ *     rulesEngine.fire(rules, facts);
+ * }
+ * </pre>
+ * Contexts are propagated to other threads by wrapping tasks with {@link #wrap(Runnable)}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class SpanContext {
+
+    private static final ThreadLocal<SpanContext> CURRENT = new ThreadLocal<>();
+    private static final Scope NOOP_SCOPE = () -> { };
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    private SpanContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Create a span context, typically from the context of a span of another tracing system.
+     *
+     * @param traceId id of the trace
+     * @param spanId id of the span
+     * @param sampled true if the span is traced
+     * @return a new span context
+     */
+    public static SpanContext of(String traceId, String spanId, boolean sampled) {
+        Objects.requireNonNull(traceId, "trace id must not be null");
+        Objects.requireNonNull(spanId, "span id must not be null");
+        return new SpanContext(traceId, spanId, sampled);
+    }
+
+    /**
+     * Return the current context of the calling thread.
+     *
+     * @return the current context, or null if there is none
+     */
+    public static SpanContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wrap a task so that it runs with the context that is current when this method is called.
+     *
+     * @param task to wrap
+     * @return the wrapped task, or the task itself if there is no current context
+     */
+    public static Runnable wrap(Runnable task) {
+        SpanContext context = CURRENT.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope scope = context.makeCurrent()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Wrap an executor so that tasks run with the context that is current when they are submitted.
+     *
+     * @param executor to wrap
+     * @return the wrapped executor
+     */
+    public static Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+
+    static SpanContext newRoot() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new SpanContext(hex(random.nextLong()) + hex(random.nextLong()), newSpanId(), true);
+    }
+
+    SpanContext newChild() {
+        return new SpanContext(traceId, newSpanId(), true);
+    }
+
+    /**
+     * Make this context the current context of the calling thread.
+     *
+     * @return a scope to close to restore the previous context
+     */
+    public Scope makeCurrent() {
+        SpanContext previous = CURRENT.get();
+        if (previous == this) {
+            return NOOP_SCOPE;
+        }
+        CURRENT.set(this);
+        return () -> CURRENT.set(previous);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    private static String newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0L);
+        return hex(id);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        if (hex.length() == 16) {
+            return hex;
+        }
+        StringBuilder padded = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            padded.append('0');
+        }
+        return padded.append(hex).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SpanContext that = (SpanContext) o;
+        return sampled == that.sampled && traceId.equals(that.traceId) && spanId.equals(that.spanId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(traceId, spanId, sampled);
+    }
+
+    @Override
+    public String toString() {
+        return "SpanContext { traceId = " + traceId + ", spanId = " + spanId + ", sampled = " + sampled + " }";
+    }
+}
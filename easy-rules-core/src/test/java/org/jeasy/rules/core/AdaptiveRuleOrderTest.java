@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineParameters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveRuleOrderTest {
+
+    @org.junit.Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private AdaptiveRuleOrder adaptiveRuleOrder;
+    private DefaultRulesEngine rulesEngine;
+    private Rules rules;
+
+    @Before
+    public void setup() {
+        adaptiveRuleOrder = new AdaptiveRuleOrder(AdaptiveRuleOrder.MIN_EVALUATIONS);
+        rulesEngine = new DefaultRulesEngine(new RulesEngineParameters().skipOnFirstAppliedRule(true));
+        rulesEngine.setAdaptiveRuleOrder(adaptiveRuleOrder);
+        Rule first = new RuleBuilder().name("a-never").when(facts -> false).build();
+        Rule second = new RuleBuilder().name("b-always").when(facts -> true).build();
+        Rule prioritized = new RuleBuilder().name("c-prioritized").priority(0).when(facts -> false).build();
+        rules = new Rules(first, second, prioritized);
+    }
+
+    @Test
+    public void rulesOfTheSamePriorityShouldBeReorderedBySelectivity() {
+        // Given
+        fire(2 * AdaptiveRuleOrder.MIN_EVALUATIONS);
+        long neverEvaluations = adaptiveRuleOrder.getEvaluations("a-never");
+        long alwaysEvaluations = adaptiveRuleOrder.getEvaluations("b-always");
+
+        // When
+        fire(10);
+
+        // Then
+        assertThat(adaptiveRuleOrder.getEvaluations("a-never")).isEqualTo(neverEvaluations);
+        assertThat(adaptiveRuleOrder.getEvaluations("b-always")).isEqualTo(alwaysEvaluations + 10);
+    }
+
+    @Test
+    public void rulesShouldNotBeReorderedAcrossPriorities() {
+        // Given
+        fire(3 * AdaptiveRuleOrder.MIN_EVALUATIONS);
+
+        // When
+        FireResult fireResult = rulesEngine.fire(rules, new Facts(), new FireResult());
+
+        // Then
+        assertThat(fireResult.getRules(fireResult.getEvaluated())).extracting(Rule::getName)
+                .containsExactly("c-prioritized", "b-always");
+    }
+
+    @Test
+    public void rulesShouldNotBeReorderedWhenAllRulesAreEvaluated() {
+        // Given
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setAdaptiveRuleOrder(adaptiveRuleOrder);
+
+        // When
+        fire(3 * AdaptiveRuleOrder.MIN_EVALUATIONS);
+
+        // Then
+        assertThat(adaptiveRuleOrder.getEvaluations("a-never")).isEqualTo(adaptiveRuleOrder.getEvaluations("b-always"));
+        assertThat(adaptiveRuleOrder.getEvaluations("a-never")).isEqualTo(adaptiveRuleOrder.getEvaluations("c-prioritized"));
+    }
+
+    @Test
+    public void rulesShouldNotBeReorderedWhenTheEngineStopsAtTheFirstNonTriggeredRule() {
+        // Given
+        rulesEngine = new DefaultRulesEngine(new RulesEngineParameters().skipOnFirstNonTriggeredRule(true));
+        rulesEngine.setAdaptiveRuleOrder(adaptiveRuleOrder);
+        fire(3 * AdaptiveRuleOrder.MIN_EVALUATIONS);
+
+        // When
+        FireResult fireResult = rulesEngine.fire(rules, new Facts(), new FireResult());
+
+        // Then
+        assertThat(fireResult.getRules(fireResult.getEvaluated())).extracting(Rule::getName)
+                .containsExactly("c-prioritized", "a-never", "b-always");
+    }
+
+    @Test
+    public void statisticsShouldBeHalvedWhenRulesAreRanked() {
+        // Given
+        adaptiveRuleOrder = new AdaptiveRuleOrder();
+        rulesEngine.setAdaptiveRuleOrder(adaptiveRuleOrder);
+        fire(20);
+
+        // When
+        adaptiveRuleOrder.reorder();
+        long evaluations = adaptiveRuleOrder.getEvaluations("c-prioritized");
+        adaptiveRuleOrder.reorder();
+
+        // Then
+        assertThat(evaluations).isEqualTo(20);
+        assertThat(adaptiveRuleOrder.getEvaluations("c-prioritized")).isEqualTo(10);
+    }
+
+    @Test
+    public void plansShouldBeCachedPerRuleSet() {
+        // Given
+        Rules otherRules = new Rules(new RuleBuilder().name("d").when(facts -> true).build());
+
+        // When
+        AdaptiveRuleOrder.Plan plan = adaptiveRuleOrder.planFor(rules);
+        AdaptiveRuleOrder.Plan otherPlan = adaptiveRuleOrder.planFor(otherRules);
+
+        // Then
+        assertThat(adaptiveRuleOrder.planFor(rules)).isSameAs(plan);
+        assertThat(adaptiveRuleOrder.planFor(otherRules)).isSameAs(otherPlan);
+        rules.register(new RuleBuilder().name("e").when(facts -> true).build());
+        assertThat(adaptiveRuleOrder.planFor(rules)).isNotSameAs(plan);
+    }
+
+    @Test
+    public void loadedStatisticsShouldBeUsedToOrderRulesRightAway() throws Exception {
+        // Given
+        fire(AdaptiveRuleOrder.MIN_EVALUATIONS);
+        Path statistics = temporaryFolder.getRoot().toPath().resolve("rule-order.stats");
+        adaptiveRuleOrder.save(statistics);
+
+        // When
+        adaptiveRuleOrder = new AdaptiveRuleOrder();
+        adaptiveRuleOrder.load(statistics);
+        rulesEngine.setAdaptiveRuleOrder(adaptiveRuleOrder);
+        fire(1);
+
+        // Then
+        assertThat(adaptiveRuleOrder.getEvaluations("a-never")).isEqualTo(AdaptiveRuleOrder.MIN_EVALUATIONS);
+        assertThat(adaptiveRuleOrder.getEvaluations("b-always")).isEqualTo(AdaptiveRuleOrder.MIN_EVALUATIONS + 1);
+    }
+
+    @Test
+    public void fireResultShouldReportRulesByTheirNaturalOrdinal() {
+        // Given
+        fire(2 * AdaptiveRuleOrder.MIN_EVALUATIONS);
+
+        // When
+        FireResult fireResult = rulesEngine.fire(rules, new Facts(), new FireResult());
+
+        // Then
+        assertThat(fireResult.getRules(fireResult.getEvaluated())).extracting(Rule::getName)
+                .containsExactly("c-prioritized", "b-always");
+        assertThat(fireResult.getEvaluated().get(2)).isTrue();
+        assertThat(fireResult.getExecuted().get(2)).isTrue();
+        assertThat(fireResult.getRule(2).getName()).isEqualTo("b-always");
+    }
+
+    @Test
+    public void reorderIntervalShouldBePositive() {
+        assertThatThrownBy(() -> new AdaptiveRuleOrder(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void fire(int times) {
+        for (int i = 0; i < times; i++) {
+            rulesEngine.fire(rules, new Facts());
+        }
+    }
+}
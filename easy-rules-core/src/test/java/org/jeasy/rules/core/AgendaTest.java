@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AgendaTest {
+
+    @Test
+    public void activationsShouldBePolledAccordingToTheStrategy() {
+        // Given
+        Agenda agenda = new Agenda(5, ConflictResolutionStrategy.priority());
+        List<Activation> activations = activations(5);
+
+        // When
+        agenda.activate(activations.get(3));
+        agenda.activate(activations.get(0));
+        agenda.activate(activations.get(4));
+        agenda.activate(activations.get(1));
+
+        // Then
+        assertThat(agenda.size()).isEqualTo(4);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(0);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(1);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(3);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(4);
+        assertThat(agenda.poll()).isNull();
+    }
+
+    @Test
+    public void cancelledActivationsShouldNotBePolled() {
+        // Given
+        Agenda agenda = new Agenda(5, ConflictResolutionStrategy.priority());
+        for (Activation activation : activations(5)) {
+            agenda.activate(activation);
+        }
+
+        // When
+        agenda.cancel(0);
+        agenda.cancel(3);
+        agenda.cancel(3);
+
+        // Then
+        assertThat(agenda.isActivated(3)).isFalse();
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(1);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(2);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(4);
+        assertThat(agenda.poll()).isNull();
+    }
+
+    @Test
+    public void reactivatedActivationsShouldBeMovedWithRecencyStrategy() {
+        // Given
+        Agenda agenda = new Agenda(3, ConflictResolutionStrategy.recency());
+        List<Activation> activations = activations(3);
+        for (Activation activation : activations) {
+            agenda.activate(activation);
+        }
+
+        // When
+        agenda.activate(activations.get(0));
+
+        // Then
+        assertThat(agenda.size()).isEqualTo(3);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(0);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(2);
+        assertThat(agenda.poll().getOrdinal()).isEqualTo(1);
+    }
+
+    @Test
+    public void inferenceRulesEngineShouldFireActivationsAccordingToTheConflictResolutionStrategy() {
+        // Given
+        List<String> executions = new ArrayList<>();
+        Rule simple = new RuleBuilder().name("simple").priority(1).readFacts("a")
+                .when(facts -> true)
+                .then(facts -> executions.add("simple"))
+                .build();
+        Rule complex = new RuleBuilder().name("complex").priority(2).readFacts("a", "b")
+                .when(facts -> true)
+                .then(facts -> executions.add("complex"))
+                .build();
+        Rule grouped = new RuleBuilder().name("grouped").priority(3).readFacts("a")
+                .when(facts -> true)
+                .then(facts -> executions.add("grouped"))
+                .build();
+        Rules rules = new Rules(simple, complex, grouped);
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+
+        // When
+        rulesEngine.setConflictResolutionStrategy(ConflictResolutionStrategy.complexity());
+        rulesEngine.fire(rules, new Facts());
+        rulesEngine.setConflictResolutionStrategy(ConflictResolutionStrategy.salienceGroups(
+                rule -> rule.getName().equals("grouped") ? "first" : "second", "first", "second"));
+        rulesEngine.fire(rules, new Facts());
+
+        // Then
+        assertThat(executions).containsExactly("complex", "simple", "grouped", "grouped", "simple", "complex");
+    }
+
+    private List<Activation> activations(int count) {
+        List<Activation> activations = new ArrayList<>();
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            Rule rule = new RuleBuilder().name("rule" + ordinal).priority(ordinal).build();
+            activations.add(new Activation(rule, ordinal));
+        }
+        return activations;
+    }
+}
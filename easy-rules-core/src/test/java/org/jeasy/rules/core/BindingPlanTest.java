@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.api.Facts;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BindingPlanTest {
+
+    @Test
+    public void reentrantBindingShouldNotOverwriteArgumentsInUse() throws Exception {
+        // Given
+        BindingPlan plan = new BindingPlan(MyRule.class.getMethod("then", String.class));
+        Facts outerFacts = new Facts();
+        outerFacts.put("name", "outer");
+        Facts innerFacts = new Facts();
+        innerFacts.put("name", "inner");
+
+        // When
+        Object[] outerArguments = plan.bind(outerFacts);
+        Object[] innerArguments = plan.bind(innerFacts);
+
+        // Then
+        assertThat(innerArguments).isNotSameAs(outerArguments).containsExactly("inner");
+        assertThat(outerArguments).containsExactly("outer");
+        plan.release(innerArguments);
+        assertThat(outerArguments).containsExactly("outer");
+        plan.release(outerArguments);
+        assertThat(plan.bind(innerFacts)).isSameAs(outerArguments);
+    }
+
+    @Test
+    public void missingActionFactsShouldBeReportedWithSharedExceptions() {
+        // Given
+        org.jeasy.rules.api.Rule rule = RuleProxy.asRule(new MyRule());
+
+        // When
+        Throwable first = catchMissingFact(rule);
+        Throwable second = catchMissingFact(rule);
+
+        // Then
+        assertThat(first).isInstanceOf(NoSuchFactException.class).isSameAs(second);
+        assertThat(first.getStackTrace()).isEmpty();
+        assertThat(((NoSuchFactException) first).getMissingFact()).isEqualTo("name");
+        first.addSuppressed(new IllegalStateException());
+        assertThat(first.getSuppressed()).isEmpty();
+    }
+
+    private static Throwable catchMissingFact(org.jeasy.rules.api.Rule rule) {
+        try {
+            rule.execute(new Facts());
+        } catch (Exception e) {
+            return e;
+        }
+        return null;
+    }
+
+    @org.jeasy.rules.annotation.Rule
+    public static class MyRule {
+
+        @org.jeasy.rules.annotation.Condition
+        public boolean when() {
+            return true;
+        }
+
+        @org.jeasy.rules.annotation.Action
+        public void then(@Fact("name") String name) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Rule;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rules;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConditionCacheTest {
+
+    private Facts facts;
+    private AtomicInteger evaluations;
+    private ConditionCache conditionCache;
+
+    @Before
+    public void setup() {
+        facts = new Facts();
+        facts.put("age", 20);
+        facts.put("country", "FR");
+        evaluations = new AtomicInteger();
+        conditionCache = new ConditionCache(16);
+    }
+
+    @Test
+    public void whenReadFactsAreUnchanged_thenCachedResultShouldBeReused() {
+        // Given
+        org.jeasy.rules.api.Rule rule = adultRule().readFacts("age").build();
+
+        // When
+        boolean first = conditionCache.evaluate(rule, facts);
+        facts.put("country", "DE");
+        boolean second = conditionCache.evaluate(rule, facts);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(evaluations.get()).isEqualTo(1);
+        assertThat(conditionCache.getHitCount()).isEqualTo(1);
+        assertThat(conditionCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenAReadFactIsReplaced_thenConditionShouldBeReevaluated() {
+        // Given
+        org.jeasy.rules.api.Rule rule = adultRule().readFacts("age").build();
+
+        // When
+        boolean first = conditionCache.evaluate(rule, facts);
+        facts.put("age", 10);
+        boolean second = conditionCache.evaluate(rule, facts);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(evaluations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenReadFactsAreNotDeclared_thenAnyChangeShouldInvalidateTheResult() {
+        // Given
+        org.jeasy.rules.api.Rule rule = adultRule().build();
+
+        // When
+        conditionCache.evaluate(rule, facts);
+        conditionCache.evaluate(rule, facts);
+        facts.put("country", "DE");
+        conditionCache.evaluate(rule, facts);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void resultsShouldNotBeSharedBetweenFactsInstances() {
+        // Given
+        org.jeasy.rules.api.Rule rule = adultRule().readFacts("age").build();
+        Facts otherFacts = new Facts();
+        otherFacts.put("age", 10);
+
+        // When
+        boolean first = conditionCache.evaluate(rule, facts);
+        boolean second = conditionCache.evaluate(rule, otherFacts);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+    }
+
+    @Test
+    public void cacheSizeShouldBeBounded() {
+        // Given
+        ConditionCache cache = new ConditionCache(10);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            Facts facts = new Facts();
+            facts.put("age", i);
+            cache.evaluate(adultRule().build(), facts);
+        }
+
+        // Then
+        assertThat(cache.getMaxSize()).isEqualTo(8);
+        assertThat(cache.size()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    public void annotatedPureRulesShouldDeclareTheirConditionFacts() {
+        // Given
+        org.jeasy.rules.api.Rule rule = RuleProxy.asRule(new PureRule());
+
+        // Then
+        assertThat(rule.isPure()).isTrue();
+        assertThat(rule.getReadFacts()).containsExactly("age");
+    }
+
+    @Test
+    public void rulesEngineShouldMemoizeOnlyPureRules() {
+        // Given
+        AtomicInteger impureEvaluations = new AtomicInteger();
+        org.jeasy.rules.api.Rule pureRule = adultRule().name("pure").readFacts("age").build();
+        org.jeasy.rules.api.Rule impureRule = new RuleBuilder()
+                .name("impure")
+                .when(facts -> impureEvaluations.incrementAndGet() > 0)
+                .build();
+        Rules rules = new Rules(pureRule, impureRule);
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setConditionCache(conditionCache);
+
+        // When
+        rulesEngine.fire(rules, facts);
+        rulesEngine.fire(rules, facts);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(1);
+        assertThat(impureEvaluations.get()).isEqualTo(2);
+    }
+
+    private RuleBuilder adultRule() {
+        return new RuleBuilder()
+                .pure(true)
+                .when(facts -> {
+                    evaluations.incrementAndGet();
+                    return facts.<Integer>get("age") >= 18;
+                });
+    }
+
+    @Rule(pure = true)
+    public static class PureRule {
+
+        @Condition
+        public boolean when(@Fact("age") int age) {
+            return age >= 18;
+        }
+
+        @Action
+        public void then() {
+        }
+    }
+}
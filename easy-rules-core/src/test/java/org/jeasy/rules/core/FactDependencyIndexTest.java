@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rules;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FactDependencyIndexTest {
+
+    @org.junit.Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Rules rules;
+    private Path path;
+
+    @Before
+    public void setup() throws Exception {
+        rules = new Rules(
+                new RuleBuilder().name("a").priority(1).readFacts("x")
+                        .when(facts -> facts.get("x") != null)
+                        .then(facts -> facts.put("y", 1))
+                        .build(),
+                new RuleBuilder().name("b").priority(2).readFacts("x", "y")
+                        .when(facts -> facts.get("y") != null)
+                        .then(facts -> facts.put("z", 2))
+                        .build(),
+                new RuleBuilder().name("c").priority(3)
+                        .when(facts -> false)
+                        .build());
+        path = temporaryFolder.newFile("index.bin").toPath();
+    }
+
+    @Test
+    public void anIndexShouldBeReadBackWithTheSameStructure() throws Exception {
+        // Given
+        FactDependencyIndex index = FactDependencyIndex.compile(rules, Integer.MAX_VALUE);
+
+        // When
+        index.writeTo(path);
+        FactDependencyIndex readIndex = FactDependencyIndex.readFrom(path, rules);
+
+        // Then
+        assertThat(readIndex.size()).isEqualTo(3);
+        assertThat(readIndex.getRules()).isSameAs(rules);
+        assertThat(readIndex.getFactCount()).isEqualTo(2);
+        for (int factIndex = 0; factIndex < index.getFactCount(); factIndex++) {
+            assertThat(readIndex.getFactName(factIndex)).isEqualTo(index.getFactName(factIndex));
+            assertThat(readIndex.getDependentRules(factIndex)).isEqualTo(index.getDependentRules(factIndex));
+        }
+        assertThat(readIndex.getUnindexedRules()).containsExactly(2);
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            assertThat(readIndex.getRule(ordinal)).isSameAs(index.getRule(ordinal));
+        }
+    }
+
+    @Test
+    public void anIndexShouldNotBeReadWithOtherRules() throws Exception {
+        // Given
+        FactDependencyIndex.compile(rules, Integer.MAX_VALUE).writeTo(path);
+        Rules otherRules = new Rules(new RuleBuilder().name("a").priority(1).build(), new RuleBuilder().name("d").priority(2).build());
+
+        // When / Then
+        assertThatThrownBy(() -> FactDependencyIndex.readFrom(path, otherRules))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void anIndexShouldNotBeReadWithRulesReadingOtherFacts() throws Exception {
+        // Given
+        FactDependencyIndex.compile(rules, Integer.MAX_VALUE).writeTo(path);
+        Rules changedRules = new Rules(
+                new RuleBuilder().name("a").priority(1).readFacts("x").build(),
+                new RuleBuilder().name("b").priority(2).readFacts("x", "w").build(),
+                new RuleBuilder().name("c").priority(3).build());
+
+        // When / Then
+        assertThatThrownBy(() -> FactDependencyIndex.readFrom(path, changedRules))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'b'");
+    }
+
+    @Test
+    public void rulesShouldBeFiredWithAWarmStartedIndex() throws Exception {
+        // Given
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        Files.delete(path);
+        rulesEngine.compile(rules, path);
+        assertThat(path).exists();
+        Facts facts = new Facts();
+        facts.put("x", 0);
+
+        // When
+        FactDependencyIndex index = rulesEngine.compile(rules, path);
+        rulesEngine.newSession(index, facts).fire();
+
+        // Then
+        assertThat((Integer) facts.get("z")).isEqualTo(2);
+    }
+}
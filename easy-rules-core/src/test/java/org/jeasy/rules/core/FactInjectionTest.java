@@ -127,6 +127,48 @@ public class FactInjectionTest {
         assertThat(rule.isExecuted()).isFalse();
     }
 
+    @Test
+    public void whenADeclaredFactIsMissing_thenItsDefaultValueOrNullShouldBeInjectedAccordingToItsPolicy() throws Exception {
+        // Given
+        Facts facts = new Facts();
+        DiscountRule discountRule = new DiscountRule();
+        org.jeasy.rules.api.Rule rule = RuleProxy.asRule(discountRule);
+
+        // When
+        boolean evaluated = rule.evaluate(facts);
+        rule.execute(facts);
+
+        // Then
+        assertThat(evaluated).isTrue();
+        assertThat(discountRule.getDiscount()).isEqualTo(5);
+        assertThat(discountRule.getLevel()).isEqualTo(Level.LOW);
+        assertThat(discountRule.getCoupon()).isNull();
+    }
+
+    @Test
+    public void whenADeclaredFactIsPresent_thenItShouldBeInjectedWhateverItsPolicy() throws Exception {
+        // Given
+        Facts facts = new Facts();
+        facts.put("discount", 10);
+        facts.put("level", Level.HIGH);
+        facts.put("coupon", "FREE");
+        DiscountRule discountRule = new DiscountRule();
+        org.jeasy.rules.api.Rule rule = RuleProxy.asRule(discountRule);
+
+        // When
+        rule.execute(facts);
+
+        // Then
+        assertThat(discountRule.getDiscount()).isEqualTo(10);
+        assertThat(discountRule.getLevel()).isEqualTo(Level.HIGH);
+        assertThat(discountRule.getCoupon()).isEqualTo("FREE");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenADefaultValueCanNotBeConvertedToTheParameterType_thenTheRuleShouldBeRejected() {
+        RuleProxy.asRule(new InvalidDefaultValueRule());
+    }
+
     @Rule
 	static class DummyRule {
 
@@ -220,4 +262,53 @@ public class FactInjectionTest {
             return isExecuted;
         }
     }
+
+    enum Level { LOW, HIGH }
+
+    @Rule
+    public static class DiscountRule {
+
+        private int discount;
+        private Level level;
+        private String coupon;
+
+        @Condition
+        public boolean when(@Fact(value = "discount", ifMissing = Fact.Missing.DEFAULT, defaultValue = "5") int discount) {
+            return discount > 0;
+        }
+
+        @Action
+        public void then(@Fact(value = "discount", ifMissing = Fact.Missing.DEFAULT, defaultValue = "5") int discount,
+                         @Fact(value = "level", ifMissing = Fact.Missing.DEFAULT, defaultValue = "LOW") Level level,
+                         @Fact(value = "coupon", ifMissing = Fact.Missing.NULL) String coupon) {
+            this.discount = discount;
+            this.level = level;
+            this.coupon = coupon;
+        }
+
+        public int getDiscount() {
+            return discount;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getCoupon() {
+            return coupon;
+        }
+    }
+
+    @Rule
+    public static class InvalidDefaultValueRule {
+
+        @Condition
+        public boolean when(@Fact(value = "age", ifMissing = Fact.Missing.DEFAULT, defaultValue = "old") int age) {
+            return true;
+        }
+
+        @Action
+        public void then() {
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FireResultTest {
+
+    private Rule matchedRule;
+    private Rule notMatchedRule;
+    private Rule failingRule;
+    private Rules rules;
+    private Facts facts;
+
+    @Before
+    public void setup() {
+        matchedRule = new RuleBuilder().name("matched").priority(1)
+                .when(facts -> true)
+                .then(facts -> { })
+                .build();
+        notMatchedRule = new RuleBuilder().name("notMatched").priority(2)
+                .when(facts -> false)
+                .build();
+        failingRule = new RuleBuilder().name("failing").priority(3)
+                .when(facts -> true)
+                .then(facts -> {
+                    throw new Exception("boom");
+                })
+                .build();
+        rules = new Rules(matchedRule, notMatchedRule, failingRule);
+        facts = new Facts();
+    }
+
+    @Test
+    public void fireResultShouldRecordTheOutcomeOfEachRule() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+
+        // When
+        FireResult fireResult = rulesEngine.fire(rules, facts, new FireResult());
+
+        // Then
+        assertThat(fireResult.size()).isEqualTo(3);
+        assertThat(fireResult.getRule(0)).isEqualTo(matchedRule);
+        assertThat(fireResult.getRules(fireResult.getEvaluated())).containsExactly(matchedRule, notMatchedRule, failingRule);
+        assertThat(fireResult.getRules(fireResult.getMatched())).containsExactly(matchedRule, failingRule);
+        assertThat(fireResult.getRules(fireResult.getSampled())).containsExactly(matchedRule, failingRule);
+        assertThat(fireResult.getRules(fireResult.getExecuted())).containsExactly(matchedRule);
+        assertThat(fireResult.getRules(fireResult.getFailed())).containsExactly(failingRule);
+        assertThat(fireResult.getResult()).isFalse();
+        assertThat(fireResult.getEvaluationNanos(0)).isZero();
+    }
+
+    @Test
+    public void setsReturnedByAFireResultShouldNotModifyIt() {
+        // Given
+        FireResult fireResult = new DefaultRulesEngine().fire(rules, facts, new FireResult());
+
+        // When
+        fireResult.getMatched().clear();
+        fireResult.getExecuted().set(1);
+
+        // Then
+        assertThat(fireResult.isMatched(0)).isTrue();
+        assertThat(fireResult.isMatched(2)).isTrue();
+        assertThat(fireResult.isExecuted(1)).isFalse();
+        assertThat(fireResult.getRules(fireResult.getExecuted())).containsExactly(matchedRule);
+    }
+
+    @Test
+    public void fireResultShouldBeResetWhenReused() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine(new RulesEngineParameters().skipOnFirstAppliedRule(true));
+        FireResult fireResult = new FireResult();
+        rulesEngine.fire(rules, facts, fireResult);
+
+        // When
+        rulesEngine.fire(new Rules(notMatchedRule), facts, fireResult);
+
+        // Then
+        assertThat(fireResult.size()).isEqualTo(1);
+        assertThat(fireResult.getRules(fireResult.getEvaluated())).containsExactly(notMatchedRule);
+        assertThat(fireResult.getMatched().isEmpty()).isTrue();
+        assertThat(fireResult.getExecuted().isEmpty()).isTrue();
+        assertThat(fireResult.getResult()).isFalse();
+    }
+
+    @Test
+    public void whenTimingsAreEnabled_thenEvaluationAndExecutionTimesShouldBeRecorded() {
+        // Given
+        Rule slowRule = new RuleBuilder()
+                .when(facts -> true)
+                .then(facts -> Thread.sleep(5))
+                .build();
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+
+        // When
+        FireResult fireResult = rulesEngine.fire(new Rules(slowRule), facts, new FireResult(true));
+
+        // Then
+        assertThat(fireResult.getEvaluationNanos(0)).isPositive();
+        assertThat(fireResult.getExecutionNanos(0)).isGreaterThanOrEqualTo(5_000_000L);
+    }
+}
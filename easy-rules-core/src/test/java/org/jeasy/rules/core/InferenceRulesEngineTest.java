@@ -34,6 +34,13 @@ import org.jeasy.rules.api.RulesEngine;
 import org.jeasy.rules.api.RulesEngineListener;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class InferenceRulesEngineTest {
@@ -121,6 +128,174 @@ public class InferenceRulesEngineTest {
         assertThat(rule.isExecuted()).isTrue();
     }
 
+    @Test
+    public void rulesShouldBeChainedThroughFacts() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("a", 1);
+        org.jeasy.rules.api.Rule first = new RuleBuilder().name("first").priority(2).readFacts("a")
+                .when(f -> f.get("a") != null)
+                .then(f -> f.put("b", (Integer) f.get("a") + 1))
+                .build();
+        org.jeasy.rules.api.Rule second = new RuleBuilder().name("second").priority(1).readFacts("b")
+                .when(f -> f.get("b") != null)
+                .then(f -> f.put("c", (Integer) f.get("b") + 1))
+                .build();
+        RulesEngine rulesEngine = new InferenceRulesEngine();
+
+        // When
+        Boolean result = rulesEngine.fire(new Rules(first, second), facts);
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat((Integer) facts.get("c")).isEqualTo(3);
+    }
+
+    @Test
+    public void anActivationShouldBeFiredOnlyOnceUntilItsFactsChange() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("counter", 0);
+        AtomicInteger executions = new AtomicInteger();
+        org.jeasy.rules.api.Rule rule = new RuleBuilder().name("rule").readFacts("counter")
+                .when(f -> true)
+                .then(f -> executions.incrementAndGet())
+                .build();
+        RulesEngine rulesEngine = new InferenceRulesEngine();
+
+        // When
+        rulesEngine.fire(new Rules(rule), facts);
+
+        // Then
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void onlyRulesDependingOnChangedFactsShouldBeEvaluatedAgain() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("counter", 0);
+        AtomicInteger unrelatedEvaluations = new AtomicInteger();
+        org.jeasy.rules.api.Rule counting = new RuleBuilder().name("counting").priority(1).readFacts("counter")
+                .when(f -> (Integer) f.get("counter") < 10)
+                .then(f -> f.put("counter", (Integer) f.get("counter") + 1))
+                .build();
+        org.jeasy.rules.api.Rule unrelated = new RuleBuilder().name("unrelated").priority(2).readFacts("other")
+                .when(f -> {
+                    unrelatedEvaluations.incrementAndGet();
+                    return false;
+                })
+                .build();
+        RulesEngine rulesEngine = new InferenceRulesEngine();
+
+        // When
+        rulesEngine.fire(new Rules(counting, unrelated), facts);
+
+        // Then
+        assertThat((Integer) facts.get("counter")).isEqualTo(10);
+        assertThat(unrelatedEvaluations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenMaxCyclesIsReached_thenNextActivationsShouldBeSkipped() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("counter", 0);
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setMaxCycles(5);
+
+        // When
+        rulesEngine.fire(new Rules(incrementing("counter")), facts);
+
+        // Then
+        assertThat((Integer) facts.get("counter")).isEqualTo(5);
+    }
+
+    @Test
+    public void whenMaxFiringsPerRuleIsReached_thenNextActivationsShouldBeSkipped() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("counter", 0);
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setMaxFiringsPerRule(3);
+
+        // When
+        rulesEngine.fire(new Rules(incrementing("counter")), facts);
+
+        // Then
+        assertThat((Integer) facts.get("counter")).isEqualTo(3);
+    }
+
+    @Test
+    public void whenOscillationDetectionIsEnabled_thenOscillatingRulesShouldBeStopped() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("light", "off");
+        AtomicInteger firings = new AtomicInteger();
+        org.jeasy.rules.api.Rule switchOn = new RuleBuilder().name("switchOn").priority(1).readFacts("light")
+                .when(f -> f.get("light").equals("off"))
+                .then(f -> f.put("light", "on"))
+                .then(f -> firings.incrementAndGet())
+                .build();
+        org.jeasy.rules.api.Rule switchOff = new RuleBuilder().name("switchOff").priority(2).readFacts("light")
+                .when(f -> f.get("light").equals("on"))
+                .then(f -> f.put("light", "off"))
+                .then(f -> firings.incrementAndGet())
+                .build();
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setOscillationDetection(true);
+
+        // When
+        rulesEngine.fire(new Rules(switchOn, switchOff), facts);
+
+        // Then
+        assertThat(firings.get()).isEqualTo(2);
+        assertThat((String) facts.get("light")).isEqualTo("off");
+    }
+
+    @Test
+    public void whenAMatchingPoolIsSet_thenConditionsShouldBeEvaluatedInParallelAndRulesFiredInOrder() {
+        // Given
+        Facts facts = new Facts();
+        facts.put("threshold", 250);
+        List<Integer> executions = new ArrayList<>();
+        Set<String> evaluatingThreads = ConcurrentHashMap.newKeySet();
+        Rules rules = new Rules();
+        for (int i = 0; i < 500; i++) {
+            int index = i;
+            rules.register(new RuleBuilder().name("rule" + i).priority(i).readFacts("threshold")
+                    .when(f -> {
+                        evaluatingThreads.add(Thread.currentThread().getName());
+                        return index % 2 == 0 && index < (Integer) f.get("threshold");
+                    })
+                    .then(f -> executions.add(index))
+                    .build());
+        }
+        ForkJoinPool matchingPool = new ForkJoinPool(4);
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setMatchingPool(matchingPool);
+        rulesEngine.setParallelMatchingThreshold(100);
+
+        // When
+        try {
+            rulesEngine.fire(rules, facts);
+        } finally {
+            matchingPool.shutdown();
+        }
+
+        // Then
+        assertThat(executions).hasSize(125);
+        assertThat(executions).isSorted();
+        assertThat(evaluatingThreads).doesNotContain(Thread.currentThread().getName());
+    }
+
+    private org.jeasy.rules.api.Rule incrementing(String factName) {
+        return new RuleBuilder().name("incrementing").readFacts(factName)
+                .when(f -> true)
+                .then(f -> f.put(factName, (Integer) f.get(factName) + 1))
+                .build();
+    }
+
     @Rule
 	static class DummyRule {
 
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InferenceSessionTest {
+
+    private Facts facts;
+    private Rule eligibility;
+    private Rule discount;
+
+    @Before
+    public void setup() {
+        facts = new Facts();
+        eligibility = new RuleBuilder().name("eligibility").priority(1).readFacts("amount")
+                .when(f -> (Integer) f.get("amount") > 100)
+                .then(f -> f.putLogical("eligibleForDiscount", true))
+                .build();
+        discount = new RuleBuilder().name("discount").priority(2).readFacts("eligibleForDiscount")
+                .when(f -> f.get("eligibleForDiscount") != null)
+                .then(f -> f.putLogical("discount", 10))
+                .build();
+    }
+
+    @Test
+    public void logicalFactsShouldBeRetractedWhenTheirJustificationNoLongerHolds() {
+        // Given
+        facts.put("amount", 150);
+        InferenceSession session = new InferenceRulesEngine().newSession(new Rules(eligibility, discount), facts);
+        session.fire();
+        assertThat((Boolean) facts.get("eligibleForDiscount")).isTrue();
+        assertThat((Integer) facts.get("discount")).isEqualTo(10);
+
+        // When
+        facts.put("amount", 50);
+        session.fire();
+
+        // Then
+        assertThat(facts.getFact("eligibleForDiscount")).isNull();
+        assertThat(facts.getFact("discount")).isNull();
+    }
+
+    @Test
+    public void subsequentFiresShouldOnlyEvaluateRulesDependingOnChangedFacts() {
+        // Given
+        AtomicInteger evaluations = new AtomicInteger();
+        Rule unrelated = new RuleBuilder().name("unrelated").priority(3).readFacts("other")
+                .when(f -> {
+                    evaluations.incrementAndGet();
+                    return false;
+                })
+                .build();
+        facts.put("amount", 150);
+        InferenceSession session = new InferenceRulesEngine().newSession(new Rules(eligibility, discount, unrelated), facts);
+        session.fire();
+
+        // When
+        facts.put("amount", 200);
+        session.fire();
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(1);
+        assertThat((Integer) facts.get("discount")).isEqualTo(10);
+    }
+
+    @Test
+    public void logicalFactsShouldBeRetractedWhenTheRuleIsFiredAgainWithoutAddingThem() {
+        // Given
+        Rule rule = new RuleBuilder().name("rule").readFacts("amount")
+                .when(f -> true)
+                .then(f -> {
+                    if ((Integer) f.get("amount") > 100) {
+                        f.putLogical("large", true);
+                    }
+                })
+                .build();
+        facts.put("amount", 150);
+        InferenceSession session = new InferenceRulesEngine().newSession(new Rules(rule), facts);
+        session.fire();
+        assertThat(facts.getFact("large")).isNotNull();
+
+        // When
+        facts.put("amount", 50);
+        session.fire();
+
+        // Then
+        assertThat(facts.getFact("large")).isNull();
+    }
+
+    @Test
+    public void replacedLogicalFactsShouldNotBeRetracted() {
+        // Given
+        facts.put("amount", 150);
+        InferenceSession session = new InferenceRulesEngine().newSession(new Rules(eligibility), facts);
+        session.fire();
+
+        // When
+        facts.put("eligibleForDiscount", false);
+        facts.put("amount", 50);
+        session.fire();
+
+        // Then
+        assertThat((Boolean) facts.get("eligibleForDiscount")).isFalse();
+    }
+
+    @Test
+    public void onlyFactsAddedLogicallyWhileARuleIsFiredShouldBeRecorded() {
+        // Given
+        Facts otherFacts = new Facts();
+        facts.putLogical("before", true);
+
+        // When
+        LogicalInsertions.Recording recording = LogicalInsertions.start(facts);
+        facts.putLogical("during", true);
+        facts.put("regular", true);
+        otherFacts.putLogical("other", true);
+        Set<String> insertions = LogicalInsertions.stop(recording);
+        facts.putLogical("after", true);
+
+        // Then
+        assertThat(insertions).containsExactly("during");
+        assertThat((Boolean) facts.get("after")).isTrue();
+    }
+}
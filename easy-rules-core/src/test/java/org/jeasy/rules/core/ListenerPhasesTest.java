@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ListenerPhasesTest {
+
+    @Test
+    public void capabilitiesShouldReflectOverriddenCallbacks() {
+        assertThat(ListenerPhases.capabilitiesOf(SuccessListener.class)).isEqualTo(ListenerPhases.ON_SUCCESS);
+        assertThat(ListenerPhases.capabilitiesOf(InheritedSuccessListener.class)).isEqualTo(ListenerPhases.ON_SUCCESS);
+        assertThat(ListenerPhases.capabilitiesOf(VetoingListener.class))
+                .isEqualTo(ListenerPhases.BEFORE_EVALUATE | ListenerPhases.AFTER_RULES_EXECUTE);
+        assertThat(ListenerPhases.capabilitiesOf(RuleListener.class)).isZero();
+    }
+
+    @Test
+    public void listenersShouldOnlyBeDispatchedToPhasesTheyOverride() {
+        // Given
+        SuccessListener successListener = new SuccessListener();
+        VetoingListener vetoingListener = new VetoingListener();
+
+        // When
+        ListenerPhases phases = new ListenerPhases(
+                Arrays.asList(successListener, vetoingListener, new RuleListener() { }),
+                Collections.singletonList(vetoingListener));
+
+        // Then
+        assertThat(phases.onSuccess).containsExactly(successListener);
+        assertThat(phases.beforeEvaluate).containsExactly(vetoingListener);
+        assertThat(phases.afterEvaluate).isEmpty();
+        assertThat(phases.beforeExecute).isEmpty();
+        assertThat(phases.beforeRulesEvaluate).isEmpty();
+        assertThat(phases.afterRulesExecute).containsExactly(vetoingListener);
+    }
+
+    @Test
+    public void registeredListenersShouldBeNotifiedOfTheCallbacksTheyOverride() {
+        // Given
+        List<String> events = new ArrayList<>();
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(new RuleListener() {
+            @Override
+            public void onSuccess(Rule rule, Facts facts) {
+                events.add("success:" + rule.getName());
+            }
+        });
+        rulesEngine.registerRuleListener(new RuleListener() {
+            @Override
+            public boolean beforeEvaluate(Rule rule, Facts facts) {
+                return !rule.getName().equals("vetoed");
+            }
+        });
+        Rule rule = new RuleBuilder().name("rule").when(facts -> true).build();
+        Rule vetoed = new RuleBuilder().name("vetoed").when(facts -> true).build();
+
+        // When
+        rulesEngine.fire(new Rules(rule, vetoed), new Facts());
+
+        // Then
+        assertThat(events).containsExactly("success:rule");
+    }
+
+    static class SuccessListener implements RuleListener {
+        @Override
+        public void onSuccess(Rule rule, Facts facts) {
+        }
+    }
+
+    static class InheritedSuccessListener extends SuccessListener {
+    }
+
+    static class VetoingListener implements RuleListener, RulesEngineListener {
+        @Override
+        public boolean beforeEvaluate(Rule rule, Facts facts) {
+            return false;
+        }
+
+        @Override
+        public void afterExecute(Rules rules, Facts facts) {
+        }
+    }
+}
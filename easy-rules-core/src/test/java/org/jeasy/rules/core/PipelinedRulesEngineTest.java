@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PipelinedRulesEngineTest {
+
+    private ExecutorService actionExecutor;
+    private List<String> executions;
+
+    @Before
+    public void setup() {
+        actionExecutor = Executors.newFixedThreadPool(4);
+        executions = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        actionExecutor.shutdownNow();
+    }
+
+    @Test
+    public void fireAsyncShouldReturnBeforeActionsAreExecuted() throws Exception {
+        // Given
+        CountDownLatch latch = new CountDownLatch(1);
+        Rule slowRule = new RuleBuilder()
+                .name("slow")
+                .when(facts -> true)
+                .then(facts -> latch.await())
+                .then(facts -> executions.add("slow"))
+                .build();
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(actionExecutor);
+
+        // When
+        CompletableFuture<Boolean> result = rulesEngine.fireAsync(new Rules(slowRule), new Facts());
+
+        // Then
+        assertThat(result).isNotDone();
+        assertThat(executions).isEmpty();
+        latch.countDown();
+        assertThat(result.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(executions).containsExactly("slow");
+    }
+
+    @Test
+    public void actionsOnTheSameFactsShouldBeExecutedInOrder() throws Exception {
+        // Given
+        Facts facts = new Facts();
+        Rules rules = new Rules(
+                recordingRule("r1", 1, 20),
+                recordingRule("r2", 2, 0),
+                recordingRule("r3", 3, 10));
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(actionExecutor);
+
+        // When
+        CompletableFuture<Boolean> first = rulesEngine.fireAsync(rules, facts);
+        CompletableFuture<Boolean> second = rulesEngine.fireAsync(rules, facts);
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(executions).containsExactly("r1", "r2", "r3", "r1", "r2", "r3");
+    }
+
+    @Test
+    public void fireAsyncShouldNotEvaluateRulesWhileActionsOnTheSameFactsArePending() throws Exception {
+        // Given
+        Facts facts = new Facts();
+        facts.put("count", 0);
+        List<Integer> evaluatedCounts = new CopyOnWriteArrayList<>();
+        Rule rule = new RuleBuilder()
+                .name("increment")
+                .when(f -> evaluatedCounts.add(f.get("count")))
+                .then(f -> {
+                    Thread.sleep(50);
+                    f.put("count", (Integer) f.get("count") + 1);
+                })
+                .build();
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(actionExecutor);
+
+        // When
+        CompletableFuture<Boolean> first = rulesEngine.fireAsync(new Rules(rule), facts);
+        CompletableFuture<Boolean> second = rulesEngine.fireAsync(new Rules(rule), facts);
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(evaluatedCounts).containsExactly(0, 1);
+        assertThat((Integer) facts.get("count")).isEqualTo(2);
+    }
+
+    @Test
+    public void fireShouldWaitForActionsToBeExecuted() {
+        // Given
+        Rules rules = new Rules(recordingRule("r1", 1, 10), recordingRule("r2", 2, 0));
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(actionExecutor);
+
+        // When
+        rulesEngine.fire(rules, new Facts());
+
+        // Then
+        assertThat(executions).containsExactly("r1", "r2");
+    }
+
+    @Test
+    public void whenSkipOnFirstAppliedRuleIsSet_thenOnlyTheFirstMatchedRuleShouldBeExecuted() {
+        // Given
+        RulesEngineParameters parameters = new RulesEngineParameters().skipOnFirstAppliedRule(true);
+        Rules rules = new Rules(recordingRule("r1", 1, 0), recordingRule("r2", 2, 0));
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(parameters, actionExecutor);
+
+        // When
+        Boolean result = rulesEngine.fire(rules, new Facts());
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(executions).containsExactly("r1");
+    }
+
+    private Rule recordingRule(String name, int priority, long delay) {
+        return new RuleBuilder()
+                .name(name)
+                .priority(priority)
+                .when(facts -> true)
+                .then(facts -> {
+                    Thread.sleep(delay);
+                    executions.add(name);
+                })
+                .build();
+    }
+}
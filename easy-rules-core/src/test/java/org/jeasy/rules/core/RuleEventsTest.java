@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Rule;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rules;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleEventsTest {
+
+    @Test
+    public void eventsShouldOnlyBeRecordedWhileARecordingIsRunning() throws Exception {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        Rules rules = new Rules(new RuleBuilder().name("matching").priority(1).when(facts -> true).then(facts -> { }).build());
+        org.jeasy.rules.api.Rule missingFactRule = RuleProxy.asRule(new MissingFactRule());
+        Path file = Files.createTempFile("easy-rules", ".jfr");
+
+        // When
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("org.jeasy.rules.RuleEvaluated");
+            recording.enable("org.jeasy.rules.RuleExecuted");
+            recording.enable("org.jeasy.rules.RulesFired");
+            recording.enable("org.jeasy.rules.FactMissing");
+            recording.start();
+            assertThat(RuleEvents.isRecording()).isTrue();
+            rulesEngine.fire(rules, new Facts());
+            missingFactRule.evaluate(new Facts());
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // Then
+        assertThat(RuleEvents.isRecording()).isFalse();
+        List<String> names = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList());
+        assertThat(names).containsOnly("org.jeasy.rules.RuleEvaluated", "org.jeasy.rules.RuleExecuted",
+                "org.jeasy.rules.RulesFired", "org.jeasy.rules.FactMissing");
+        RecordedEvent executed = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.jeasy.rules.RuleExecuted"))
+                .findFirst().get();
+        assertThat(executed.getString("ruleName")).isEqualTo("matching");
+        assertThat(executed.getInt("priority")).isEqualTo(1);
+        assertThat(executed.getBoolean("success")).isTrue();
+        RecordedEvent factMissing = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.jeasy.rules.FactMissing"))
+                .findFirst().get();
+        assertThat(factMissing.getString("ruleName")).isEqualTo("missing");
+        assertThat(factMissing.getString("factName")).isEqualTo("fact");
+        assertThat(factMissing.getBoolean("inCondition")).isTrue();
+    }
+
+    @Rule(name = "missing")
+    public static class MissingFactRule {
+
+        @Condition
+        public boolean when(@Fact("fact") String fact) {
+            return true;
+        }
+
+        @Action
+        public void then() {
+        }
+    }
+}
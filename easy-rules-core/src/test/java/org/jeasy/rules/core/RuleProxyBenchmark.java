@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Priority;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the cost of calling an annotated rule adapted by {@link RuleProxy} with the
+ * cost of calling it through a JDK dynamic proxy dispatching on method names, as
+ * {@link RuleProxy} used to do. The dynamic proxy resolves annotated methods and the
+ * names of their facts once, and invokes methods with {@link Method#invoke}.
+ * <p>
+ * This is not a test, run it with: {@code java org.jeasy.rules.core.RuleProxyBenchmark [iterations]}
+ */
+public class RuleProxyBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Facts facts = new Facts();
+        facts.put("age", 20);
+        Rule adapter = RuleProxy.asRule(new AdultRule());
+        Rule proxy = reflectiveProxy(new AdultRule());
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("round %d: adapter %d ns/op, reflective proxy %d ns/op%n",
+                    round, measure(adapter, facts, iterations), measure(proxy, facts, iterations));
+        }
+    }
+
+    private static long measure(Rule rule, Facts facts, int iterations) throws Exception {
+        int matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (rule.evaluate(facts) && rule.getPriority() == 1 && rule.getName() != null) {
+                matches++;
+            }
+        }
+        rule.execute(facts);
+        long elapsed = System.nanoTime() - start;
+        if (matches != iterations) {
+            throw new IllegalStateException("Unexpected number of matches: " + matches);
+        }
+        return elapsed / iterations;
+    }
+
+    private static Rule reflectiveProxy(Object target) {
+        String name = target.getClass().getSimpleName();
+        Method priorityMethod = annotatedMethod(target, Priority.class);
+        Method conditionMethod = annotatedMethod(target, Condition.class);
+        Method actionMethod = annotatedMethod(target, Action.class);
+        String[] conditionFacts = factNames(conditionMethod);
+        String[] actionFacts = factNames(actionMethod);
+        return (Rule) Proxy.newProxyInstance(Rule.class.getClassLoader(), new Class[]{Rule.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return name;
+                case "getPriority":
+                    return priorityMethod.invoke(target);
+                case "evaluate":
+                    return conditionMethod.invoke(target, actualParameters(conditionFacts, (Facts) args[0]));
+                case "execute":
+                    return actionMethod.invoke(target, actualParameters(actionFacts, (Facts) args[0]));
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Method annotatedMethod(Object target, Class<? extends Annotation> annotation) {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.isAnnotationPresent(annotation)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No method annotated with " + annotation.getName());
+    }
+
+    private static String[] factNames(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        String[] factNames = new String[parameterAnnotations.length];
+        for (int i = 0; i < factNames.length; i++) {
+            factNames[i] = ((Fact) parameterAnnotations[i][0]).value();
+        }
+        return factNames;
+    }
+
+    private static Object[] actualParameters(String[] factNames, Facts facts) {
+        List<Object> actualParameters = new ArrayList<>(factNames.length);
+        for (String factName : factNames) {
+            actualParameters.add(facts.get(factName));
+        }
+        return actualParameters.toArray();
+    }
+
+    @org.jeasy.rules.annotation.Rule
+    public static class AdultRule {
+
+        @Condition
+        public boolean isAdult(@Fact("age") int age) {
+            return age >= 18;
+        }
+
+        @Action
+        public void then(@Fact("age") int age) {
+        }
+
+        @Priority
+        public int getPriority() {
+            return 1;
+        }
+    }
+}
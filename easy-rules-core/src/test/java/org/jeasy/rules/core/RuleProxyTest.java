@@ -26,15 +26,25 @@ package org.jeasy.rules.core;
 import org.jeasy.rules.annotation.Action;
 import org.jeasy.rules.annotation.AnnotatedRuleWithMetaRuleAnnotation;
 import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
 import org.jeasy.rules.annotation.Priority;
+import org.jeasy.rules.api.Facts;
 import org.jeasy.rules.api.Rule;
 import org.jeasy.rules.api.Rules;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class RuleProxyTest {
 
@@ -183,6 +193,67 @@ public class RuleProxyTest {
         }
     }
 
+    @Test
+    public void comparableRulesShouldBeComparedByPriorityAndNameToRulesOfOtherClasses() {
+
+        @org.jeasy.rules.annotation.Rule(name = "comparable")
+        class MyComparableRule implements Comparable<MyComparableRule> {
+
+            @Condition
+            public boolean when() { return true; }
+
+            @Action
+            public void then() { }
+
+            @Override
+            public int compareTo(MyComparableRule otherRule) {
+                return 0;
+            }
+        }
+
+        // Given
+        Rule comparableRule = RuleProxy.asRule(new MyComparableRule());
+        Rule dummyRule = RuleProxy.asRule(new DummyRule());
+
+        // When
+        int comparison = comparableRule.compareTo(dummyRule);
+
+        // Then
+        assertEquals("comparable".compareTo("DummyRule") > 0, comparison > 0);
+        Rules rules = new Rules(new MyComparableRule(), new DummyRule());
+        assertEquals(2, rules.size());
+    }
+
+    @Test
+    public void actionsHavingTheSameOrderShouldBeExecutedInSignatureOrder() throws Exception {
+
+        @org.jeasy.rules.annotation.Rule
+        class MyRule {
+            private final List<String> executedActions = new ArrayList<>();
+
+            @Condition
+            public boolean when() { return true; }
+
+            @Action
+            public void b() { executedActions.add("b"); }
+
+            @Action
+            public void a(Facts facts) { executedActions.add("a(Facts)"); }
+
+            @Action
+            public void a() { executedActions.add("a()"); }
+        }
+
+        // Given
+        MyRule myRule = new MyRule();
+
+        // When
+        RuleProxy.asRule(myRule).execute(new Facts());
+
+        // Then
+        assertEquals(Arrays.asList("a()", "a(Facts)", "b"), myRule.executedActions);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testCompareToWithIncorrectSignature() {
 
@@ -279,6 +350,101 @@ public class RuleProxyTest {
         assertEquals(Rule.DEFAULT_PRIORITY, proxy.getPriority());
     }
 
+    @Test
+    public void metadataShouldBeSharedByAllInstancesOfARuleClass() {
+
+        @org.jeasy.rules.annotation.Rule(name = "discount")
+        class MyRule {
+            private final int priority;
+
+            MyRule(int priority) {
+                this.priority = priority;
+            }
+
+            @Condition
+            public boolean when() { return true; }
+
+            @Action
+            public void then() { }
+
+            @Priority
+            public int getPriority() { return priority; }
+        }
+
+        // Given
+        RuleDefinitionValidator spiedValidator = spy(new RuleDefinitionValidator());
+        RuleMetadata.Registry registry = new RuleMetadata.Registry(spiedValidator);
+
+        // When
+        Rule proxy1 = RuleProxy.asRule(new MyRule(1));
+        Rule proxy2 = RuleProxy.asRule(new MyRule(2));
+        RuleMetadata metadata1 = registry.get(MyRule.class);
+        RuleMetadata metadata2 = registry.get(MyRule.class);
+
+        // Then
+        verify(spiedValidator, times(1)).validateRuleDefinition(MyRule.class);
+        assertSame(metadata1, metadata2);
+        assertSame(((RuleProxy) proxy1).getMetadata(), ((RuleProxy) proxy2).getMetadata());
+        assertSame(RuleMetadata.of(MyRule.class), ((RuleProxy) proxy1).getMetadata());
+        assertEquals("discount", proxy1.getName());
+        assertEquals("discount", proxy2.getName());
+        assertEquals(1, proxy1.getPriority());
+        assertEquals(2, proxy2.getPriority());
+    }
+
+    @Test
+    public void rulesShouldBeInvokedWhetherTheirMethodsAreSpunOrNot() throws Exception {
+        // given
+        Facts facts = new Facts();
+        facts.put("a", 1);
+        facts.put("b", 2);
+        facts.put("c", 3);
+        facts.put("d", 4);
+        PublicRule publicRule = new PublicRule();
+        WideRule wideRule = new WideRule();
+        Rule spunRule = RuleProxy.asRule(publicRule);
+        Rule wideProxy = RuleProxy.asRule(wideRule);
+
+        // when
+        boolean spunRuleEvaluation = spunRule.evaluate(facts);
+        spunRule.execute(facts);
+        boolean wideRuleEvaluation = wideProxy.evaluate(facts);
+        wideProxy.execute(facts);
+
+        // then
+        assertEquals(true, spunRuleEvaluation);
+        assertEquals(3, publicRule.sum);
+        assertEquals(5, spunRule.getPriority());
+        assertEquals(true, wideRuleEvaluation);
+        assertEquals(10, wideRule.sum);
+    }
+
+    @org.jeasy.rules.annotation.Rule
+    public static class PublicRule {
+        int sum;
+
+        @Condition
+        public boolean when(@Fact("a") int a, @Fact("b") Integer b) { return a < b; }
+
+        @Action
+        public void then(@Fact("a") int a, @Fact("b") int b) { sum = a + b; }
+
+        @Priority
+        public int getPriority() { return 5; }
+    }
+
+    // more facts than spun classes take, invoked through a method handle
+    @org.jeasy.rules.annotation.Rule
+    public static class WideRule {
+        int sum;
+
+        @Condition
+        public boolean when(@Fact("a") int a, @Fact("b") int b, @Fact("c") int c, @Fact("d") int d) { return a < d; }
+
+        @Action
+        public void then(@Fact("a") int a, @Fact("b") int b, @Fact("c") int c, @Fact("d") int d) { sum = a + b + c + d; }
+    }
+
     @org.jeasy.rules.annotation.Rule
 	static class DummyRule {
         @Condition
@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void rulesShouldBeLimitedToOneSecondWorthOfExecutionsUntilTheBucketRefills() {
+        // Given
+        RuleRateLimiter rateLimiter = new RuleRateLimiter(clock::get);
+        Rule rule = new RuleBuilder().name("rule").rateLimit(1).build();
+
+        // When
+        boolean first = rateLimiter.tryAcquire(rule);
+        boolean second = rateLimiter.tryAcquire(rule);
+        clock.addAndGet(999_999_999L);
+        boolean beforeRefill = rateLimiter.tryAcquire(rule);
+        clock.addAndGet(1L);
+        boolean afterRefill = rateLimiter.tryAcquire(rule);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(beforeRefill).isFalse();
+        assertThat(afterRefill).isTrue();
+    }
+
+    @Test
+    public void rulesWithoutRateLimitShouldNeverBeLimited() {
+        // Given
+        RuleRateLimiter rateLimiter = new RuleRateLimiter(clock::get);
+        Rule rule = new RuleBuilder().name("rule").build();
+
+        // When
+        int acquired = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (rateLimiter.tryAcquire(rule)) {
+                acquired++;
+            }
+        }
+
+        // Then
+        assertThat(rule.getRateLimit()).isEqualTo(Rule.NO_RATE_LIMIT);
+        assertThat(acquired).isEqualTo(10_000);
+    }
+
+    @Test
+    public void rateLimitShouldHoldAcrossStripesUnderConcurrency() throws Exception {
+        // Given
+        RuleRateLimiter rateLimiter = new RuleRateLimiter(clock::get);
+        Rule rule = new RuleBuilder().name("rule").rateLimit(1000).build();
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++) {
+                    if (rateLimiter.tryAcquire(rule)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        // When
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(acquired.get()).isEqualTo(1000);
+    }
+
+    @Test
+    public void changingTheRateLimitOfARuleShouldRefillItsBucket() {
+        // Given
+        RuleRateLimiter rateLimiter = new RuleRateLimiter(clock::get);
+        Rule slow = new RuleBuilder().name("rule").rateLimit(1).build();
+        Rule fast = new RuleBuilder().name("rule").rateLimit(2).build();
+        rateLimiter.tryAcquire(slow);
+
+        // When
+        boolean first = rateLimiter.tryAcquire(fast);
+        boolean second = rateLimiter.tryAcquire(fast);
+        boolean third = rateLimiter.tryAcquire(fast);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+    }
+
+    @Test
+    public void rulesOverTheirRateLimitShouldNotBeSampledAndBeReportedToListeners() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        Rule rule = new RuleBuilder().name("rule").rateLimit(2)
+                .when(facts -> true).then(facts -> executions.incrementAndGet()).build();
+        Rules rules = new Rules(rule);
+        List<Boolean> sampled = new ArrayList<>();
+        List<String> rateLimited = new ArrayList<>();
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setRuleRateLimiter(new RuleRateLimiter(clock::get));
+        rulesEngine.registerRuleListener(new RuleListener() {
+            @Override
+            public void afterEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+                sampled.add(randomResult);
+            }
+
+            @Override
+            public void onRateLimited(Rule rule, Facts facts) {
+                rateLimited.add(rule.getName());
+            }
+        });
+
+        // When
+        rulesEngine.fire(rules, new Facts());
+        rulesEngine.fire(rules, new Facts());
+        FireResult fireResult = rulesEngine.fire(rules, new Facts(), new FireResult());
+
+        // Then
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(sampled).containsExactly(true, true, false);
+        assertThat(rateLimited).containsExactly("rule");
+        assertThat(fireResult.getMatched().get(0)).isTrue();
+        assertThat(fireResult.getSampled().get(0)).isFalse();
+        assertThat(fireResult.getExecuted().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void inferenceEngineShouldOnlyTakeTokensForActivationsAboutToFire() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        Rule limited = new RuleBuilder().name("limited").priority(2).rateLimit(1)
+                .when(facts -> facts.get("x") != null)
+                .then(facts -> {
+                    executions.incrementAndGet();
+                    facts.remove("x");
+                })
+                .build();
+        Rule cancelling = new RuleBuilder().name("cancelling").priority(1)
+                .when(facts -> facts.get("x") != null && facts.get("cancelled") == null)
+                .then(facts -> {
+                    facts.remove("x");
+                    facts.put("cancelled", true);
+                })
+                .build();
+        Rules rules = new Rules(limited, cancelling);
+        List<String> rateLimited = new ArrayList<>();
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setRuleRateLimiter(new RuleRateLimiter(clock::get));
+        rulesEngine.registerRuleListener(new RuleListener() {
+            @Override
+            public void onRateLimited(Rule rule, Facts facts) {
+                rateLimited.add(rule.getName());
+            }
+        });
+
+        // When
+        rulesEngine.fire(rules, factsWith("x"));
+        rulesEngine.fire(rules, factsWith("x", "cancelled"));
+        rulesEngine.fire(rules, factsWith("x", "cancelled"));
+
+        // Then
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(rateLimited).containsExactly("limited");
+    }
+
+    private static Facts factsWith(String... names) {
+        Facts facts = new Facts();
+        for (String name : names) {
+            facts.put(name, true);
+        }
+        return facts;
+    }
+
+    @Test
+    public void rateLimitShouldBeDeclaredWithTheRuleAnnotation() {
+        // Given
+        Rule rule = RuleProxy.asRule(new RateLimitedRule());
+
+        // When
+        double rateLimit = rule.getRateLimit();
+
+        // Then
+        assertThat(rateLimit).isEqualTo(10d);
+    }
+
+    @org.jeasy.rules.annotation.Rule(name = "rate limited", rateLimit = 10)
+    public static class RateLimitedRule {
+
+        @Condition
+        public boolean when() {
+            return true;
+        }
+
+        @Action
+        public void then() {
+        }
+    }
+}
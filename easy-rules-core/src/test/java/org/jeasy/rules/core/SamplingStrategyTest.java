@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.core;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplingStrategyTest {
+
+    @Test
+    public void rulesShouldBeSelectedWithoutDrawAtThresholdsOneAndZero() {
+        // Given
+        Rule always = new RuleBuilder().name("always").threshold(1.0).build();
+        Rule never = new RuleBuilder().name("never").threshold(0.0).build();
+        Facts facts = new Facts();
+
+        for (SamplingStrategy strategy : new SamplingStrategy[] {SamplingStrategy.threadLocalRandom(), SamplingStrategy.factHash("userId")}) {
+            for (int i = 0; i < 1000; i++) {
+                // When
+                boolean alwaysSampled = strategy.sample(always, facts);
+                boolean neverSampled = strategy.sample(never, facts);
+
+                // Then
+                assertThat(alwaysSampled).isTrue();
+                assertThat(neverSampled).isFalse();
+            }
+        }
+    }
+
+    @Test
+    public void threadLocalRandomShouldSelectRulesAccordingToTheirThreshold() {
+        // Given
+        Rule rule = new RuleBuilder().name("rule").threshold(0.3).build();
+        SamplingStrategy strategy = SamplingStrategy.threadLocalRandom();
+
+        // When
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (strategy.sample(rule, new Facts())) {
+                sampled++;
+            }
+        }
+
+        // Then
+        assertThat(sampled).isBetween(2500, 3500);
+    }
+
+    @Test
+    public void factHashShouldConsistentlySelectTheSameUsers() {
+        // Given
+        Rule rule = new RuleBuilder().name("rule").threshold(0.3).build();
+        SamplingStrategy strategy = SamplingStrategy.factHash("userId");
+
+        // When
+        int sampled = 0;
+        for (int user = 0; user < 10_000; user++) {
+            Facts facts = new Facts();
+            facts.put("userId", "user-" + user);
+            boolean first = strategy.sample(rule, facts);
+            boolean second = strategy.sample(rule, facts);
+
+            // Then
+            assertThat(second).isEqualTo(first);
+            if (first) {
+                sampled++;
+            }
+        }
+        assertThat(sampled).isBetween(2500, 3500);
+    }
+
+    @Test
+    public void samplingDecisionOfTheConfiguredStrategyShouldBeReportedInFireResult() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        Rule selected = new RuleBuilder().name("selected").priority(1).threshold(0.5)
+                .when(facts -> true).then(facts -> executions.incrementAndGet()).build();
+        Rule rejected = new RuleBuilder().name("rejected").priority(2).threshold(0.5)
+                .when(facts -> true).then(facts -> executions.incrementAndGet()).build();
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setSamplingStrategy((rule, facts) -> rule.getName().equals("selected"));
+
+        // When
+        FireResult fireResult = rulesEngine.fire(new Rules(selected, rejected), new Facts(), new FireResult());
+
+        // Then
+        assertThat(fireResult.getRules(fireResult.getMatched())).containsExactly(selected, rejected);
+        assertThat(fireResult.getRules(fireResult.getSampled())).containsExactly(selected);
+        assertThat(fireResult.getRules(fireResult.getExecuted())).containsExactly(selected);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.tracing;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.jeasy.rules.core.InferenceRulesEngine;
+import org.jeasy.rules.core.PipelinedRulesEngine;
+import org.jeasy.rules.core.RuleBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleTracerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private InMemorySpanExporter exporter;
+    private AtomicReference<SpanContext> actionContext;
+    private Rules rules;
+
+    @Before
+    public void setUp() {
+        exporter = new InMemorySpanExporter();
+        actionContext = new AtomicReference<>();
+        rules = new Rules(new RuleBuilder()
+                .name("rule")
+                .when(facts -> true)
+                .then(facts -> actionContext.set(SpanContext.current()))
+                .build());
+    }
+
+    @Test
+    public void fireShouldBeTracedAsAChildOfTheCurrentContext() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setRuleTracer(new RuleTracer(exporter, Sampler.alwaysOn(), 0));
+        SpanContext parent = SpanContext.of("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", true);
+
+        // When
+        try (Scope scope = parent.makeCurrent()) {
+            rulesEngine.fire(rules, new Facts());
+        }
+
+        // Then
+        List<Span> spans = exporter.getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly(Span.EVALUATE, Span.EXECUTE, Span.FIRE);
+        Span fire = spans.get(2);
+        assertThat(fire.getTraceId()).isEqualTo(parent.getTraceId());
+        assertThat(fire.getParentSpanId()).isEqualTo(parent.getSpanId());
+        assertThat(fire.getAttributes()).containsEntry("rules.engine", "DefaultRulesEngine")
+                .containsEntry("rules.count", 1).containsEntry("rules.result", false);
+        for (Span rule : spans.subList(0, 2)) {
+            assertThat(rule.getTraceId()).isEqualTo(parent.getTraceId());
+            assertThat(rule.getParentSpanId()).isEqualTo(fire.getSpanId());
+            assertThat(rule.getAttributes()).containsEntry("rule.name", "rule");
+            assertThat(rule.getStartEpochNanos()).isGreaterThanOrEqualTo(fire.getStartEpochNanos());
+        }
+        assertThat(actionContext.get()).isEqualTo(fire.getContext());
+        assertThat(SpanContext.current()).isNull();
+    }
+
+    @Test
+    public void rulesFasterThanTheThresholdShouldNotBeTraced() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setRuleTracer(new RuleTracer(exporter, Sampler.alwaysOn(), 60_000_000_000L));
+
+        // When
+        rulesEngine.fire(rules, new Facts());
+
+        // Then
+        assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly(Span.FIRE);
+        assertThat(exporter.getSpans().get(0).getParentSpanId()).isNull();
+    }
+
+    @Test
+    public void firesNotSampledInShouldNotBeTraced() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setRuleTracer(new RuleTracer(exporter));
+        SpanContext notSampled = SpanContext.of("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", false);
+
+        // When
+        try (Scope scope = notSampled.makeCurrent()) {
+            rulesEngine.fire(rules, new Facts());
+        }
+        SpanContext unsampledActionContext = actionContext.get();
+        rulesEngine.setRuleTracer(new RuleTracer(exporter, Sampler.alwaysOff(), 0));
+        rulesEngine.fire(rules, new Facts());
+
+        // Then
+        assertThat(exporter.getSpans()).isEmpty();
+        assertThat(unsampledActionContext).isEqualTo(notSampled);
+        assertThat(actionContext.get()).isNull();
+    }
+
+    @Test
+    public void nestedFiresShouldBeChildrenOfTheEnclosingFire() {
+        // Given
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.setRuleTracer(new RuleTracer(exporter));
+        Rules outerRules = new Rules(new RuleBuilder()
+                .name("outer")
+                .when(facts -> true)
+                .then(facts -> rulesEngine.fire(rules, facts))
+                .build());
+
+        // When
+        rulesEngine.fire(outerRules, new Facts());
+
+        // Then
+        List<Span> spans = exporter.getSpans();
+        assertThat(spans).hasSize(2);
+        assertThat(spans.get(0).getParentSpanId()).isEqualTo(spans.get(1).getSpanId());
+        assertThat(spans.get(0).getTraceId()).isEqualTo(spans.get(1).getTraceId());
+    }
+
+    @Test
+    public void contextShouldBePropagatedToThePipelinedActionExecutor() throws Exception {
+        // Given
+        ExecutorService actionExecutor = Executors.newSingleThreadExecutor();
+        PipelinedRulesEngine rulesEngine = new PipelinedRulesEngine(actionExecutor);
+        rulesEngine.setRuleTracer(new RuleTracer(exporter, Sampler.alwaysOn(), 0));
+
+        // When
+        try {
+            rulesEngine.fireAsync(rules, new Facts()).get();
+        } finally {
+            actionExecutor.shutdown();
+        }
+
+        // Then
+        List<Span> spans = exporter.getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly(Span.EVALUATE, Span.EXECUTE, Span.FIRE);
+        assertThat(spans.get(2).getAttributes()).containsEntry("rules.engine", "PipelinedRulesEngine");
+        assertThat(actionContext.get()).isEqualTo(spans.get(2).getContext());
+    }
+
+    @Test
+    public void contextShouldBePropagatedToThreadsEvaluatingConditionsInParallel() {
+        // Given
+        Set<SpanContext> evaluationContexts = ConcurrentHashMap.newKeySet();
+        Rules manyRules = new Rules();
+        for (int i = 0; i < 8; i++) {
+            manyRules.register(new RuleBuilder().name("rule" + i).priority(i)
+                    .when(facts -> evaluationContexts.add(SpanContext.current()) && false)
+                    .build());
+        }
+        ForkJoinPool matchingPool = new ForkJoinPool(2);
+        InferenceRulesEngine rulesEngine = new InferenceRulesEngine();
+        rulesEngine.setMatchingPool(matchingPool);
+        rulesEngine.setParallelMatchingThreshold(2);
+        rulesEngine.setRuleTracer(new RuleTracer(exporter, Sampler.alwaysOn(), 0));
+
+        // When
+        try {
+            rulesEngine.fire(manyRules, new Facts());
+        } finally {
+            matchingPool.shutdown();
+        }
+
+        // Then
+        List<Span> spans = exporter.getSpans();
+        Span fire = spans.get(spans.size() - 1);
+        assertThat(fire.getName()).isEqualTo(Span.FIRE);
+        assertThat(evaluationContexts).containsExactly(fire.getContext());
+        assertThat(spans).filteredOn(span -> span.getName().equals(Span.EVALUATE)).hasSize(8)
+                .allMatch(span -> fire.getSpanId().equals(span.getParentSpanId()));
+    }
+
+    @Test
+    public void fileExporterShouldWriteOneJsonObjectPerSpan() throws Exception {
+        // Given
+        Path path = temporaryFolder.getRoot().toPath().resolve("spans.json");
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+
+        // When
+        try (FileSpanExporter fileExporter = new FileSpanExporter(path)) {
+            rulesEngine.setRuleTracer(new RuleTracer(fileExporter, Sampler.alwaysOn(), 0));
+            rulesEngine.fire(rules, new Facts());
+        }
+
+        // Then
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).startsWith("{\"name\":\"rule.evaluate\",\"traceId\":\"")
+                .contains("\"rule.name\":\"rule\"").contains("\"rule.matched\":true").endsWith("}}");
+        assertThat(lines.get(2)).contains("\"parentSpanId\":null");
+    }
+}
@@ -93,6 +93,17 @@ public class GroovyRule extends BasicRule {
         return this;
     }
 
+    /**
+     * Set rule rate limit.
+     *
+     * @param rateLimit maximum number of executions of the rule per second
+     * @return this rule
+     */
+    public GroovyRule rateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
     /**
      * Specify the rule's condition as Groovy expression.
      *
@@ -76,6 +76,7 @@ public class GroovyRuleFactory extends AbstractRuleFactory {
                 .description(ruleDefinition.getDescription())
                 .priority(ruleDefinition.getPriority())
                 .threshold(ruleDefinition.getThreshold())
+                .rateLimit(ruleDefinition.getRateLimit())
                 .when(ruleDefinition.getCondition());
         for (String action : ruleDefinition.getActions()) {
             groovyRule.then(action);
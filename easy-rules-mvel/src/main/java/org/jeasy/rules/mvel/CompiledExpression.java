@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.mvel;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.optimizers.AccessorOptimizer;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
+
+import java.io.Serializable;
+
+/**
+ * MVEL expression compiled once and executed many times.
+ * <p>
+ * MVEL optimizes the accessors of an expression (property reads, method calls, etc) when they are
+ * first executed, with the optimizer of the calling thread. Its default optimizer starts with
+ * reflective accessors and only generates bytecode for accessors that are executed often.
+ * Strongly typed expressions resolve property and method types at compile time, so their
+ * first execution is run with the ASM optimizer: accessors executed by the first execution
+ * are generated as direct field and getter calls right away, without changing the optimizer
+ * of the calling thread. Accessors that the first execution does not reach (like the right
+ * operand of a short-circuited condition) are optimized later by the optimizer of the thread
+ * executing them. Keeping the ASM optimizer afterwards would require looking up (and
+ * instantiating) the optimizer of the thread on every execution.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class CompiledExpression {
+
+    private final Serializable compiledExpression;
+    private volatile boolean optimized;
+
+    CompiledExpression(String expression) {
+        this.compiledExpression = MVEL.compileExpression(expression);
+        this.optimized = true;
+    }
+
+    CompiledExpression(String expression, ParserContext parserContext) {
+        this.compiledExpression = MVEL.compileExpression(expression, parserContext);
+        this.optimized = !parserContext.isStrongTyping();
+    }
+
+    Object execute(VariableResolverFactory variableResolverFactory) {
+        if (optimized) {
+            return MVEL.executeExpression(compiledExpression, variableResolverFactory);
+        }
+        Class<? extends AccessorOptimizer> previousOptimizer = OptimizerFactory.isThreadAccessorOptimizerInitialized()
+                ? OptimizerFactory.getThreadAccessorOptimizer().getClass() : null;
+        OptimizerFactory.setThreadAccessorOptimizer(ASMAccessorOptimizer.class);
+        try {
+            Object result = MVEL.executeExpression(compiledExpression, variableResolverFactory);
+            optimized = true;
+            return result;
+        } finally {
+            if (previousOptimizer != null) {
+                OptimizerFactory.setThreadAccessorOptimizer(previousOptimizer);
+            } else {
+                OptimizerFactory.clearThreadAccessorOptimizer();
+            }
+        }
+    }
+}
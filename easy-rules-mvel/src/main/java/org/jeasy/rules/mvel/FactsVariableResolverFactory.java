@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.mvel;
+
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.mvel2.UnresolveablePropertyException;
+import org.mvel2.ast.Function;
+import org.mvel2.ast.FunctionInstance;
+import org.mvel2.integration.VariableResolver;
+import org.mvel2.integration.impl.BaseVariableResolverFactory;
+import org.mvel2.integration.impl.SimpleValueResolver;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MVEL variable resolver factory reading and writing variables directly from and to {@link Facts},
+ * without copying them to a map.
+ * <p>
+ * Variables are the facts of the same name. Assigning a variable in an expression adds or replaces
+ * the fact of the same name (assigning null removes it). Functions and typed variables declared in
+ * an expression (like <code>int total = 0</code>) are local to the execution of the expression and
+ * are not added to facts.
+ * <p>
+ * Resolvers are created once per variable name and reused, so a factory can be bound to the facts
+ * of successive executions of an expression without allocating. This class is not thread safe.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class FactsVariableResolverFactory extends BaseVariableResolverFactory {
+
+    private transient Facts facts;
+    private final Map<String, VariableResolver> localVariables = new HashMap<>();
+
+    /**
+     * Create a new {@link FactsVariableResolverFactory}.
+     *
+     * @param facts to resolve variables from
+     */
+    public FactsVariableResolverFactory(Facts facts) {
+        this.facts = facts;
+        this.variableResolvers = new HashMap<>();
+    }
+
+    /*
+     * Factories reused across executions are bound to the facts of each execution,
+     * and unbound afterwards so that facts are not retained between executions.
+     */
+
+    boolean isBound() {
+        return facts != null;
+    }
+
+    void bind(Facts facts) {
+        this.facts = facts;
+    }
+
+    void unbind() {
+        this.facts = null;
+        if (!localVariables.isEmpty()) {
+            localVariables.clear();
+        }
+    }
+
+    @Override
+    public VariableResolver createVariable(String name, Object value) {
+        VariableResolver resolver = localVariables.get(name);
+        if (resolver == null && (value instanceof Function || value instanceof FunctionInstance)) {
+            resolver = new SimpleValueResolver(value);
+            localVariables.put(name, resolver);
+            return resolver;
+        }
+        if (resolver == null) {
+            resolver = factResolver(name);
+        }
+        resolver.setValue(value);
+        return resolver;
+    }
+
+    @Override
+    public VariableResolver createVariable(String name, Object value, Class<?> type) {
+        VariableResolver resolver = new SimpleValueResolver(value);
+        resolver.setStaticType(type);
+        localVariables.put(name, resolver);
+        return resolver;
+    }
+
+    @Override
+    public VariableResolver getVariableResolver(String name) {
+        VariableResolver resolver = localVariables.get(name);
+        if (resolver != null) {
+            return resolver;
+        }
+        if (facts.getFact(name) != null) {
+            return factResolver(name);
+        }
+        if (nextFactory != null) {
+            return nextFactory.getVariableResolver(name);
+        }
+        throw new UnresolveablePropertyException("unable to resolve variable '" + name + "'");
+    }
+
+    @Override
+    public boolean isTarget(String name) {
+        return localVariables.containsKey(name) || facts.getFact(name) != null;
+    }
+
+    @Override
+    public boolean isResolveable(String name) {
+        return isTarget(name) || isNextResolveable(name);
+    }
+
+    @Override
+    public Set<String> getKnownVariables() {
+        Set<String> knownVariables = new LinkedHashSet<>();
+        for (Fact<?> fact : facts) {
+            knownVariables.add(fact.getName());
+        }
+        knownVariables.addAll(localVariables.keySet());
+        if (nextFactory != null) {
+            knownVariables.addAll(nextFactory.getKnownVariables());
+        }
+        return knownVariables;
+    }
+
+    private VariableResolver factResolver(String name) {
+        VariableResolver resolver = variableResolvers.get(name);
+        if (resolver == null) {
+            resolver = new FactVariableResolver(name);
+            variableResolvers.put(name, resolver);
+        }
+        return resolver;
+    }
+
+    private final class FactVariableResolver implements VariableResolver {
+
+        private final String name;
+
+        private FactVariableResolver(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class getType() {
+            Object value = facts.get(name);
+            return value != null ? value.getClass() : Object.class;
+        }
+
+        @Override
+        public void setStaticType(Class type) {
+            // facts are dynamically typed
+        }
+
+        @Override
+        public int getFlags() {
+            return 0;
+        }
+
+        @Override
+        public Object getValue() {
+            return facts.get(name);
+        }
+
+        @Override
+        public void setValue(Object value) {
+            if (value == null) {
+                facts.remove(name);
+            } else {
+                facts.put(name, value);
+            }
+        }
+    }
+}
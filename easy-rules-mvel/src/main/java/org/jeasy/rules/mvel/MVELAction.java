@@ -26,11 +26,8 @@ package org.jeasy.rules.mvel;
 import lombok.extern.slf4j.Slf4j;
 import org.jeasy.rules.api.Action;
 import org.jeasy.rules.api.Facts;
-import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
 
-import java.io.Serializable;
-
 /**
  * This class is an implementation of {@link Action} that uses
  * <a href="https://github.com/mvel/mvel">MVEL</a> to execute the action.
@@ -40,7 +37,9 @@ import java.io.Serializable;
 @Slf4j
 public class MVELAction implements Action {
     private final String expression;
-    private final Serializable compiledExpression;
+    private final CompiledExpression compiledExpression;
+    private final ThreadLocal<FactsVariableResolverFactory> variableResolverFactories =
+            ThreadLocal.withInitial(() -> new FactsVariableResolverFactory(null));
 
     /**
      * Create a new {@link MVELAction}.
@@ -49,27 +48,45 @@ public class MVELAction implements Action {
      */
     public MVELAction(String expression) {
         this.expression = expression;
-        compiledExpression = MVEL.compileExpression(expression);
+        compiledExpression = new CompiledExpression(expression);
     }
 
     /**
-     * Create a new {@link MVELAction}.
+     * Create a new {@link MVELAction}. If the parser context is strongly typed, the expression
+     * is type checked against the inputs of the context and runs with bytecode accessors.
      *
      * @param expression    the action written in expression language
      * @param parserContext the MVEL parser context
+     * @throws org.mvel2.CompileException if the expression is not valid
      */
     public MVELAction(String expression, ParserContext parserContext) {
         this.expression = expression;
-        compiledExpression = MVEL.compileExpression(expression, parserContext);
+        compiledExpression = new CompiledExpression(expression, parserContext);
     }
 
+    /*
+     * Facts are resolved in place, so that variables assigned by the action are written back to
+     * facts, by a factory reused across executions on the same thread unless the action is
+     * executed again while it is being executed (by a nested fire for instance).
+     */
     @Override
     public void execute(Facts facts) {
+        FactsVariableResolverFactory variableResolverFactory = variableResolverFactories.get();
+        boolean reused = !variableResolverFactory.isBound();
+        if (reused) {
+            variableResolverFactory.bind(facts);
+        } else {
+            variableResolverFactory = new FactsVariableResolverFactory(facts);
+        }
         try {
-            MVEL.executeExpression(compiledExpression, facts.asMap());
+            compiledExpression.execute(variableResolverFactory);
         } catch (Exception e) {
             log.error("Unable to evaluate expression: '" + expression + "' on facts: " + facts, e);
             throw e;
+        } finally {
+            if (reused) {
+                variableResolverFactory.unbind();
+            }
         }
     }
 }
@@ -25,10 +25,12 @@ package org.jeasy.rules.mvel;
 
 import org.jeasy.rules.api.Condition;
 import org.jeasy.rules.api.Facts;
-import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
+import org.mvel2.compiler.ExpressionCompiler;
 
-import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * This class is an implementation of {@link Condition} that uses
@@ -38,7 +40,10 @@ import java.io.Serializable;
  */
 public class MVELCondition implements Condition {
 
-    private final Serializable compiledExpression;
+    private final CompiledExpression compiledExpression;
+    private final Set<String> readFacts;
+    private final ThreadLocal<FactsVariableResolverFactory> variableResolverFactories =
+            ThreadLocal.withInitial(() -> new FactsVariableResolverFactory(null));
 
     /**
      * Create a new {@link MVELCondition}.
@@ -46,22 +51,64 @@ public class MVELCondition implements Condition {
      * @param expression the condition written in expression language
      */
     public MVELCondition(String expression) {
-        compiledExpression = MVEL.compileExpression(expression);
+        compiledExpression = new CompiledExpression(expression);
+        readFacts = extractInputs(expression, new ParserContext());
     }
 
     /**
-     * Create a new {@link MVELCondition}.
+     * Create a new {@link MVELCondition}. If the parser context is strongly typed, the expression
+     * is type checked against the inputs of the context and runs with bytecode accessors.
      *
      * @param expression the condition written in expression language
      * @param parserContext the MVEL parser context
+     * @throws org.mvel2.CompileException if the expression is not valid
      */
     public MVELCondition(String expression, ParserContext parserContext) {
-        compiledExpression = MVEL.compileExpression(expression, parserContext);
+        compiledExpression = new CompiledExpression(expression, parserContext);
+        readFacts = extractInputs(expression, new ParserContext(parserContext.getParserConfiguration()));
+    }
+
+    /**
+     * Return the names of the variables read by the expression, which are the names
+     * of the facts it reads.
+     *
+     * @return the names of the facts read by the expression, or an empty set if they
+     * could not be determined
+     */
+    public Set<String> getReadFacts() {
+        return readFacts;
     }
 
+    /*
+     * The expression is compiled again in a fresh context, so that inputs of other
+     * expressions compiled with the same parser context are not collected.
+     */
+    private static Set<String> extractInputs(String expression, ParserContext analysisContext) {
+        try {
+            new ExpressionCompiler(expression, analysisContext).compile();
+            return Collections.unmodifiableSet(new LinkedHashSet<>(analysisContext.getInputs().keySet()));
+        } catch (RuntimeException exception) {
+            return Collections.emptySet();
+        }
+    }
+
+    /*
+     * Facts are resolved in place by a factory reused across evaluations on the same thread.
+     * A new factory is used if the expression is evaluated again while it is being evaluated
+     * (by a nested fire for instance).
+     */
     @Override
     public boolean evaluate(Facts facts) {
-        // MVEL.evalToBoolean does not accept compiled expressions..
-        return (boolean) MVEL.executeExpression(compiledExpression, facts.asMap());
+        FactsVariableResolverFactory variableResolverFactory = variableResolverFactories.get();
+        if (variableResolverFactory.isBound()) {
+            return (boolean) compiledExpression.execute(new FactsVariableResolverFactory(facts));
+        }
+        variableResolverFactory.bind(facts);
+        try {
+            // MVEL.evalToBoolean does not accept compiled expressions..
+            return (boolean) compiledExpression.execute(variableResolverFactory);
+        } finally {
+            variableResolverFactory.unbind();
+        }
     }
 }
@@ -106,13 +106,27 @@ public class MVELRule extends BasicRule {
     }
 
     /**
-     * Specify the rule's condition as MVEL expression.
+     * Set rule rate limit.
+     *
+     * @param rateLimit maximum number of executions of the rule per second
+     * @return this rule
+     */
+    public MVELRule rateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    /**
+     * Specify the rule's condition as MVEL expression. Facts read by the
+     * rule are the variables read by the expression.
      *
      * @param condition of the rule
      * @return this rule
      */
     public MVELRule when(String condition) {
-        this.condition = new MVELCondition(condition, parserContext);
+        MVELCondition mvelCondition = new MVELCondition(condition, parserContext);
+        this.condition = mvelCondition;
+        this.readFacts = mvelCondition.getReadFacts();
         return this;
     }
 
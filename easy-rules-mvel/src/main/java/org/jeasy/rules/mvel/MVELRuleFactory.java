@@ -33,10 +33,20 @@ import org.jeasy.rules.support.reader.YamlRuleDefinitionReader;
 import org.mvel2.ParserContext;
 
 import java.io.Reader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Factory to create {@link MVELRule} instances.
+ * <p>
+ * Types of facts can be declared for all rules of the factory, or per rule with the
+ * <code>factTypes</code> key of rule definitions (for example <code>person: com.acme.Person</code>).
+ * Fact types declared by a composite rule apply to its composing rules. Rules using declared
+ * fact types are compiled with strong typing: their expressions must only use declared facts,
+ * type errors are rejected when rules are created, and property accesses and method calls run
+ * as direct field and getter calls. Rules without declared fact types are compiled without typing.
  *
  * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
  */
@@ -44,6 +54,7 @@ public class MVELRuleFactory extends AbstractRuleFactory {
 
     private final RuleDefinitionReader reader;
     private final ParserContext parserContext;
+    private final Map<String, Class<?>> factTypes;
 
     /**
      * Create a new {@link MVELRuleFactory} with a given reader.
@@ -65,8 +76,22 @@ public class MVELRuleFactory extends AbstractRuleFactory {
      * @see JsonRuleDefinitionReader
      */
     public MVELRuleFactory(RuleDefinitionReader reader, ParserContext parserContext) {
+        this(reader, parserContext, Collections.emptyMap());
+    }
+
+    /**
+     * Create a new {@link MVELRuleFactory} with a given reader and fact types.
+     *
+     * @param reader        used to read rule definitions
+     * @param parserContext used to parse condition/action expressions
+     * @param factTypes     types of the facts used by all rules, by fact name
+     * @see YamlRuleDefinitionReader
+     * @see JsonRuleDefinitionReader
+     */
+    public MVELRuleFactory(RuleDefinitionReader reader, ParserContext parserContext, Map<String, Class<?>> factTypes) {
         this.reader = reader;
         this.parserContext = parserContext;
+        this.factTypes = new LinkedHashMap<>(factTypes);
     }
 
     /**
@@ -105,16 +130,63 @@ public class MVELRuleFactory extends AbstractRuleFactory {
     }
 
     protected Rule createSimpleRule(RuleDefinition ruleDefinition) {
-        MVELRule mvelRule = new MVELRule(parserContext)
-                .name(ruleDefinition.getName())
-                .description(ruleDefinition.getDescription())
-                .priority(ruleDefinition.getPriority())
-                .threshold(ruleDefinition.getThreshold())
-                .when(ruleDefinition.getCondition());
-        for (String action : ruleDefinition.getActions()) {
-            mvelRule.then(action);
+        return createSimpleRule(ruleDefinition, ruleDefinition.getFactTypes());
+    }
+
+    @Override
+    protected Rule createSimpleRule(RuleDefinition ruleDefinition, Map<String, String> declaredFactTypes) {
+        Map<String, Class<?>> ruleFactTypes = factTypesOf(ruleDefinition, declaredFactTypes);
+        try {
+            MVELRule mvelRule = new MVELRule(ruleFactTypes.isEmpty() ? parserContext : typedParserContext(ruleFactTypes))
+                    .name(ruleDefinition.getName())
+                    .description(ruleDefinition.getDescription())
+                    .priority(ruleDefinition.getPriority())
+                    .threshold(ruleDefinition.getThreshold())
+                    .rateLimit(ruleDefinition.getRateLimit())
+                    .when(ruleDefinition.getCondition());
+            for (String action : ruleDefinition.getActions()) {
+                mvelRule.then(action);
+            }
+            return mvelRule;
+        } catch (RuntimeException e) {
+            if (ruleFactTypes.isEmpty()) {
+                throw e;
+            }
+            throw new IllegalArgumentException("Invalid expression in typed rule '" + ruleDefinition.getName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Fact types declared in the rule definition take precedence over those declared in the factory.
+     */
+    private Map<String, Class<?>> factTypesOf(RuleDefinition ruleDefinition, Map<String, String> declaredFactTypes) {
+        if (declaredFactTypes.isEmpty()) {
+            return factTypes;
+        }
+        Map<String, Class<?>> ruleFactTypes = new LinkedHashMap<>(factTypes);
+        ClassLoader classLoader = parserContext.getParserConfiguration().getClassLoader();
+        for (Map.Entry<String, String> factType : declaredFactTypes.entrySet()) {
+            try {
+                ruleFactTypes.put(factType.getKey(), Class.forName(factType.getValue(), true, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown type '" + factType.getValue() + "' of fact '"
+                        + factType.getKey() + "' in rule '" + ruleDefinition.getName() + "'", e);
+            }
+        }
+        return ruleFactTypes;
+    }
+
+    /*
+     * Typed rules get their own context, so that the inputs and variables of
+     * their expressions do not leak into the contexts of other rules.
+     */
+    private ParserContext typedParserContext(Map<String, Class<?>> ruleFactTypes) {
+        ParserContext typedParserContext = new ParserContext(parserContext.getParserConfiguration());
+        typedParserContext.setStrongTyping(true);
+        for (Map.Entry<String, Class<?>> factType : ruleFactTypes.entrySet()) {
+            typedParserContext.addInput(factType.getKey(), factType.getValue());
         }
-        return mvelRule;
+        return typedParserContext;
     }
 
 }
@@ -96,4 +96,35 @@ public class MVELActionTest {
         assertThat(systemOutRule.getLog()).contains("Random from MVEL = 2");
 
     }
+
+    @Test
+    public void variablesAssignedByTheActionShouldBeWrittenBackToFacts() throws Exception {
+        // given
+        Action action = new MVELAction("int bonus = 10; total = amount + bonus; amount = null;");
+        Facts facts = new Facts();
+        facts.put("amount", 5);
+
+        // when
+        action.execute(facts);
+
+        // then
+        assertThat((Integer) facts.get("total")).isEqualTo(15);
+        assertThat(facts.getFact("amount")).isNull();
+        assertThat(facts.getFact("bonus")).isNull();
+    }
+
+    @Test
+    public void functionsDefinedByTheActionShouldNotBeAddedToFacts() throws Exception {
+        // given
+        Action action = new MVELAction("def twice(x) { x * 2 }; result = twice(value);");
+        Facts facts = new Facts();
+        facts.put("value", 21);
+
+        // when
+        action.execute(facts);
+
+        // then
+        assertThat((Integer) facts.get("result")).isEqualTo(42);
+        assertThat(facts.getFact("twice")).isNull();
+    }
 }
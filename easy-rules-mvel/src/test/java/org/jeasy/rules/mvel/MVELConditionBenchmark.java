@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.mvel;
+
+import org.jeasy.rules.api.Facts;
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+
+import java.io.Serializable;
+
+/**
+ * Compares the cost of evaluating a condition with {@link MVELCondition}, which resolves
+ * variables directly from facts, with the cost of evaluating it on a copy of the facts
+ * as a map, as {@link MVELCondition} used to do, and with the cost of evaluating it when
+ * compiled with strong typing.
+ * <p>
+ * This is not a test, run it with: {@code java org.jeasy.rules.mvel.MVELConditionBenchmark [iterations]}
+ */
+public class MVELConditionBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final String EXPRESSION = "person.age > 18 && temperature < 30";
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Facts facts = new Facts();
+        facts.put("person", new Person("foo", 20));
+        facts.put("temperature", 25);
+        for (int i = 0; i < 8; i++) {
+            facts.put("unrelated" + i, i);
+        }
+        MVELCondition condition = new MVELCondition(EXPRESSION);
+        Serializable compiledExpression = MVEL.compileExpression(EXPRESSION);
+        ParserContext typedParserContext = new ParserContext();
+        typedParserContext.setStrongTyping(true);
+        typedParserContext.addInput("person", Person.class);
+        typedParserContext.addInput("temperature", Integer.class);
+        MVELCondition typedCondition = new MVELCondition(EXPRESSION, typedParserContext);
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("round %d: facts resolver %d ns/op, map copy %d ns/op, strongly typed %d ns/op%n",
+                    round, measure(condition, facts, iterations), measureMapCopy(compiledExpression, facts, iterations),
+                    measure(typedCondition, facts, iterations));
+        }
+    }
+
+    private static long measure(MVELCondition condition, Facts facts, int iterations) {
+        int matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (condition.evaluate(facts)) {
+                matches++;
+            }
+        }
+        return check(matches, iterations, System.nanoTime() - start);
+    }
+
+    private static long measureMapCopy(Serializable compiledExpression, Facts facts, int iterations) {
+        int matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if ((boolean) MVEL.executeExpression(compiledExpression, facts.asMap())) {
+                matches++;
+            }
+        }
+        return check(matches, iterations, System.nanoTime() - start);
+    }
+
+    private static long check(int matches, int iterations, long elapsed) {
+        if (matches != iterations) {
+            throw new IllegalStateException("Unexpected number of matches: " + matches);
+        }
+        return elapsed / iterations;
+    }
+}
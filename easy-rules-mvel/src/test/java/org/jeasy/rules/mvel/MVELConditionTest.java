@@ -28,6 +28,8 @@ import org.jeasy.rules.api.Facts;
 import org.junit.Test;
 import org.mvel2.ParserContext;
 
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class MVELConditionTest {
@@ -46,6 +48,18 @@ public class MVELConditionTest {
         assertThat(evaluationResult).isTrue();
     }
 
+    @Test
+    public void factsReadByTheExpressionShouldBeExtracted() {
+        // given
+        MVELCondition condition = new MVELCondition("person.age > 18 && adult == false", new ParserContext());
+
+        // when
+        Set<String> readFacts = condition.getReadFacts();
+
+        // then
+        assertThat(readFacts).containsExactly("person", "adult");
+    }
+
     // Note this behaviour is different in SpEL, where a missing fact is silently ignored and returns false
     @Test(expected = RuntimeException.class)
     public void whenDeclaredFactIsNotPresent_thenShouldThrowRuntimeException() {
@@ -73,4 +87,25 @@ public class MVELConditionTest {
         // then
         assertThat(evaluationResult).isTrue();
     }
+
+    @Test
+    public void conditionShouldReadTheFactsOfEachEvaluation() {
+        // given
+        Condition isHot = new MVELCondition("temperature > 30");
+        Facts hot = new Facts();
+        hot.put("temperature", 35);
+        Facts cold = new Facts();
+        cold.put("temperature", 10);
+
+        // when
+        boolean hotResult = isHot.evaluate(hot);
+        boolean coldResult = isHot.evaluate(cold);
+        cold.put("temperature", 40);
+        boolean warmedResult = isHot.evaluate(cold);
+
+        // then
+        assertThat(hotResult).isTrue();
+        assertThat(coldResult).isFalse();
+        assertThat(warmedResult).isTrue();
+    }
 }
@@ -32,9 +32,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.assertj.core.api.Assertions;
+import org.jeasy.rules.api.Facts;
 import org.jeasy.rules.api.Rule;
 import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.support.composite.UnitRuleGroup;
@@ -43,6 +46,7 @@ import org.jeasy.rules.support.reader.YamlRuleDefinitionReader;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
+import org.mvel2.ParserContext;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -178,4 +182,75 @@ public class MVELRuleFactoryTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Non-composite rules cannot have composing rules");
     }
+
+    @Test
+    public void rulesDeclaringFactTypesShouldBeStronglyTyped() throws Exception {
+        // given
+        Reader ruleDescriptor = new FileReader("src/test/resources/typed-adult-rule." + fileExtension);
+        Person person = new Person("foo", 20);
+        Facts facts = new Facts();
+        facts.put("person", person);
+
+        // when
+        Rule adultRule = factory.createRule(ruleDescriptor);
+        boolean evaluationResult = adultRule.evaluate(facts);
+        adultRule.execute(facts);
+
+        // then
+        assertThat(evaluationResult).isTrue();
+        assertThat(person.isAdult()).isTrue();
+    }
+
+    @Test
+    public void typeErrorsInTypedRulesShouldBeRejectedWhenRulesAreCreated() {
+        // given
+        File ruleDescriptor = new File("src/test/resources/typed-rule-with-type-error." + fileExtension);
+
+        // when
+        Assertions.assertThatThrownBy(() -> factory.createRule(new FileReader(ruleDescriptor)))
+                // then
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid expression in typed rule 'adult rule'")
+                .hasMessageContaining("agee");
+    }
+
+    @Test
+    public void factTypesDeclaredInACompositeRuleShouldApplyToItsComposingRules() {
+        // given
+        String compositeRule = fileExtension.equals("yml")
+                ? "name: composite\ncompositeRuleType: UnitRuleGroup\nfactTypes:\n  person: org.jeasy.rules.mvel.Person\n" +
+                  "composingRules:\n  - name: adult\n    condition: \"person.agee > 18\"\n    actions:\n      - \"person.setAdult(true);\"\n"
+                : "[{\"name\": \"composite\", \"compositeRuleType\": \"UnitRuleGroup\", " +
+                  "\"factTypes\": {\"person\": \"org.jeasy.rules.mvel.Person\"}, " +
+                  "\"composingRules\": [{\"name\": \"adult\", \"condition\": \"person.agee > 18\", \"actions\": [\"person.setAdult(true);\"]}]}]";
+
+        // when
+        Assertions.assertThatThrownBy(() -> factory.createRule(new StringReader(compositeRule)))
+                // then
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid expression in typed rule 'adult'")
+                .hasMessageContaining("agee");
+    }
+
+    @Test
+    public void factTypesDeclaredInTheFactoryShouldApplyToAllRules() throws Exception {
+        // given
+        Map<String, Class<?>> factTypes = Collections.singletonMap("person", Person.class);
+        MVELRuleFactory typedFactory = new MVELRuleFactory(
+                fileExtension.equals("yml") ? new YamlRuleDefinitionReader() : new JsonRuleDefinitionReader(),
+                new ParserContext(), factTypes);
+
+        // when
+        Rule adultRule = typedFactory.createRule(new FileReader("src/test/resources/adult-rule." + fileExtension));
+
+        // then
+        Facts facts = new Facts();
+        facts.put("person", new Person("foo", 10));
+        assertThat(adultRule.evaluate(facts)).isFalse();
+        Assertions.assertThatThrownBy(() -> typedFactory.createRule(new StringReader(
+                fileExtension.equals("yml") ? "name: rule\ncondition: \"person.age > limit\"\nactions:\n  - \"person.setAdult(true);\"\n"
+                        : "[{\"name\": \"rule\", \"condition\": \"person.age > limit\", \"actions\": [\"person.setAdult(true);\"]}]")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("limit");
+    }
 }
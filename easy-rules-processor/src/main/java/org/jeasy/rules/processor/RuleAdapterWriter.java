@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.processor;
+
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Rule;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the source of the {@link org.jeasy.rules.api.Rule} adapter of a validated rule class.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+class RuleAdapterWriter {
+
+    private static final String ADAPTER_SUFFIX = "_RuleAdapter";
+    private static final String FACTS = "org.jeasy.rules.api.Facts";
+
+    private final Elements elements;
+    private final Types types;
+    private final TypeElement ruleClass;
+    private final ExecutableElement conditionMethod;
+    private final List<ExecutableElement> actionMethods;
+    private final ExecutableElement priorityMethod;
+    private final ExecutableElement thresholdMethod;
+    private final ExecutableElement compareToMethod;
+    private final String packageName;
+    private final String simpleAdapterName;
+    private final String ruleType;
+
+    RuleAdapterWriter(ProcessingEnvironment processingEnv, TypeElement ruleClass, ExecutableElement conditionMethod,
+                      List<ExecutableElement> actionMethods, ExecutableElement priorityMethod,
+                      ExecutableElement thresholdMethod, ExecutableElement compareToMethod) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.ruleClass = ruleClass;
+        this.conditionMethod = conditionMethod;
+        this.actionMethods = actionMethods;
+        this.priorityMethod = priorityMethod;
+        this.thresholdMethod = thresholdMethod;
+        this.compareToMethod = compareToMethod;
+        PackageElement packageElement = elements.getPackageOf(ruleClass);
+        this.packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        StringBuilder name = new StringBuilder(ADAPTER_SUFFIX);
+        for (Element element = ruleClass; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            name.insert(0, element.getSimpleName()).insert(0, '_');
+        }
+        this.simpleAdapterName = name.substring(1);
+        this.ruleType = erasure(ruleClass.asType());
+    }
+
+    String getAdapterName() {
+        return packageName.isEmpty() ? simpleAdapterName : packageName + "." + simpleAdapterName;
+    }
+
+    void write(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        if (!packageName.isEmpty()) {
+            out.printf("package %s;%n%n", packageName);
+        }
+        out.printf("/**%n * Rule adapter generated by the Easy Rules annotation processor for {@link %s}, do not edit.%n */%n", ruleType);
+        out.printf("@SuppressWarnings({\"unchecked\", \"rawtypes\"})%n");
+        out.printf("public final class %s extends org.jeasy.rules.core.RuleAdapter<%s> {%n%n", simpleAdapterName, ruleType);
+        out.printf("    private static final java.util.Set<java.lang.String> READ_FACTS = %s;%n%n", readFacts());
+
+        out.printf("    public %s(%s target) {%n", simpleAdapterName, ruleType);
+        out.printf("        super(target, %s, %s, %s, %s, %s, %s, READ_FACTS);%n", literal(name()), literal(description()),
+                priorityMethod != null ? "target." + priorityMethod.getSimpleName() + "()" : literal(annotation().priority()),
+                thresholdMethod != null ? "target." + thresholdMethod.getSimpleName() + "()" : literal(annotation().threshold()),
+                literal(annotation().rateLimit()), annotation().pure());
+        out.printf("    }%n%n");
+
+        out.printf("    @Override%n    public boolean evaluate(%s facts) {%n", FACTS);
+        List<String> arguments = writeArguments(out, conditionMethod, "        ", true);
+        writeInvocation(out, conditionMethod, arguments, "return ", false);
+        out.printf("    }%n%n");
+
+        out.printf("    @Override%n    public void execute(%s facts) throws java.lang.Exception {%n", FACTS);
+        for (ExecutableElement actionMethod : actionMethods) {
+            out.printf("        {%n");
+            writeInvocation(out, actionMethod, writeArguments(out, actionMethod, "            ", false), "", true);
+            out.printf("        }%n");
+        }
+        out.printf("    }%n%n");
+
+        if (compareToMethod != null) {
+            String otherType = erasure(compareToMethod.getParameters().get(0).asType());
+            out.printf("    @Override%n    public int compareTo(org.jeasy.rules.api.Rule otherRule) {%n");
+            out.printf("        java.lang.Object otherTarget = targetOf(otherRule);%n");
+            out.printf("        if (otherTarget instanceof %s) {%n", otherType);
+            out.printf("            return target.compareTo((%s) otherTarget);%n", otherType);
+            out.printf("        }%n");
+            out.printf("        return super.compareTo(otherRule);%n");
+            out.printf("    }%n%n");
+        }
+
+        out.printf("    public static final class Factory implements org.jeasy.rules.core.RuleAdapterFactory<%s> {%n%n", ruleType);
+        out.printf("        @Override%n        public java.lang.Class<%s> getRuleClass() {%n", ruleType);
+        out.printf("            return %s.class;%n        }%n%n", ruleType);
+        out.printf("        @Override%n        public org.jeasy.rules.api.Rule adapt(%s rule) {%n", ruleType);
+        out.printf("            return new %s(rule);%n        }%n", simpleAdapterName);
+        out.printf("    }%n}%n");
+        out.flush();
+    }
+
+    /*
+     * Write the resolution of the arguments of the given method, returning
+     * false or throwing an exception when a fact is missing or has the wrong type.
+     */
+    private List<String> writeArguments(PrintWriter out, ExecutableElement method, String indent, boolean condition) {
+        List<String> arguments = new ArrayList<>();
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            Fact fact = parameter.getAnnotation(Fact.class);
+            String type = boxedErasure(parameter.asType());
+            String value = "value" + i;
+            Fact.Missing policy = fact != null ? fact.ifMissing() : null;
+            if (fact == null) {
+                out.printf("%sjava.lang.Object %s = facts;%n", indent, value);
+            } else if (policy == Fact.Missing.SKIP) {
+                out.printf("%sorg.jeasy.rules.api.Fact<?> fact%d = facts.getFact(%s);%n", indent, i, literal(fact.value()));
+                out.printf("%sif (fact%d == null) {%n", indent, i);
+                out.printf(condition ? "%s    return missingFact(%s, facts);%n" : "%s    throw missingActionFact(%s);%n",
+                        indent, literal(fact.value()));
+                out.printf("%s}%n", indent);
+                out.printf("%sjava.lang.Object %s = fact%d.getValue();%n", indent, value, i);
+            } else {
+                out.printf("%sorg.jeasy.rules.api.Fact<?> fact%d = facts.getFact(%s);%n", indent, i, literal(fact.value()));
+                out.printf("%sjava.lang.Object %s = fact%d != null ? fact%d.getValue() : %s;%n", indent, value, i, i,
+                        policy == Fact.Missing.NULL ? "null" : defaultValue(elements, types, parameter));
+            }
+            if (!type.equals(FACTS)) {
+                String check = value + " instanceof " + type;
+                out.printf("%sif (%s) {%n", indent, policy == Fact.Missing.NULL ? value + " != null && !(" + check + ")" : "!(" + check + ")");
+                out.printf(condition ? "%s    return conditionTypeMismatch(%s);%n" : "%s    throw actionTypeMismatch(%s);%n",
+                        indent, literal(method.getSimpleName().toString()));
+                out.printf("%s}%n", indent);
+            }
+            arguments.add("(" + type + ") " + value);
+        }
+        return arguments;
+    }
+
+    /*
+     * Checked exceptions that can not be thrown from the Rule method are wrapped
+     * in an UndeclaredThrowableException, as they would be by a dynamic proxy.
+     */
+    private void writeInvocation(PrintWriter out, ExecutableElement method, List<String> arguments, String prefix, boolean action) {
+        String indent = action ? "            " : "        ";
+        String invocation = prefix + "target." + method.getSimpleName() + "(" + String.join(", ", arguments) + ");";
+        if (!throwsUndeclared(method, action)) {
+            out.printf("%s%s%n", indent, invocation);
+            return;
+        }
+        out.printf("%stry {%n", indent);
+        out.printf("%s    %s%n", indent, invocation);
+        out.printf("%s} catch (%s e) {%n", indent, action ? "java.lang.Exception | java.lang.Error" : "java.lang.RuntimeException | java.lang.Error");
+        out.printf("%s    throw e;%n", indent);
+        out.printf("%s} catch (java.lang.Throwable throwable) {%n", indent);
+        out.printf("%s    throw new java.lang.reflect.UndeclaredThrowableException(throwable);%n", indent);
+        out.printf("%s}%n", indent);
+    }
+
+    private boolean throwsUndeclared(ExecutableElement method, boolean action) {
+        TypeMirror declared = elements.getTypeElement(action ? "java.lang.Exception" : "java.lang.RuntimeException").asType();
+        TypeMirror error = elements.getTypeElement("java.lang.Error").asType();
+        for (TypeMirror thrownType : method.getThrownTypes()) {
+            if (!types.isAssignable(thrownType, declared) && !types.isAssignable(thrownType, error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the expression of the default value of the given fact parameter, converted
+     * the same way as at runtime (see {@link Fact#defaultValue()}).
+     *
+     * @return the default value expression, or null if the default value is not valid for the parameter type
+     */
+    static String defaultValue(Elements elements, Types types, VariableElement parameter) {
+        String value = parameter.getAnnotation(Fact.class).defaultValue();
+        TypeMirror type = parameter.asType();
+        if (types.isSameType(type, elements.getTypeElement(String.class.getName()).asType())) {
+            return elements.getConstantExpression(value);
+        }
+        Element element = types.asElement(type);
+        if (element != null && element.getKind() == ElementKind.ENUM) {
+            for (Element constant : element.getEnclosedElements()) {
+                if (constant.getKind() == ElementKind.ENUM_CONSTANT && constant.getSimpleName().contentEquals(value)) {
+                    return types.erasure(type) + "." + value;
+                }
+            }
+            return null;
+        }
+        TypeKind kind;
+        try {
+            kind = type.getKind().isPrimitive() ? type.getKind() : types.unboxedType(type).getKind();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String number = value.isEmpty() ? "0" : value;
+        try {
+            switch (kind) {
+                case BOOLEAN:
+                    return value.isEmpty() || value.equals("true") || value.equals("false")
+                            ? elements.getConstantExpression(Boolean.valueOf(value)) : null;
+                case CHAR:
+                    return value.length() <= 1
+                            ? elements.getConstantExpression(value.isEmpty() ? '\0' : value.charAt(0)) : null;
+                case INT:
+                    return elements.getConstantExpression(Integer.valueOf(number));
+                case LONG:
+                    return elements.getConstantExpression(Long.valueOf(number));
+                case DOUBLE:
+                    return elements.getConstantExpression(Double.valueOf(number));
+                case FLOAT:
+                    return elements.getConstantExpression(Float.valueOf(number));
+                case SHORT:
+                    return elements.getConstantExpression(Short.valueOf(number));
+                case BYTE:
+                    return elements.getConstantExpression(Byte.valueOf(number));
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String readFacts() {
+        List<String> factNames = new ArrayList<>();
+        for (VariableElement parameter : conditionMethod.getParameters()) {
+            Fact fact = parameter.getAnnotation(Fact.class);
+            if (fact == null) {
+                // the condition has access to all facts
+                return "java.util.Collections.emptySet()";
+            }
+            factNames.add(literal(fact.value()));
+        }
+        return "java.util.Collections.unmodifiableSet(new java.util.LinkedHashSet<>(java.util.Arrays.<java.lang.String>asList("
+                + String.join(", ", factNames) + ")))";
+    }
+
+    private String name() {
+        String name = annotation().name();
+        return name.equals(org.jeasy.rules.api.Rule.DEFAULT_NAME) ? ruleClass.getSimpleName().toString() : name;
+    }
+
+    // Default description = "when " + conditionMethodName + " then " + comma separated actionMethodsNames
+    private String description() {
+        String description = annotation().description();
+        if (!description.equals(org.jeasy.rules.api.Rule.DEFAULT_DESCRIPTION)) {
+            return description;
+        }
+        List<String> actionNames = new ArrayList<>();
+        for (ExecutableElement actionMethod : actionMethods) {
+            actionNames.add(actionMethod.getSimpleName().toString());
+        }
+        return "when " + conditionMethod.getSimpleName() + " then " + String.join(",", actionNames);
+    }
+
+    private Rule annotation() {
+        return ruleClass.getAnnotation(Rule.class);
+    }
+
+    private String literal(Object value) {
+        return elements.getConstantExpression(value);
+    }
+
+    private String erasure(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private String boxedErasure(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+}
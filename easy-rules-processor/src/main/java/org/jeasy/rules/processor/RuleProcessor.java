@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.processor;
+
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Priority;
+import org.jeasy.rules.annotation.Rule;
+import org.jeasy.rules.annotation.Threshold;
+import org.jeasy.rules.core.RuleAdapterFactory;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Annotation processor generating a {@link org.jeasy.rules.api.Rule} adapter for each class
+ * annotated with {@link Rule}.
+ * <p>
+ * Rule definitions are validated at compile time with the same rules as
+ * {@link org.jeasy.rules.core.RuleProxy}, and invalid definitions are reported as compilation errors.
+ * For each valid rule class, a {@code <RuleClass>_RuleAdapter} class is generated in the package of
+ * the rule class, with a nested {@link RuleAdapterFactory} that is found by the name of the rule
+ * class, so that {@link org.jeasy.rules.api.Rules#register(Object...)} adapts rule objects without
+ * reflection.
+ * <p>
+ * Abstract rule classes and classes that are not accessible from their package (private or local
+ * classes), as well as classes annotated with a composite annotation meta-annotated with {@link Rule},
+ * are left to {@link org.jeasy.rules.core.RuleProxy}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+@SupportedAnnotationTypes("org.jeasy.rules.annotation.Rule")
+public class RuleProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        for (TypeElement ruleClass : ElementFilter.typesIn(roundEnvironment.getElementsAnnotatedWith(Rule.class))) {
+            if (isAdaptable(ruleClass)) {
+                RuleAdapterWriter writer = validate(ruleClass);
+                if (writer != null) {
+                    writeAdapter(ruleClass, writer);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isAdaptable(TypeElement ruleClass) {
+        if (ruleClass.getKind() != ElementKind.CLASS || ruleClass.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element element = ruleClass; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement type = (TypeElement) element;
+            if (type.getModifiers().contains(Modifier.PRIVATE)
+                    || (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        format("Rule '%s' is not accessible from its package, it will be adapted reflectively", ruleClass), ruleClass);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Validate the rule class the same way as RuleDefinitionValidator, and
+     * return a writer for its adapter, or null if the rule is not well defined.
+     */
+    private RuleAdapterWriter validate(TypeElement ruleClass) {
+        List<ExecutableElement> conditionMethods = new ArrayList<>();
+        List<ExecutableElement> actionMethods = new ArrayList<>();
+        List<ExecutableElement> priorityMethods = new ArrayList<>();
+        List<ExecutableElement> thresholdMethods = new ArrayList<>();
+        List<ExecutableElement> compareToMethods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(ruleClass))) {
+            if (method.getAnnotation(Condition.class) != null) {
+                conditionMethods.add(method);
+            }
+            if (method.getAnnotation(Action.class) != null) {
+                actionMethods.add(method);
+            }
+            if (method.getAnnotation(Priority.class) != null) {
+                priorityMethods.add(method);
+            }
+            if (method.getAnnotation(Threshold.class) != null) {
+                thresholdMethods.add(method);
+            }
+            if (method.getSimpleName().contentEquals("compareTo") && method.getModifiers().contains(Modifier.PUBLIC)) {
+                compareToMethods.add(method);
+            }
+        }
+        boolean valid = true;
+
+        if (conditionMethods.isEmpty()) {
+            valid = error(ruleClass, "Rule '%s' must have a public method annotated with '%s'", ruleClass, Condition.class.getName());
+        } else if (conditionMethods.size() > 1) {
+            valid = error(ruleClass, "Rule '%s' must have exactly one method annotated with '%s'", ruleClass, Condition.class.getName());
+        } else if (!isWellDefined(conditionMethods.get(0), TypeKind.BOOLEAN)) {
+            valid = error(conditionMethods.get(0), "Condition method '%s' defined in rule '%s' must be public, must return boolean type and may have parameters annotated with @Fact (and/or exactly one parameter of type Facts or one of its sub-types).", conditionMethods.get(0), ruleClass);
+        }
+
+        if (actionMethods.isEmpty()) {
+            valid = error(ruleClass, "Rule '%s' must have at least one public method annotated with '%s'", ruleClass, Action.class.getName());
+        }
+        for (ExecutableElement actionMethod : actionMethods) {
+            if (!isWellDefined(actionMethod, TypeKind.VOID)) {
+                valid = error(actionMethod, "Action method '%s' defined in rule '%s' must be public, must return void type and may have parameters annotated with @Fact (and/or exactly one parameter of type Facts or one of its sub-types).", actionMethod, ruleClass);
+            }
+        }
+
+        if (priorityMethods.size() > 1) {
+            valid = error(ruleClass, "Rule '%s' must have exactly one method annotated with '%s'", ruleClass, Priority.class.getName());
+        } else if (priorityMethods.size() == 1 && !isWellDefinedMetadataMethod(priorityMethods.get(0), TypeKind.INT)) {
+            valid = error(priorityMethods.get(0), "Priority method '%s' defined in rule '%s' must be public, have no parameters and return integer type.", priorityMethods.get(0), ruleClass);
+        }
+
+        if (thresholdMethods.size() > 1) {
+            valid = error(ruleClass, "Rule '%s' must have exactly one method annotated with '%s'", ruleClass, Threshold.class.getName());
+        } else if (thresholdMethods.size() == 1 && !isWellDefinedMetadataMethod(thresholdMethods.get(0), TypeKind.DOUBLE)) {
+            valid = error(thresholdMethods.get(0), "Threshold method '%s' defined in rule '%s' must be public, have no parameters and return double type.", thresholdMethods.get(0), ruleClass);
+        }
+
+        ExecutableElement compareToMethod = null;
+        for (ExecutableElement method : compareToMethods) {
+            if (method.getParameters().size() == 1 && method.getReturnType().getKind() == TypeKind.INT) {
+                compareToMethod = method;
+            }
+        }
+        if (compareToMethod == null && !compareToMethods.isEmpty()) {
+            valid = error(compareToMethods.get(0), "compareTo method defined in rule '%s' must have a single argument and return integer type", ruleClass);
+        }
+
+        if (!valid) {
+            return null;
+        }
+        // same order as RuleProxy: by order, then by signature
+        actionMethods.sort(Comparator.<ExecutableElement>comparingInt(method -> method.getAnnotation(Action.class).order())
+                .thenComparing(this::signature));
+        return new RuleAdapterWriter(processingEnv, ruleClass, conditionMethods.get(0), actionMethods,
+                priorityMethods.isEmpty() ? null : priorityMethods.get(0),
+                thresholdMethods.isEmpty() ? null : thresholdMethods.get(0),
+                compareToMethod);
+    }
+
+    private boolean isWellDefined(ExecutableElement method, TypeKind returnType) {
+        return method.getModifiers().contains(Modifier.PUBLIC)
+                && method.getReturnType().getKind() == returnType
+                && validParameters(method);
+    }
+
+    private boolean validParameters(ExecutableElement method) {
+        TypeMirror factsType = processingEnv.getElementUtils().getTypeElement(org.jeasy.rules.api.Facts.class.getName()).asType();
+        int notAnnotatedParameterCount = 0;
+        for (VariableElement parameter : method.getParameters()) {
+            Fact fact = parameter.getAnnotation(Fact.class);
+            if (fact == null) {
+                notAnnotatedParameterCount += 1;
+                if (!processingEnv.getTypeUtils().isAssignable(parameter.asType(), factsType)) {
+                    return false;
+                }
+            } else if (fact.ifMissing() == Fact.Missing.NULL && parameter.asType().getKind().isPrimitive()) {
+                return error(parameter, "Fact '%s' of primitive type can not be null in method '%s'", fact.value(), method);
+            } else if (fact.ifMissing() == Fact.Missing.DEFAULT
+                    && RuleAdapterWriter.defaultValue(processingEnv.getElementUtils(), processingEnv.getTypeUtils(), parameter) == null) {
+                return error(parameter, "Default value '%s' can not be converted to type '%s' in method '%s'", fact.defaultValue(), parameter.asType(), method);
+            }
+        }
+        return notAnnotatedParameterCount <= 1;
+    }
+
+    private boolean isWellDefinedMetadataMethod(ExecutableElement method, TypeKind returnType) {
+        return method.getModifiers().contains(Modifier.PUBLIC)
+                && method.getReturnType().getKind() == returnType
+                && method.getParameters().isEmpty();
+    }
+
+    private String signature(ExecutableElement method) {
+        List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+        }
+        return method.getSimpleName() + "(" + String.join(",", parameterTypes) + ")";
+    }
+
+    private boolean error(Element element, String message, Object... arguments) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, format(message, arguments), element);
+        return false;
+    }
+
+    private void writeAdapter(TypeElement ruleClass, RuleAdapterWriter writer) {
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(writer.getAdapterName(), ruleClass);
+            try (Writer out = sourceFile.openWriter()) {
+                writer.write(out);
+            }
+        } catch (IOException e) {
+            error(ruleClass, "Unable to write rule adapter '%s': %s", writer.getAdapterName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.processor;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.RuleAdapter;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleProcessorTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    @Test
+    public void annotatedRulesShouldBeAdaptedByGeneratedAdapters() throws Exception {
+        // Given
+        ClassLoader classLoader = compile("test.AgeRule",
+                "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "import java.util.List;\n" +
+                "@Rule(name = \"age rule\")\n" +
+                "public class AgeRule {\n" +
+                "    @Condition\n" +
+                "    public boolean isAdult(@Fact(\"age\") int age) { return age >= 18; }\n" +
+                "    @Action(order = 2)\n" +
+                "    public void log(@Fact(\"log\") List<String> log) { log.add(\"adult\"); }\n" +
+                "    @Action(order = 1)\n" +
+                "    public void mark(@Fact(\"log\") List<String> log) { log.add(\"marked\"); }\n" +
+                "    @Priority\n" +
+                "    public int getPriority() { return 3; }\n" +
+                "}\n");
+        Object rule = classLoader.loadClass("test.AgeRule").newInstance();
+        List<String> log = new ArrayList<>();
+        Facts facts = new Facts();
+        facts.put("age", 20);
+        facts.put("log", log);
+
+        // When
+        Rule adapter = new Rules(rule).iterator().next();
+        boolean evaluated = adapter.evaluate(facts);
+        adapter.execute(facts);
+
+        // Then
+        assertThat(evaluated).isTrue();
+        assertThat(adapter).isInstanceOf(RuleAdapter.class);
+        assertThat(((RuleAdapter<?>) adapter).getTarget()).isSameAs(rule);
+        assertThat(adapter.getName()).isEqualTo("age rule");
+        assertThat(adapter.getDescription()).isEqualTo("when isAdult then mark,log");
+        assertThat(adapter.getPriority()).isEqualTo(3);
+        assertThat(adapter.getReadFacts()).containsExactly("age");
+        assertThat(log).containsExactly("marked", "adult");
+    }
+
+    @Test
+    public void whenADeclaredFactIsMissingOrHasTheWrongType_thenTheGeneratedConditionShouldBeFalse() throws Exception {
+        // Given
+        ClassLoader classLoader = compile("test.NameRule",
+                "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "import org.jeasy.rules.api.Facts;\n" +
+                "@Rule\n" +
+                "public class NameRule {\n" +
+                "    @Condition\n" +
+                "    public boolean when(@Fact(\"name\") String name, Facts facts) { return facts != null; }\n" +
+                "    @Action\n" +
+                "    public void then() { }\n" +
+                "}\n");
+        Rule rule = new Rules(classLoader.loadClass("test.NameRule").newInstance()).iterator().next();
+        Facts facts = new Facts();
+
+        // When
+        boolean missing = rule.evaluate(facts);
+        facts.put("name", 42);
+        boolean wrongType = rule.evaluate(facts);
+        facts.put("name", "foo");
+        boolean present = rule.evaluate(facts);
+
+        // Then
+        assertThat(rule).isInstanceOf(RuleAdapter.class);
+        assertThat(rule.getReadFacts()).isEmpty();
+        assertThat(missing).isFalse();
+        assertThat(wrongType).isFalse();
+        assertThat(present).isTrue();
+    }
+
+    @Test
+    public void missingFactPoliciesShouldBeAppliedByGeneratedAdapters() throws Exception {
+        // Given
+        ClassLoader classLoader = compile("test.DiscountRule",
+                "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "import java.util.List;\n" +
+                "@Rule\n" +
+                "public class DiscountRule {\n" +
+                "    @Condition\n" +
+                "    public boolean when(@Fact(value = \"discount\", ifMissing = Fact.Missing.DEFAULT, defaultValue = \"5\") long discount,\n" +
+                "                        @Fact(value = \"coupon\", ifMissing = Fact.Missing.NULL) String coupon) {\n" +
+                "        return discount == 5L && coupon == null;\n" +
+                "    }\n" +
+                "    @Action\n" +
+                "    public void then() { }\n" +
+                "}\n");
+        Rule rule = new Rules(classLoader.loadClass("test.DiscountRule").newInstance()).iterator().next();
+
+        // When
+        boolean evaluated = rule.evaluate(new Facts());
+
+        // Then
+        assertThat(rule).isInstanceOf(RuleAdapter.class);
+        assertThat(evaluated).isTrue();
+    }
+
+    @Test
+    public void nestedRulesShouldBeAdaptedAndComparedToRulesOfOtherClasses() throws Exception {
+        // Given
+        ClassLoader classLoader = compile("test.Rules",
+                "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "import java.util.List;\n" +
+                "public class Rules {\n" +
+                "    @Rule(name = \"first\")\n" +
+                "    public static class FirstRule implements Comparable<FirstRule> {\n" +
+                "        @Condition\n" +
+                "        public boolean when() { return true; }\n" +
+                "        @Action\n" +
+                "        public void b(@Fact(\"log\") List<String> log) { log.add(\"b\"); }\n" +
+                "        @Action\n" +
+                "        public void a(@Fact(\"log\") List<String> log) { log.add(\"a\"); }\n" +
+                "        @Override\n" +
+                "        public int compareTo(FirstRule other) { return 0; }\n" +
+                "    }\n" +
+                "    @Rule(name = \"second\")\n" +
+                "    public static class SecondRule {\n" +
+                "        @Condition\n" +
+                "        public boolean when() { return true; }\n" +
+                "        @Action\n" +
+                "        public void then() { }\n" +
+                "    }\n" +
+                "}\n");
+        Object firstRule = classLoader.loadClass("test.Rules$FirstRule").newInstance();
+        Object secondRule = classLoader.loadClass("test.Rules$SecondRule").newInstance();
+        List<String> log = new ArrayList<>();
+        Facts facts = new Facts();
+        facts.put("log", log);
+
+        // When
+        Rules rules = new Rules(firstRule, secondRule);
+        Rule first = rules.iterator().next();
+        first.execute(facts);
+
+        // Then
+        assertThat(rules).hasSize(2).allMatch(rule -> rule instanceof RuleAdapter);
+        assertThat(first.getClass().getName()).isEqualTo("test.Rules_FirstRule_RuleAdapter");
+        assertThat(first.getName()).isEqualTo("first");
+        assertThat(log).containsExactly("a", "b");
+    }
+
+    @Test
+    public void invalidDefaultValuesShouldBeReportedAtCompileTime() throws Exception {
+        // Given
+        String source = "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "@Rule\n" +
+                "public class InvalidRule {\n" +
+                "    @Condition\n" +
+                "    public boolean when(@Fact(value = \"age\", ifMissing = Fact.Missing.DEFAULT, defaultValue = \"old\") int age) { return true; }\n" +
+                "    @Action\n" +
+                "    public void then() { }\n" +
+                "}\n";
+
+        // When
+        boolean compiled = tryCompile("test.InvalidRule", source);
+
+        // Then
+        assertThat(compiled).isFalse();
+        assertThat(errors()).anyMatch(message -> message.startsWith("Default value 'old' can not be converted to type 'int'"));
+    }
+
+    @Test
+    public void invalidRuleDefinitionsShouldBeReportedAtCompileTime() throws Exception {
+        // Given
+        String source = "package test;\n" +
+                "import org.jeasy.rules.annotation.*;\n" +
+                "@Rule\n" +
+                "public class InvalidRule {\n" +
+                "    @Condition\n" +
+                "    public String when() { return \"true\"; }\n" +
+                "    @Action\n" +
+                "    public void then() { }\n" +
+                "}\n";
+
+        // When
+        boolean compiled = tryCompile("test.InvalidRule", source);
+
+        // Then
+        assertThat(compiled).isFalse();
+        assertThat(errors()).anyMatch(message -> message.startsWith("Condition method 'when()' defined in rule 'test.InvalidRule' must be public, must return boolean type"));
+    }
+
+    private ClassLoader compile(String className, String source) throws Exception {
+        assertThat(tryCompile(className, source)).as("compilation errors: %s", errors()).isTrue();
+        return new URLClassLoader(new URL[]{new File(folder.getRoot(), "classes").toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private boolean tryCompile(String className, String source) throws Exception {
+        File sourceFile = new File(folder.getRoot(), "src/" + className.replace('.', '/') + ".java");
+        File classes = new File(folder.getRoot(), "classes");
+        assertThat(sourceFile.getParentFile().mkdirs()).isTrue();
+        assertThat(classes.mkdirs()).isTrue();
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", classes.getPath(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjects(sourceFile));
+            task.setProcessors(Arrays.asList(new RuleProcessor()));
+            return task.call();
+        }
+    }
+
+    private List<String> errors() {
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        return errors;
+    }
+}
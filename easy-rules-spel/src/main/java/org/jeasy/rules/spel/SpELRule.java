@@ -131,6 +131,17 @@ public class SpELRule extends BasicRule {
         return this;
     }
 
+    /**
+     * Set rule rate limit.
+     *
+     * @param rateLimit maximum number of executions of the rule per second
+     * @return this rule
+     */
+    public SpELRule rateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
     /**
      * Specify the rule's condition as SpEL expression.
      *
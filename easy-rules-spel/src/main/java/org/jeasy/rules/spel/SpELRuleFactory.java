@@ -140,6 +140,7 @@ public class SpELRuleFactory extends AbstractRuleFactory {
                 .description(ruleDefinition.getDescription())
                 .priority(ruleDefinition.getPriority())
                 .threshold(ruleDefinition.getThreshold())
+                .rateLimit(ruleDefinition.getRateLimit())
                 .when(ruleDefinition.getCondition());
         for (String action : ruleDefinition.getActions()) {
             spELRule.then(action);
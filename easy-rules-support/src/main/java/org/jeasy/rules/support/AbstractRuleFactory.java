@@ -31,7 +31,9 @@ import org.jeasy.rules.support.composite.ConditionalRuleGroup;
 import org.jeasy.rules.support.composite.UnitRuleGroup;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for rule factories.
@@ -47,16 +49,44 @@ public abstract class AbstractRuleFactory {
     );
 
     protected Rule createRule(RuleDefinition ruleDefinition) {
+        return createRule(ruleDefinition, ruleDefinition.getFactTypes());
+    }
+
+    /**
+     * Create a rule from its definition with the given fact types, which are those of the
+     * definition merged with those inherited from enclosing composite rules.
+     *
+     * @param ruleDefinition of the rule
+     * @param factTypes of the rule
+     * @return a new rule
+     */
+    protected Rule createRule(RuleDefinition ruleDefinition, Map<String, String> factTypes) {
         if (ruleDefinition.isCompositeRule()) {
-            return createCompositeRule(ruleDefinition);
+            return createCompositeRule(ruleDefinition, factTypes);
         } else {
-            return createSimpleRule(ruleDefinition);
+            return createSimpleRule(ruleDefinition, factTypes);
         }
     }
 
     protected abstract Rule createSimpleRule(RuleDefinition ruleDefinition);
 
+    /**
+     * Create a simple rule from its definition with the given fact types. Factories
+     * supporting fact types must override this method, others ignore fact types.
+     *
+     * @param ruleDefinition of the rule
+     * @param factTypes of the rule
+     * @return a new rule
+     */
+    protected Rule createSimpleRule(RuleDefinition ruleDefinition, Map<String, String> factTypes) {
+        return createSimpleRule(ruleDefinition);
+    }
+
     protected Rule createCompositeRule(RuleDefinition ruleDefinition) {
+        return createCompositeRule(ruleDefinition, ruleDefinition.getFactTypes());
+    }
+
+    protected Rule createCompositeRule(RuleDefinition ruleDefinition, Map<String, String> factTypes) {
         if (ruleDefinition.getCondition() != null) {
             log.warn(
                     "Condition '{}' in composite rule '{}' of type {} will be ignored.",
@@ -89,9 +119,13 @@ public abstract class AbstractRuleFactory {
         compositeRule.setDescription(ruleDefinition.getDescription());
         compositeRule.setPriority(ruleDefinition.getPriority());
         compositeRule.setThreshold(ruleDefinition.getThreshold());
+        compositeRule.setRateLimit(ruleDefinition.getRateLimit());
 
         for (RuleDefinition composingRuleDefinition : ruleDefinition.getComposingRules()) {
-            compositeRule.addRule(createRule(composingRuleDefinition));
+            // fact types declared by a composite rule apply to its composing rules, unless they declare their own
+            Map<String, String> composingFactTypes = new LinkedHashMap<>(factTypes);
+            composingFactTypes.putAll(composingRuleDefinition.getFactTypes());
+            compositeRule.addRule(createRule(composingRuleDefinition, composingFactTypes));
         }
 
         return compositeRule;
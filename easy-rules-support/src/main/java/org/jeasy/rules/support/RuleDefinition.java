@@ -26,7 +26,9 @@ package org.jeasy.rules.support;
 import org.jeasy.rules.api.Rule;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Rule definition as defined in a rule descriptor.
@@ -43,6 +45,8 @@ public class RuleDefinition {
     private String description = Rule.DEFAULT_DESCRIPTION;
     private int priority = Rule.DEFAULT_PRIORITY;
     private double threshold = Rule.DEFAULT_THRESHOLD;
+    private double rateLimit = Rule.NO_RATE_LIMIT;
+    private Map<String, String> factTypes = new LinkedHashMap<>();
     private String condition;
     private List<String> actions = new ArrayList<>();
     private List<RuleDefinition> composingRules = new ArrayList<>();
@@ -88,6 +92,28 @@ public class RuleDefinition {
         this.threshold = threshold;
     }
 
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * Return the declared types of the facts used by the rule, as fully qualified class names
+     * by fact name. Rule factories may use them to type check expressions.
+     *
+     * @return the declared fact types, empty if none are declared
+     */
+    public Map<String, String> getFactTypes() {
+        return factTypes;
+    }
+
+    public void setFactTypes(Map<String, String> factTypes) {
+        this.factTypes = factTypes;
+    }
+
     public List<String> getActions() {
         return actions;
     }
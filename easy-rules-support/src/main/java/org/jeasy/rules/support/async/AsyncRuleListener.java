@@ -0,0 +1,335 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rule listener delivering callbacks to a delegate listener on a dedicated thread.
+ * <p>
+ * Callbacks are copied into a preallocated ring buffer and return immediately, so that
+ * the cost of the delegate (writing to a message queue, a database, etc) is not paid by
+ * the thread firing rules. When the buffer is full, events are handled according to the
+ * configured {@link OverflowPolicy}. Only the callbacks overridden by the delegate are
+ * published, the others are ignored. When the buffer stays empty, the delivery thread
+ * sleeps until an event is published.
+ * <p>
+ * Since callbacks are delivered asynchronously:
+ * <ul>
+ *     <li>{@link #beforeEvaluate(Rule, Facts)} always returns true: the delegate can not veto
+ *     the evaluation of a rule</li>
+ *     <li>facts are passed by reference and may have changed by the time the delegate is
+ *     called, unless facts copying is enabled (which allocates a copy per event)</li>
+ * </ul>
+ * Listeners must be {@link #close() closed} to deliver pending events and stop the delivery thread.
+ * If the delegate throws an error, the delivery thread stops and all subsequent events are dropped.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class AsyncRuleListener implements RuleListener, AutoCloseable {
+
+    /**
+     * Threads publishing events in the buffer.
+     */
+    public enum ProducerType {
+        /**
+         * Events are published by a single thread at a time (one rules engine firing rules
+         * sequentially), sequences are claimed without compare-and-set.
+         */
+        SINGLE,
+        /**
+         * Events may be published concurrently by several threads.
+         */
+        MULTI
+    }
+
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the event.
+         */
+        DROP,
+        /**
+         * Wait for the delivery thread to make room for the event.
+         */
+        BLOCK,
+        /**
+         * Once the buffer is three quarters full, keep only one event out of
+         * 8 and drop the others, and drop all events when it is full.
+         */
+        SAMPLE
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    static final int SAMPLING_RATE = 8;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRuleListener.class);
+    private static final AtomicLong THREAD_COUNT = new AtomicLong();
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final RuleListener delegate;
+    private final EventRingBuffer buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean copyFacts;
+    private final int samplingThreshold;
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicLong overflowingEvents = new AtomicLong();
+    private final int phases;
+    private final Thread deliveryThread;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile boolean deliveryWaiting;
+
+    /**
+     * Create a new {@link AsyncRuleListener} with a buffer of {@value #DEFAULT_BUFFER_SIZE}
+     * events, accepting events from multiple threads and blocking when the buffer is full.
+     *
+     * @param delegate listener to deliver events to
+     */
+    public AsyncRuleListener(RuleListener delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE, ProducerType.MULTI, OverflowPolicy.BLOCK, false);
+    }
+
+    /**
+     * Create a new {@link AsyncRuleListener}.
+     *
+     * @param delegate listener to deliver events to
+     * @param bufferSize number of events the buffer can hold, must be a power of two
+     * @param producerType threads publishing events
+     * @param overflowPolicy what to do with events when the buffer is full
+     * @param copyFacts true to deliver a copy of facts as they were when the event was published
+     */
+    public AsyncRuleListener(RuleListener delegate, int bufferSize, ProducerType producerType,
+                             OverflowPolicy overflowPolicy, boolean copyFacts) {
+        this.delegate = delegate;
+        this.buffer = new EventRingBuffer(bufferSize, producerType == ProducerType.MULTI);
+        this.overflowPolicy = overflowPolicy;
+        this.copyFacts = copyFacts;
+        this.samplingThreshold = bufferSize - bufferSize / 4;
+        this.phases = phasesOf(delegate.getClass());
+        this.deliveryThread = new Thread(this::deliver, "easy-rules-async-listener-" + THREAD_COUNT.incrementAndGet());
+        this.deliveryThread.setDaemon(true);
+        this.deliveryThread.start();
+    }
+
+    /**
+     * Return the number of events that have been dropped, either because the buffer was full
+     * or because they were published after the listener has been closed.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Deliver pending events and stop the delivery thread. Events published
+     * after this listener has been closed are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(deliveryThread);
+        try {
+            deliveryThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean beforeEvaluate(Rule rule, Facts facts) {
+        publish(ListenerEvent.BEFORE_EVALUATE, rule, facts, null, null, null);
+        return true;
+    }
+
+    @Override
+    public void afterEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+        publish(ListenerEvent.AFTER_EVALUATE, rule, facts, evaluationResult, randomResult, null);
+    }
+
+    @Override
+    public void onEvaluationError(Rule rule, Facts facts, Exception exception) {
+        publish(ListenerEvent.EVALUATION_ERROR, rule, facts, null, null, exception);
+    }
+
+    @Override
+    public void beforeExecute(Rule rule, Facts facts) {
+        publish(ListenerEvent.BEFORE_EXECUTE, rule, facts, null, null, null);
+    }
+
+    @Override
+    public void onSuccess(Rule rule, Facts facts) {
+        publish(ListenerEvent.SUCCESS, rule, facts, null, null, null);
+    }
+
+    @Override
+    public void onFailure(Rule rule, Facts facts, Exception exception) {
+        publish(ListenerEvent.FAILURE, rule, facts, null, null, exception);
+    }
+
+    @Override
+    public void onRateLimited(Rule rule, Facts facts) {
+        publish(ListenerEvent.RATE_LIMITED, rule, facts, null, null, null);
+    }
+
+    private void publish(int type, Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult, Exception exception) {
+        if ((phases & 1 << type) == 0) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            droppedEvents.increment();
+            return;
+        }
+        buffer.get(sequence).set(type, rule, copyFacts ? copy(facts) : facts, evaluationResult, randomResult, exception);
+        buffer.publish(sequence);
+        if (deliveryWaiting) {
+            LockSupport.unpark(deliveryThread);
+        }
+    }
+
+    private long claim() {
+        if (closed || stopped) {
+            return -1;
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE && buffer.size() >= samplingThreshold
+                && overflowingEvents.getAndIncrement() % SAMPLING_RATE != 0) {
+            return -1;
+        }
+        long sequence = buffer.tryClaim();
+        if (sequence >= 0 || overflowPolicy != OverflowPolicy.BLOCK) {
+            return sequence;
+        }
+        for (int tries = 0; sequence < 0; tries++) {
+            if (closed || stopped) {
+                return -1;
+            }
+            idle(tries);
+            sequence = buffer.tryClaim();
+        }
+        return sequence;
+    }
+
+    private void deliver() {
+        try {
+            int tries = 0;
+            while (!closed || !buffer.isEmpty()) {
+                ListenerEvent event = buffer.peek();
+                if (event == null) {
+                    if (tries < SPIN_TRIES + YIELD_TRIES) {
+                        idle(tries++);
+                    } else {
+                        awaitEvent();
+                    }
+                    continue;
+                }
+                tries = 0;
+                try {
+                    event.deliverTo(delegate);
+                } catch (Exception e) {
+                    LOGGER.error("Unable to deliver rule listener event to " + delegate, e);
+                } finally {
+                    buffer.release(event);
+                }
+            }
+        } catch (Throwable throwable) {
+            LOGGER.error("Rule listener events will no longer be delivered to " + delegate, throwable);
+            throw throwable;
+        } finally {
+            // producers blocked on a full buffer must not wait for a dead delivery thread
+            stopped = true;
+        }
+    }
+
+    /*
+     * Producers read the waiting flag after publishing an event, and the delivery
+     * thread peeks the buffer again after setting it: either the producer sees the
+     * flag and unparks the delivery thread, or the delivery thread sees the event.
+     */
+    private void awaitEvent() {
+        deliveryWaiting = true;
+        if (!closed && buffer.peek() == null) {
+            LockSupport.park(this);
+        }
+        deliveryWaiting = false;
+    }
+
+    private static void idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            return;
+        }
+        if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /*
+     * Callbacks not overridden by the delegate are no-ops, there is no need to publish them
+     */
+    private static int phasesOf(Class<?> type) {
+        int phases = 0;
+        phases |= overrides(type, ListenerEvent.BEFORE_EVALUATE, "beforeEvaluate", Rule.class, Facts.class);
+        phases |= overrides(type, ListenerEvent.AFTER_EVALUATE, "afterEvaluate", Rule.class, Facts.class, Boolean.class, Boolean.class);
+        phases |= overrides(type, ListenerEvent.EVALUATION_ERROR, "onEvaluationError", Rule.class, Facts.class, Exception.class);
+        phases |= overrides(type, ListenerEvent.BEFORE_EXECUTE, "beforeExecute", Rule.class, Facts.class);
+        phases |= overrides(type, ListenerEvent.SUCCESS, "onSuccess", Rule.class, Facts.class);
+        phases |= overrides(type, ListenerEvent.FAILURE, "onFailure", Rule.class, Facts.class, Exception.class);
+        phases |= overrides(type, ListenerEvent.RATE_LIMITED, "onRateLimited", Rule.class, Facts.class);
+        return phases;
+    }
+
+    private static int overrides(Class<?> type, int event, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes).getDeclaringClass() == RuleListener.class ? 0 : 1 << event;
+        } catch (NoSuchMethodException | SecurityException e) {
+            // can not tell, assume the delegate is interested
+            return 1 << event;
+        }
+    }
+
+    private static Facts copy(Facts facts) {
+        Facts copy = new Facts();
+        for (Fact<?> fact : facts) {
+            copy.add(fact);
+        }
+        return copy;
+    }
+}
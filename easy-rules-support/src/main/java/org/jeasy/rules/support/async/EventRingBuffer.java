@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring of preallocated {@link ListenerEvent}s with a single consumer.
+ * <p>
+ * Producers claim a sequence, fill the slot at this sequence and publish it by writing
+ * the sequence in the slot. The consumer waits for the slot of the next sequence to be
+ * published, reads it and releases it by advancing the consumed sequence. A sequence can
+ * only be claimed when its slot has been released, so claiming fails when the buffer is full.
+ * <p>
+ * With a single producer, sequences are claimed without compare-and-set.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class EventRingBuffer {
+
+    private final ListenerEvent[] events;
+    private final int mask;
+    private final boolean multiProducer;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    EventRingBuffer(int capacity, boolean multiProducer) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two, was " + capacity);
+        }
+        this.events = new ListenerEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new ListenerEvent();
+        }
+        this.mask = capacity - 1;
+        this.multiProducer = multiProducer;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    /**
+     * Return the number of claimed sequences that have not been consumed yet.
+     */
+    int size() {
+        return (int) (claimed.get() - consumed.get());
+    }
+
+    /**
+     * Claim the next sequence.
+     *
+     * @return the claimed sequence, or -1 if the buffer is full
+     */
+    long tryClaim() {
+        if (!multiProducer) {
+            long sequence = claimed.get();
+            if (sequence - consumed.get() >= events.length) {
+                return -1;
+            }
+            claimed.lazySet(sequence + 1);
+            return sequence;
+        }
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed.get() >= events.length) {
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    ListenerEvent get(long sequence) {
+        return events[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        get(sequence).sequence = sequence;
+    }
+
+    /**
+     * Return the event published at the next sequence to consume.
+     *
+     * @return the next event, or null if it has not been published yet
+     */
+    ListenerEvent peek() {
+        long sequence = consumed.get();
+        ListenerEvent event = get(sequence);
+        return event.sequence == sequence ? event : null;
+    }
+
+    /**
+     * Release the event returned by {@link #peek()}.
+     */
+    void release(ListenerEvent event) {
+        event.clear();
+        consumed.lazySet(consumed.get() + 1);
+    }
+
+    boolean isEmpty() {
+        return consumed.get() == claimed.get();
+    }
+}
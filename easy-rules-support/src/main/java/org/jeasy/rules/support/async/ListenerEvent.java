@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.async;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+
+/**
+ * Preallocated slot of an {@link EventRingBuffer} holding a rule listener callback.
+ * <p>
+ * Fields are written by the producer that claimed the slot before the slot is published
+ * (by writing its sequence), and cleared by the consumer after delivery so that facts
+ * and rules are not retained by the buffer.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+final class ListenerEvent {
+
+    static final int BEFORE_EVALUATE = 0;
+    static final int AFTER_EVALUATE = 1;
+    static final int EVALUATION_ERROR = 2;
+    static final int BEFORE_EXECUTE = 3;
+    static final int SUCCESS = 4;
+    static final int FAILURE = 5;
+    static final int RATE_LIMITED = 6;
+
+    volatile long sequence = -1;
+
+    int type;
+    Rule rule;
+    Facts facts;
+    Boolean evaluationResult;
+    Boolean randomResult;
+    Exception exception;
+
+    void set(int type, Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult, Exception exception) {
+        this.type = type;
+        this.rule = rule;
+        this.facts = facts;
+        this.evaluationResult = evaluationResult;
+        this.randomResult = randomResult;
+        this.exception = exception;
+    }
+
+    void deliverTo(RuleListener listener) {
+        switch (type) {
+            case BEFORE_EVALUATE:
+                listener.beforeEvaluate(rule, facts);
+                break;
+            case AFTER_EVALUATE:
+                listener.afterEvaluate(rule, facts, evaluationResult, randomResult);
+                break;
+            case EVALUATION_ERROR:
+                listener.onEvaluationError(rule, facts, exception);
+                break;
+            case BEFORE_EXECUTE:
+                listener.beforeExecute(rule, facts);
+                break;
+            case SUCCESS:
+                listener.onSuccess(rule, facts);
+                break;
+            case FAILURE:
+                listener.onFailure(rule, facts, exception);
+                break;
+            case RATE_LIMITED:
+                listener.onRateLimited(rule, facts);
+                break;
+            default:
+                throw new IllegalStateException("Unknown listener event type " + type);
+        }
+    }
+
+    void clear() {
+        rule = null;
+        facts = null;
+        evaluationResult = null;
+        randomResult = null;
+        exception = null;
+    }
+}
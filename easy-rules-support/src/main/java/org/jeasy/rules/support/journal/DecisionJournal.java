@@ -0,0 +1,273 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+import org.jeasy.rules.api.Fact;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+
+/**
+ * Append-only journal of the decisions taken by a rules engine, for audit and replay.
+ * <p>
+ * For each fire, the journal appends a fixed-size binary record holding a fire id, a timestamp,
+ * the result of the fire, the ordinals of matched and executed rules (see {@link FireResult}) and
+ * optionally a hash of the facts. Records are composed in a per-thread buffer and copied in one
+ * go into a memory-mapped segment file, so that journaling a fire does not format any string nor
+ * allocate any object. Segments are rotated once full, and the oldest segments can be deleted to
+ * bound the disk usage of the journal.
+ * <p>
+ * Records are written to the page cache: they survive a crash of the JVM but not a crash of the
+ * operating system, unless the journal is {@link #flush() flushed}. Journals can be read with a
+ * {@link DecisionJournalReader}.
+ * <p>
+ * This class is thread safe. A journal directory must be written by a single journal at a time.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class DecisionJournal implements Closeable {
+
+    public static final int DEFAULT_MAX_RULES = 256;
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 64 * 1024;
+
+    static final int MAGIC = 0x45524a31; // "ERJ1"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 32;
+    static final int RECORD_HEADER_SIZE = 32;
+    static final int RESULT_FLAG = 1;
+    static final int TRUNCATED_FLAG = 2;
+    static final String SEGMENT_PREFIX = "decisions-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int maxRules;
+    private final int words;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    private final boolean hashFacts;
+    private final ThreadLocal<ByteBuffer> records;
+    private MappedByteBuffer segment;
+    private long nextFireId;
+    private boolean closed;
+
+    /**
+     * Create a new {@link DecisionJournal} recording up to {@value #DEFAULT_MAX_RULES} rules per fire,
+     * in segments of {@value #DEFAULT_RECORDS_PER_SEGMENT} records, without facts hashing and
+     * without deleting old segments.
+     *
+     * @param directory where to write segment files, created if needed
+     * @throws IOException if the directory can not be created or read
+     */
+    public DecisionJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_RULES, DEFAULT_RECORDS_PER_SEGMENT, 0, false);
+    }
+
+    /**
+     * Create a new {@link DecisionJournal}. If the directory already contains a journal,
+     * fire ids continue from the last journaled fire, in a new segment.
+     *
+     * @param directory where to write segment files, created if needed
+     * @param maxRules maximum number of rules recorded per fire, rules having a greater ordinal are not recorded
+     * @param recordsPerSegment number of records per segment file
+     * @param maxSegments maximum number of segment files to keep, 0 to keep all of them
+     * @param hashFacts true to record a hash of the facts of each fire
+     * @throws IOException if the directory can not be created or read
+     */
+    public DecisionJournal(Path directory, int maxRules, int recordsPerSegment, int maxSegments, boolean hashFacts)
+            throws IOException {
+        Objects.requireNonNull(directory, "directory must not be null");
+        if (maxRules < 1) {
+            throw new IllegalArgumentException("Max rules must be greater than or equal to 1");
+        }
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("Records per segment must be greater than or equal to 1");
+        }
+        if (maxSegments < 0) {
+            throw new IllegalArgumentException("Max segments must be positive or 0");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxRules = maxRules;
+        this.words = (maxRules + 63) >>> 6;
+        this.recordSize = RECORD_HEADER_SIZE + 2 * 8 * words;
+        if ((long) recordSize * recordsPerSegment > Integer.MAX_VALUE - SEGMENT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segments can not be larger than 2GB");
+        }
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        this.hashFacts = hashFacts;
+        this.records = ThreadLocal.withInitial(() -> ByteBuffer.allocate(recordSize).order(ByteOrder.LITTLE_ENDIAN));
+        this.nextFireId = new DecisionJournalReader(directory).getLastFireId() + 1;
+        // a crash right after a rotation leaves an empty segment named after the next fire id
+        Files.deleteIfExists(directory.resolve(segmentName(nextFireId)));
+    }
+
+    /**
+     * Append the decision of a fire to the journal.
+     *
+     * @param fireResult of the fire
+     * @param facts of the fire, used only if facts hashing is enabled
+     * @return the id of the journaled fire
+     * @throws IOException if a new segment can not be created
+     */
+    public long append(FireResult fireResult, Facts facts) throws IOException {
+        ByteBuffer record = records.get();
+        int ruleCount = fireResult.size();
+        int flags = (fireResult.getResult() ? RESULT_FLAG : 0) | (ruleCount > maxRules ? TRUNCATED_FLAG : 0);
+        record.putLong(8, System.currentTimeMillis());
+        record.putLong(16, hashFacts ? hash(facts) : 0L);
+        record.putInt(24, ruleCount);
+        record.putInt(28, flags);
+        putBitmaps(record, fireResult);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Decision journal is closed");
+            }
+            if (segment == null || !segment.hasRemaining()) {
+                rotate();
+            }
+            long fireId = nextFireId++;
+            record.putLong(0, fireId);
+            record.clear();
+            segment.put(record);
+            return fireId;
+        }
+    }
+
+    /**
+     * Force the records appended so far to the storage device.
+     */
+    public synchronized void flush() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getMaxRules() {
+        return maxRules;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            flush();
+            segment = null;
+            closed = true;
+        }
+    }
+
+    private void putBitmaps(ByteBuffer record, FireResult fireResult) {
+        int matchedOffset = RECORD_HEADER_SIZE;
+        int executedOffset = RECORD_HEADER_SIZE + 8 * words;
+        for (int word = 0; word < words; word++) {
+            long matched = 0L;
+            long executed = 0L;
+            int end = Math.min(fireResult.size(), Math.min(maxRules, (word + 1) << 6));
+            for (int ordinal = word << 6; ordinal < end; ordinal++) {
+                if (fireResult.isMatched(ordinal)) {
+                    matched |= 1L << ordinal;
+                }
+                if (fireResult.isExecuted(ordinal)) {
+                    executed |= 1L << ordinal;
+                }
+            }
+            record.putLong(matchedOffset + 8 * word, matched);
+            record.putLong(executedOffset + 8 * word, executed);
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        Path path = directory.resolve(segmentName(nextFireId));
+        int size = SEGMENT_HEADER_SIZE + recordSize * recordsPerSegment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(MAGIC);
+            mapped.putInt(FORMAT_VERSION);
+            mapped.putInt(words);
+            mapped.putInt(recordSize);
+            mapped.putLong(nextFireId);
+            mapped.position(SEGMENT_HEADER_SIZE);
+            segment = mapped;
+        }
+        if (maxSegments > 0) {
+            List<Path> segments = DecisionJournalReader.segmentsOf(directory);
+            for (int i = 0; i < segments.size() - maxSegments; i++) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    static String segmentName(long firstFireId) {
+        String id = Long.toString(firstFireId);
+        StringBuilder name = new StringBuilder(SEGMENT_PREFIX);
+        for (int i = id.length(); i < 19; i++) {
+            name.append('0');
+        }
+        return name.append(id).append(SEGMENT_SUFFIX).toString();
+    }
+
+    /*
+     * Order independent hash of fact names and values, relying on the hashCode
+     * of fact values: it is stable across runs for strings, numbers, enums
+     * (by name) and other value types overriding hashCode.
+     */
+    static long hash(Facts facts) {
+        long hash = 0L;
+        for (Fact<?> fact : facts) {
+            Object value = fact.getValue();
+            int valueHash = value instanceof Enum ? ((Enum<?>) value).name().hashCode() : Objects.hashCode(value);
+            hash += mix(((long) fact.getName().hashCode() << 32) ^ (valueHash & 0xffffffffL));
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.journal;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+/**
+ * Command line tool printing the records of a {@link DecisionJournal}, one per line:
+ * <pre>
+ * java -cp easy-rules-support.jar:easy-rules-core.jar org.jeasy.rules.support.journal.DecisionJournalCli \
+ *     &lt;directory&gt; [--from &lt;epoch millis&gt;] [--to &lt;epoch millis&gt;] [--fire &lt;fire id&gt;] \
+ *     [--matched &lt;ordinal&gt;] [--executed &lt;ordinal&gt;] [--facts-hash &lt;hex&gt;]
+ * </pre>
+ * Filters are combined: only records matching all of them are printed.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class DecisionJournalCli {
+
+    private static final String USAGE = "Usage: DecisionJournalCli <directory> [--from <epoch millis>] [--to <epoch millis>]"
+            + " [--fire <fire id>] [--matched <ordinal>] [--executed <ordinal>] [--facts-hash <hex>]";
+
+    private DecisionJournalCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            err.println(USAGE);
+            return 2;
+        }
+        Path directory = Paths.get(args[0]);
+        Predicate<DecisionRecord> filter = record -> true;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                filter = filter.and(filterOf(args[i], args[i + 1]));
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        for (DecisionRecord record : new DecisionJournalReader(directory)) {
+            if (filter.test(record)) {
+                out.println(format(record));
+            }
+        }
+        return 0;
+    }
+
+    private static Predicate<DecisionRecord> filterOf(String option, String value) {
+        switch (option) {
+            case "--from":
+                long from = Long.parseLong(value);
+                return record -> record.getTimestamp() >= from;
+            case "--to":
+                long to = Long.parseLong(value);
+                return record -> record.getTimestamp() <= to;
+            case "--fire":
+                long fireId = Long.parseLong(value);
+                return record -> record.getFireId() == fireId;
+            case "--matched":
+                int matched = Integer.parseInt(value);
+                return record -> record.isMatched(matched);
+            case "--executed":
+                int executed = Integer.parseInt(value);
+                return record -> record.isExecuted(executed);
+            case "--facts-hash":
+                long factsHash = Long.parseUnsignedLong(value, 16);
+                return record -> record.getFactsHash() == factsHash;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    static String format(DecisionRecord record) {
+        return record.getFireId() + " " + Instant.ofEpochMilli(record.getTimestamp()) +
+                " result=" + record.getResult() +
+                " rules=" + record.getRuleCount() + (record.isTruncated() ? " (truncated)" : "") +
+                " matched=" + record.getMatched() +
+                " executed=" + record.getExecuted() +
+                " factsHash=" + Long.toHexString(record.getFactsHash());
+    }
+}
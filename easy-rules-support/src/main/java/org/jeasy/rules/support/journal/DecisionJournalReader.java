@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static org.jeasy.rules.support.journal.DecisionJournal.MAGIC;
+import static org.jeasy.rules.support.journal.DecisionJournal.RECORD_HEADER_SIZE;
+import static org.jeasy.rules.support.journal.DecisionJournal.RESULT_FLAG;
+import static org.jeasy.rules.support.journal.DecisionJournal.SEGMENT_HEADER_SIZE;
+import static org.jeasy.rules.support.journal.DecisionJournal.SEGMENT_PREFIX;
+import static org.jeasy.rules.support.journal.DecisionJournal.SEGMENT_SUFFIX;
+import static org.jeasy.rules.support.journal.DecisionJournal.TRUNCATED_FLAG;
+
+/**
+ * Reader of the segment files written by a {@link DecisionJournal}.
+ * <p>
+ * Records are iterated in the order they were journaled, segment by segment.
+ * Segments are mapped in memory one at a time, and records are decoded lazily.
+ * A journal can be read while it is written, records appended after the
+ * iteration has reached them may not be returned.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class DecisionJournalReader implements Iterable<DecisionRecord> {
+
+    private final Path directory;
+
+    /**
+     * Create a new {@link DecisionJournalReader}.
+     *
+     * @param directory containing the segment files of a journal
+     */
+    public DecisionJournalReader(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "directory must not be null");
+    }
+
+    /**
+     * Return the records matching the given predicate.
+     *
+     * @param predicate to select records
+     * @return matching records in the order they were journaled
+     */
+    public List<DecisionRecord> query(Predicate<DecisionRecord> predicate) {
+        List<DecisionRecord> result = new ArrayList<>();
+        for (DecisionRecord record : this) {
+            if (predicate.test(record)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the id of the last journaled fire.
+     *
+     * @return the last fire id, 0 if the journal is empty
+     * @throws IOException if segments can not be read
+     */
+    public long getLastFireId() throws IOException {
+        List<Path> segments = segmentsOf(directory);
+        if (segments.isEmpty()) {
+            return 0L;
+        }
+        // fire ids are contiguous, so the last segment alone gives the last fire id, even if it is empty
+        Segment segment = Segment.open(segments.get(segments.size() - 1));
+        return segment.firstFireId() + segment.count() - 1;
+    }
+
+    /**
+     * Iterate over journaled records.
+     *
+     * @return an iterator over records, throwing an {@link UncheckedIOException} if a segment can not be read
+     */
+    @Override
+    public Iterator<DecisionRecord> iterator() {
+        final List<Path> segments;
+        try {
+            segments = segmentsOf(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Iterator<DecisionRecord>() {
+
+            private int nextSegment;
+            private Segment segment;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (segment == null || !segment.hasRecord(index)) {
+                    if (nextSegment == segments.size()) {
+                        return false;
+                    }
+                    try {
+                        segment = Segment.open(segments.get(nextSegment++));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public DecisionRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return segment.record(index++);
+            }
+        };
+    }
+
+    static List<Path> segmentsOf(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // segment names embed the zero padded id of their first fire
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final int words;
+        private final int recordSize;
+        private final int capacity;
+
+        private Segment(MappedByteBuffer buffer, int words, int recordSize) {
+            this.buffer = buffer;
+            this.words = words;
+            this.recordSize = recordSize;
+            this.capacity = (buffer.capacity() - SEGMENT_HEADER_SIZE) / recordSize;
+        }
+
+        static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (buffer.capacity() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                    throw new IOException("Not a decision journal segment: " + path);
+                }
+                int words = buffer.getInt(8);
+                int recordSize = buffer.getInt(12);
+                if (recordSize != RECORD_HEADER_SIZE + 2 * 8 * words) {
+                    throw new IOException("Corrupted decision journal segment: " + path);
+                }
+                return new Segment(buffer, words, recordSize);
+            }
+        }
+
+        boolean hasRecord(int index) {
+            return index < capacity && fireId(index) != 0L;
+        }
+
+        long firstFireId() {
+            return buffer.getLong(16);
+        }
+
+        long fireId(int index) {
+            return buffer.getLong(offsetOf(index));
+        }
+
+        /*
+         * Records fill segments from the start, so the number of
+         * records is found by a binary search of the first free slot.
+         */
+        int count() {
+            int low = 0;
+            int high = capacity;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (fireId(middle) != 0L) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        DecisionRecord record(int index) {
+            int offset = offsetOf(index);
+            int flags = buffer.getInt(offset + 28);
+            return new DecisionRecord(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                    buffer.getInt(offset + 24), (flags & RESULT_FLAG) != 0, (flags & TRUNCATED_FLAG) != 0,
+                    bitmap(offset + RECORD_HEADER_SIZE), bitmap(offset + RECORD_HEADER_SIZE + 8 * words));
+        }
+
+        private BitSet bitmap(int offset) {
+            long[] bits = new long[words];
+            for (int word = 0; word < words; word++) {
+                bits[word] = buffer.getLong(offset + 8 * word);
+            }
+            return BitSet.valueOf(bits);
+        }
+
+        private int offsetOf(int index) {
+            return SEGMENT_HEADER_SIZE + index * recordSize;
+        }
+    }
+}
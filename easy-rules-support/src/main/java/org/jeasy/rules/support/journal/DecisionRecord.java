@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.journal;
+
+import java.util.BitSet;
+
+/**
+ * Decision of a fire read from a {@link DecisionJournal}.
+ * <p>
+ * Rules are identified by their ordinal in the iteration order of the fired rules
+ * (see {@link org.jeasy.rules.api.FireResult}).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class DecisionRecord {
+
+    private final long fireId;
+    private final long timestamp;
+    private final long factsHash;
+    private final int ruleCount;
+    private final boolean result;
+    private final boolean truncated;
+    private final BitSet matched;
+    private final BitSet executed;
+
+    DecisionRecord(long fireId, long timestamp, long factsHash, int ruleCount, boolean result, boolean truncated,
+                   BitSet matched, BitSet executed) {
+        this.fireId = fireId;
+        this.timestamp = timestamp;
+        this.factsHash = factsHash;
+        this.ruleCount = ruleCount;
+        this.result = result;
+        this.truncated = truncated;
+        this.matched = matched;
+        this.executed = executed;
+    }
+
+    /**
+     * Return the id of the fire, starting at 1 and increasing in the order fires were journaled.
+     *
+     * @return the fire id
+     */
+    public long getFireId() {
+        return fireId;
+    }
+
+    /**
+     * Return the time the fire was journaled.
+     *
+     * @return the timestamp in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Return the hash of the facts, if facts hashing is enabled.
+     *
+     * @return the facts hash, 0 if facts hashing is disabled
+     */
+    public long getFactsHash() {
+        return factsHash;
+    }
+
+    /**
+     * Return the number of fired rules.
+     *
+     * @return the number of fired rules
+     */
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public boolean getResult() {
+        return result;
+    }
+
+    /**
+     * Return true if more rules were fired than the journal can record, in which case
+     * only the rules whose ordinal is lower than the journal's maximum are recorded.
+     *
+     * @return true if the record is truncated
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Return the ordinals of rules whose condition matched.
+     *
+     * @return a copy of the ordinals of matched rules
+     */
+    public BitSet getMatched() {
+        return (BitSet) matched.clone();
+    }
+
+    /**
+     * Return the ordinals of rules executed successfully.
+     *
+     * @return a copy of the ordinals of executed rules
+     */
+    public BitSet getExecuted() {
+        return (BitSet) executed.clone();
+    }
+
+    public boolean isMatched(int ordinal) {
+        return matched.get(ordinal);
+    }
+
+    public boolean isExecuted(int ordinal) {
+        return executed.get(ordinal);
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionRecord { fireId = " + fireId + ", timestamp = " + timestamp +
+                ", factsHash = " + Long.toHexString(factsHash) + ", ruleCount = " + ruleCount +
+                ", result = " + result + ", truncated = " + truncated +
+                ", matched = " + matched + ", executed = " + executed + " }";
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+/**
+ * Immutable snapshot of a {@link LatencyHistogram}.
+ * <p>
+ * Values are reported as the highest value of the bucket they were counted in,
+ * so they are overestimated by less than 1/8.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.count = count;
+    }
+
+    /**
+     * Return the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Return the value below which the given percentage of recorded values fall.
+     *
+     * @param percentile between 0 and 100
+     * @return the value at the given percentile in nanoseconds, or 0 if no value has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        double boundedPercentile = Math.min(Math.max(percentile, 0d), 100d);
+        long rank = Math.max(1, (long) Math.ceil(boundedPercentile / 100d * count));
+        long cumulativeCount = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            cumulativeCount += counts[bucket];
+            if (cumulativeCount >= rank) {
+                return LatencyHistogram.highestValueOf(bucket);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Return the mean of recorded values.
+     *
+     * @return the mean in nanoseconds, or 0 if no value has been recorded
+     */
+    public double getMean() {
+        if (count == 0) {
+            return 0d;
+        }
+        double total = 0d;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] != 0) {
+                double middle = (LatencyHistogram.lowestValueOf(bucket) + LatencyHistogram.highestValueOf(bucket)) / 2d;
+                total += middle * counts[bucket];
+            }
+        }
+        return total / count;
+    }
+
+    /**
+     * Return the highest recorded value.
+     *
+     * @return the highest value in nanoseconds, or 0 if no value has been recorded
+     */
+    public long getMax() {
+        for (int bucket = counts.length - 1; bucket >= 0; bucket--) {
+            if (counts[bucket] != 0) {
+                return LatencyHistogram.highestValueOf(bucket);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot { count = " + count + ", mean = " + getMean() +
+                ", p50 = " + getValueAtPercentile(50) + ", p99 = " + getValueAtPercentile(99) +
+                ", max = " + getMax() + " }";
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a rule: evaluation and execution counts, errors and latencies.
+ * <p>
+ * Counters are striped ({@link LongAdder}) and latencies are recorded in
+ * {@link LatencyHistogram}s, so that metrics can be recorded concurrently without locking.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class RuleMetrics implements RuleMetricsMXBean {
+
+    private final String ruleName;
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder evaluationErrors = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder executionFailures = new LongAdder();
+    private volatile LatencyHistogram evaluationLatency = new LatencyHistogram();
+    private volatile LatencyHistogram executionLatency = new LatencyHistogram();
+
+    RuleMetrics(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    void evaluated(boolean matched, long latency) {
+        evaluations.increment();
+        if (matched) {
+            matches.increment();
+        }
+        if (latency >= 0) {
+            evaluationLatency.record(latency);
+        }
+    }
+
+    void evaluationFailed(long latency) {
+        evaluations.increment();
+        evaluationErrors.increment();
+        if (latency >= 0) {
+            evaluationLatency.record(latency);
+        }
+    }
+
+    void executed(boolean succeeded, long latency) {
+        executions.increment();
+        if (!succeeded) {
+            executionFailures.increment();
+        }
+        if (latency >= 0) {
+            executionLatency.record(latency);
+        }
+    }
+
+    /**
+     * Return a snapshot of the metrics of the rule.
+     *
+     * @return a snapshot of the metrics of the rule
+     */
+    public RuleMetricsSnapshot snapshot() {
+        return new RuleMetricsSnapshot(ruleName, evaluations.sum(), matches.sum(), evaluationErrors.sum(),
+                executions.sum(), executionFailures.sum(), evaluationLatency.snapshot(), executionLatency.snapshot());
+    }
+
+    @Override
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    @Override
+    public double getMatchRate() {
+        long evaluations = getEvaluations();
+        return evaluations == 0 ? 0d : (double) getMatches() / evaluations;
+    }
+
+    @Override
+    public long getEvaluationErrors() {
+        return evaluationErrors.sum();
+    }
+
+    @Override
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    @Override
+    public long getExecutionFailures() {
+        return executionFailures.sum();
+    }
+
+    @Override
+    public double getEvaluationLatencyMean() {
+        return evaluationLatency.snapshot().getMean();
+    }
+
+    @Override
+    public long getEvaluationLatency50thPercentile() {
+        return evaluationLatency.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getEvaluationLatency99thPercentile() {
+        return evaluationLatency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getEvaluationLatencyMax() {
+        return evaluationLatency.snapshot().getMax();
+    }
+
+    @Override
+    public double getExecutionLatencyMean() {
+        return executionLatency.snapshot().getMean();
+    }
+
+    @Override
+    public long getExecutionLatency50thPercentile() {
+        return executionLatency.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getExecutionLatency99thPercentile() {
+        return executionLatency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getExecutionLatencyMax() {
+        return executionLatency.snapshot().getMax();
+    }
+
+    @Override
+    public void reset() {
+        evaluations.reset();
+        matches.reset();
+        evaluationErrors.reset();
+        executions.reset();
+        executionFailures.reset();
+        evaluationLatency = new LatencyHistogram();
+        executionLatency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rule listener recording per-rule {@link RuleMetrics}: evaluation and execution counts,
+ * match rate, errors and latency histograms.
+ * <p>
+ * Metrics are keyed by rule name. Latencies are measured between the
+ * <code>before</code> and <code>after</code> callbacks of a rule on the same thread,
+ * so they include the time spent by listeners registered after this one.
+ * <p>
+ * Metrics can be exposed through JMX with {@link #registerMBeans(MBeanServer)}, in which case
+ * each rule gets an MBean named <code>org.jeasy.rules:type=RuleMetrics,name=&lt;rule name&gt;</code>.
+ * <p>
+ * This listener is thread safe and can be shared by rules engines firing rules concurrently.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class RuleMetricsListener implements RuleListener {
+
+    /**
+     * JMX domain of rule metrics MBeans.
+     */
+    public static final String DOMAIN = "org.jeasy.rules";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleMetricsListener.class);
+
+    private final ConcurrentMap<String, RuleMetrics> metrics = new ConcurrentHashMap<>();
+    private final ThreadLocal<Timing> timings = ThreadLocal.withInitial(Timing::new);
+    private volatile MBeanServer mBeanServer;
+
+    /**
+     * Return the metrics of a rule.
+     *
+     * @param ruleName name of the rule
+     * @return the metrics of the rule, or null if the rule has not been evaluated yet
+     */
+    public RuleMetrics getMetrics(String ruleName) {
+        return metrics.get(ruleName);
+    }
+
+    /**
+     * Return a snapshot of the metrics of all rules evaluated so far, ordered by rule name.
+     *
+     * @return snapshots of rule metrics keyed by rule name
+     */
+    public Map<String, RuleMetricsSnapshot> snapshot() {
+        Map<String, RuleMetricsSnapshot> snapshots = new LinkedHashMap<>();
+        metrics.keySet().stream().sorted().forEach(name -> snapshots.put(name, metrics.get(name).snapshot()));
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * Reset the metrics of all rules.
+     */
+    public void reset() {
+        for (RuleMetrics ruleMetrics : metrics.values()) {
+            ruleMetrics.reset();
+        }
+    }
+
+    /**
+     * Register the metrics of all rules in the given MBean server. Metrics of rules
+     * evaluated for the first time after this call are registered as well.
+     *
+     * @param mBeanServer in which MBeans should be registered
+     * @throws JMException if an MBean can not be registered
+     */
+    public synchronized void registerMBeans(MBeanServer mBeanServer) throws JMException {
+        if (this.mBeanServer != null) {
+            throw new IllegalStateException("Rule metrics are already registered in an MBean server");
+        }
+        this.mBeanServer = mBeanServer;
+        for (RuleMetrics ruleMetrics : metrics.values()) {
+            mBeanServer.registerMBean(ruleMetrics, objectNameOf(ruleMetrics.getRuleName()));
+        }
+    }
+
+    /**
+     * Unregister the metrics of all rules from the MBean server they have been registered in.
+     *
+     * @throws JMException if an MBean can not be unregistered
+     */
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer server = this.mBeanServer;
+        if (server == null) {
+            return;
+        }
+        this.mBeanServer = null;
+        for (String ruleName : metrics.keySet()) {
+            ObjectName objectName = objectNameOf(ruleName);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+    }
+
+    /**
+     * Return the JMX object name of the metrics of a rule.
+     *
+     * @param ruleName name of the rule
+     * @return the object name of the metrics of the rule
+     * @throws JMException if the object name is malformed
+     */
+    public static ObjectName objectNameOf(String ruleName) throws JMException {
+        return new ObjectName(DOMAIN + ":type=RuleMetrics,name=" + ObjectName.quote(ruleName));
+    }
+
+    @Override
+    public boolean beforeEvaluate(Rule rule, Facts facts) {
+        timings.get().start(rule);
+        return true;
+    }
+
+    @Override
+    public void afterEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+        Timing timing = timings.get();
+        if (timing.failed(rule)) {
+            // already counted by onEvaluationError
+            return;
+        }
+        metricsOf(rule).evaluated(Boolean.TRUE.equals(evaluationResult), timing.stop(rule));
+    }
+
+    @Override
+    public void onEvaluationError(Rule rule, Facts facts, Exception exception) {
+        Timing timing = timings.get();
+        long latency = timing.stop(rule);
+        timing.failed = rule;
+        metricsOf(rule).evaluationFailed(latency);
+    }
+
+    @Override
+    public void beforeExecute(Rule rule, Facts facts) {
+        timings.get().start(rule);
+    }
+
+    @Override
+    public void onSuccess(Rule rule, Facts facts) {
+        long latency = timings.get().stop(rule);
+        metricsOf(rule).executed(true, latency);
+    }
+
+    @Override
+    public void onFailure(Rule rule, Facts facts, Exception exception) {
+        long latency = timings.get().stop(rule);
+        metricsOf(rule).executed(false, latency);
+    }
+
+    private RuleMetrics metricsOf(Rule rule) {
+        String ruleName = rule.getName();
+        RuleMetrics ruleMetrics = metrics.get(ruleName);
+        if (ruleMetrics == null) {
+            ruleMetrics = register(ruleName);
+        }
+        return ruleMetrics;
+    }
+
+    private synchronized RuleMetrics register(String ruleName) {
+        RuleMetrics ruleMetrics = metrics.get(ruleName);
+        if (ruleMetrics != null) {
+            return ruleMetrics;
+        }
+        ruleMetrics = new RuleMetrics(ruleName);
+        MBeanServer server = this.mBeanServer;
+        if (server != null) {
+            try {
+                server.registerMBean(ruleMetrics, objectNameOf(ruleName));
+            } catch (JMException e) {
+                LOGGER.warn("Unable to register metrics of rule '{}'", ruleName, e);
+            }
+        }
+        metrics.put(ruleName, ruleMetrics);
+        return ruleMetrics;
+    }
+
+    /*
+     * Start time of the rule currently evaluated or executed by a thread.
+     * A latency is only reported when the rule stopped is the rule started,
+     * callbacks of other rules being counted without latency.
+     * Depending on the engine, an evaluation error may be followed by an
+     * afterEvaluate callback for the same rule, which must not be counted twice.
+     */
+    private static final class Timing {
+
+        private Rule rule;
+        private Rule failed;
+        private long start;
+
+        void start(Rule rule) {
+            this.rule = rule;
+            this.failed = null;
+            this.start = System.nanoTime();
+        }
+
+        boolean failed(Rule rule) {
+            if (this.failed != rule) {
+                return false;
+            }
+            this.failed = null;
+            return true;
+        }
+
+        long stop(Rule rule) {
+            if (this.rule != rule) {
+                return -1;
+            }
+            this.rule = null;
+            return System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+/**
+ * Management interface exposing the metrics of a rule through JMX.
+ * Latencies are in nanoseconds.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public interface RuleMetricsMXBean {
+
+    String getRuleName();
+
+    long getEvaluations();
+
+    long getMatches();
+
+    double getMatchRate();
+
+    long getEvaluationErrors();
+
+    long getExecutions();
+
+    long getExecutionFailures();
+
+    double getEvaluationLatencyMean();
+
+    long getEvaluationLatency50thPercentile();
+
+    long getEvaluationLatency99thPercentile();
+
+    long getEvaluationLatencyMax();
+
+    double getExecutionLatencyMean();
+
+    long getExecutionLatency50thPercentile();
+
+    long getExecutionLatency99thPercentile();
+
+    long getExecutionLatencyMax();
+
+    /**
+     * Reset all metrics of the rule.
+     */
+    void reset();
+}
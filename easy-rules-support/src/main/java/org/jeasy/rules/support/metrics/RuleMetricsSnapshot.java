@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+/**
+ * Immutable snapshot of the {@link RuleMetrics} of a rule. Latencies are in nanoseconds.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class RuleMetricsSnapshot {
+
+    private final String ruleName;
+    private final long evaluations;
+    private final long matches;
+    private final long evaluationErrors;
+    private final long executions;
+    private final long executionFailures;
+    private final HistogramSnapshot evaluationLatency;
+    private final HistogramSnapshot executionLatency;
+
+    RuleMetricsSnapshot(String ruleName, long evaluations, long matches, long evaluationErrors,
+                        long executions, long executionFailures,
+                        HistogramSnapshot evaluationLatency, HistogramSnapshot executionLatency) {
+        this.ruleName = ruleName;
+        this.evaluations = evaluations;
+        this.matches = matches;
+        this.evaluationErrors = evaluationErrors;
+        this.executions = executions;
+        this.executionFailures = executionFailures;
+        this.evaluationLatency = evaluationLatency;
+        this.executionLatency = executionLatency;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    /**
+     * Return the ratio of evaluations that matched.
+     *
+     * @return the match rate, between 0 and 1
+     */
+    public double getMatchRate() {
+        return evaluations == 0 ? 0d : (double) matches / evaluations;
+    }
+
+    public long getEvaluationErrors() {
+        return evaluationErrors;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getExecutionFailures() {
+        return executionFailures;
+    }
+
+    public HistogramSnapshot getEvaluationLatency() {
+        return evaluationLatency;
+    }
+
+    public HistogramSnapshot getExecutionLatency() {
+        return executionLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleMetricsSnapshot { rule = '" + ruleName + "', evaluations = " + evaluations +
+                ", matches = " + matches + ", evaluationErrors = " + evaluationErrors +
+                ", executions = " + executions + ", executionFailures = " + executionFailures +
+                ", evaluationLatency = " + evaluationLatency + ", executionLatency = " + executionLatency + " }";
+    }
+}
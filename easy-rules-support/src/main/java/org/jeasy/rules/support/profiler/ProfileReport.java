@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Report of a {@link RuleProfiler}: rules ranked by estimated total evaluation time,
+ * rules that never matched and suggested evaluation orders for rules having the same priority.
+ * <p>
+ * The report can be exported as JSON with {@link #toJson()} or {@link #writeJson(Writer)}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class ProfileReport {
+
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    private final int samplingInterval;
+    private final List<RuleProfileEntry> rules;
+    private final List<String> neverMatchedRules;
+    private final List<ReorderingSuggestion> reorderingSuggestions;
+
+    ProfileReport(int samplingInterval, List<RuleProfileEntry> entries) {
+        this.samplingInterval = samplingInterval;
+        List<RuleProfileEntry> rules = new ArrayList<>(entries);
+        rules.sort(Comparator.comparingDouble(RuleProfileEntry::getEstimatedTotalNanos).reversed()
+                .thenComparing(RuleProfileEntry::getRuleName));
+        this.rules = Collections.unmodifiableList(rules);
+        this.neverMatchedRules = Collections.unmodifiableList(neverMatched(rules));
+        this.reorderingSuggestions = Collections.unmodifiableList(suggest(rules));
+    }
+
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Return rule profiles ranked by descending estimated total evaluation time.
+     *
+     * @return ranked rule profiles
+     */
+    public List<RuleProfileEntry> getRules() {
+        return rules;
+    }
+
+    /**
+     * Return the names of evaluated rules whose condition never matched.
+     *
+     * @return names of rules that never matched
+     */
+    public List<String> getNeverMatchedRules() {
+        return neverMatchedRules;
+    }
+
+    /**
+     * Return, for each priority shared by several rules, the suggested evaluation
+     * order of these rules, if it differs from the current one.
+     *
+     * @return reordering suggestions by ascending priority
+     */
+    public List<ReorderingSuggestion> getReorderingSuggestions() {
+        return reorderingSuggestions;
+    }
+
+    /**
+     * Export this report as JSON.
+     *
+     * @return this report as a JSON document
+     * @throws IOException if the report can not be serialized
+     */
+    public String toJson() throws IOException {
+        return JSON_WRITER.writeValueAsString(this);
+    }
+
+    /**
+     * Write this report as JSON.
+     *
+     * @param writer to write the report to
+     * @throws IOException if the report can not be written
+     */
+    public void writeJson(Writer writer) throws IOException {
+        JSON_WRITER.writeValue(writer, this);
+    }
+
+    private static List<String> neverMatched(List<RuleProfileEntry> rules) {
+        List<String> neverMatched = new ArrayList<>();
+        for (RuleProfileEntry rule : rules) {
+            if (rule.getEvaluations() > 0 && rule.getMatches() == 0) {
+                neverMatched.add(rule.getRuleName());
+            }
+        }
+        Collections.sort(neverMatched);
+        return neverMatched;
+    }
+
+    private static List<ReorderingSuggestion> suggest(List<RuleProfileEntry> rules) {
+        Map<Integer, List<RuleProfileEntry>> rulesByPriority = new TreeMap<>();
+        for (RuleProfileEntry rule : rules) {
+            if (rule.getSamples() > 0) {
+                rulesByPriority.computeIfAbsent(rule.getPriority(), priority -> new ArrayList<>()).add(rule);
+            }
+        }
+        List<ReorderingSuggestion> suggestions = new ArrayList<>();
+        for (Map.Entry<Integer, List<RuleProfileEntry>> group : rulesByPriority.entrySet()) {
+            if (group.getValue().size() < 2) {
+                continue;
+            }
+            List<RuleProfileEntry> current = new ArrayList<>(group.getValue());
+            current.sort(Comparator.comparing(RuleProfileEntry::getRuleName));
+            List<RuleProfileEntry> suggested = new ArrayList<>(current);
+            suggested.sort(Comparator.comparingDouble(ProfileReport::costPerMatch)
+                    .thenComparingDouble(RuleProfileEntry::getMeanEvaluationNanos)
+                    .thenComparing(RuleProfileEntry::getRuleName));
+            if (!suggested.equals(current)) {
+                suggestions.add(new ReorderingSuggestion(group.getKey(), namesOf(current), namesOf(suggested),
+                        expectedNanos(current), expectedNanos(suggested)));
+            }
+        }
+        return suggestions;
+    }
+
+    private static double costPerMatch(RuleProfileEntry rule) {
+        double matchProbability = rule.getMatchProbability();
+        return matchProbability == 0d ? Double.POSITIVE_INFINITY : rule.getMeanEvaluationNanos() / matchProbability;
+    }
+
+    /*
+     * Expected evaluation time when stopping at the first match: each rule
+     * is evaluated only if none of the previous rules matched.
+     */
+    private static double expectedNanos(List<RuleProfileEntry> rules) {
+        double expectedNanos = 0d;
+        double noMatchYet = 1d;
+        for (RuleProfileEntry rule : rules) {
+            expectedNanos += noMatchYet * rule.getMeanEvaluationNanos();
+            noMatchYet *= 1d - rule.getMatchProbability();
+        }
+        return expectedNanos;
+    }
+
+    private static List<String> namesOf(List<RuleProfileEntry> rules) {
+        List<String> names = new ArrayList<>(rules.size());
+        for (RuleProfileEntry rule : rules) {
+            names.add(rule.getRuleName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.profiler;
+
+import java.util.List;
+
+/**
+ * Suggested evaluation order of rules having the same priority.
+ * <p>
+ * Rules of the same priority are evaluated in the order defined by {@link org.jeasy.rules.api.Rule#compareTo}
+ * (their name by default). When the engine stops at the first applied rule, the expected cost of
+ * evaluating a group of rules is minimized by evaluating rules by ascending ratio of their mean
+ * cost to their match probability: cheap rules likely to match first, rules that never match last.
+ * Expected costs are estimated under this "stop at the first match" assumption. When all rules are
+ * evaluated anyway, the order does not change the cost.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class ReorderingSuggestion {
+
+    private final int priority;
+    private final List<String> currentOrder;
+    private final List<String> suggestedOrder;
+    private final double currentExpectedNanos;
+    private final double suggestedExpectedNanos;
+
+    ReorderingSuggestion(int priority, List<String> currentOrder, List<String> suggestedOrder,
+                         double currentExpectedNanos, double suggestedExpectedNanos) {
+        this.priority = priority;
+        this.currentOrder = currentOrder;
+        this.suggestedOrder = suggestedOrder;
+        this.currentExpectedNanos = currentExpectedNanos;
+        this.suggestedExpectedNanos = suggestedExpectedNanos;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Return the names of the rules of this priority in their current (name) order.
+     *
+     * @return rule names in the current order
+     */
+    public List<String> getCurrentOrder() {
+        return currentOrder;
+    }
+
+    /**
+     * Return the names of the rules of this priority in the suggested order.
+     *
+     * @return rule names in the suggested order
+     */
+    public List<String> getSuggestedOrder() {
+        return suggestedOrder;
+    }
+
+    /**
+     * Return the expected time spent evaluating this group of rules in the current order,
+     * stopping at the first match.
+     *
+     * @return the expected evaluation time in nanoseconds
+     */
+    public double getCurrentExpectedNanos() {
+        return currentExpectedNanos;
+    }
+
+    /**
+     * Return the expected time spent evaluating this group of rules in the suggested order,
+     * stopping at the first match.
+     *
+     * @return the expected evaluation time in nanoseconds
+     */
+    public double getSuggestedExpectedNanos() {
+        return suggestedExpectedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ReorderingSuggestion { priority = " + priority + ", currentOrder = " + currentOrder +
+                ", suggestedOrder = " + suggestedOrder + ", currentExpectedNanos = " + currentExpectedNanos +
+                ", suggestedExpectedNanos = " + suggestedExpectedNanos + " }";
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.profiler;
+
+/**
+ * Profile of a rule: number of evaluations and matches, and cost estimated
+ * from sampled evaluations. Times are in nanoseconds.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public final class RuleProfileEntry {
+
+    private final String ruleName;
+    private final int priority;
+    private final long evaluations;
+    private final long matches;
+    private final long samples;
+    private final long sampledNanos;
+
+    RuleProfileEntry(String ruleName, int priority, long evaluations, long matches, long samples, long sampledNanos) {
+        this.ruleName = ruleName;
+        this.priority = priority;
+        this.evaluations = evaluations;
+        this.matches = matches;
+        this.samples = samples;
+        this.sampledNanos = sampledNanos;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Return the probability that the condition of the rule matches.
+     *
+     * @return the ratio of evaluations that matched, 0 if the rule was not evaluated
+     */
+    public double getMatchProbability() {
+        return evaluations == 0 ? 0d : (double) matches / evaluations;
+    }
+
+    /**
+     * Return the mean time spent evaluating the condition of the rule.
+     *
+     * @return the mean of sampled evaluation times, 0 if no evaluation was sampled
+     */
+    public double getMeanEvaluationNanos() {
+        return samples == 0 ? 0d : (double) sampledNanos / samples;
+    }
+
+    /**
+     * Return the estimated total time spent evaluating the condition of the rule.
+     *
+     * @return the mean evaluation time multiplied by the number of evaluations
+     */
+    public double getEstimatedTotalNanos() {
+        return getMeanEvaluationNanos() * evaluations;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleProfileEntry { rule = '" + ruleName + "', priority = " + priority +
+                ", evaluations = " + evaluations + ", samples = " + samples +
+                ", matchProbability = " + getMatchProbability() +
+                ", meanEvaluationNanos = " + getMeanEvaluationNanos() + " }";
+    }
+}
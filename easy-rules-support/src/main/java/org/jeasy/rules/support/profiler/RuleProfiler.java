@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.profiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+
+/**
+ * Rule listener profiling the cost and the selectivity of rules conditions over live traffic.
+ * <p>
+ * Every evaluation and every match is counted, but only one evaluation out of
+ * <code>samplingInterval</code> of each rule is timed, so that profiling can be left enabled
+ * in production with a negligible overhead. The {@link #report() report} ranks rules by estimated total CPU time,
+ * flags rules that never matched, and suggests a cheaper evaluation order for rules
+ * having the same priority.
+ * <p>
+ * This listener is thread safe and can be shared by rules engines firing rules concurrently.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ */
+public class RuleProfiler implements RuleListener {
+
+    public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+
+    private final int samplingInterval;
+    private final ConcurrentMap<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final ThreadLocal<Sample> samples = ThreadLocal.withInitial(Sample::new);
+
+    /**
+     * Create a new {@link RuleProfiler} timing one evaluation out of {@value #DEFAULT_SAMPLING_INTERVAL}.
+     */
+    public RuleProfiler() {
+        this(DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    /**
+     * Create a new {@link RuleProfiler}.
+     *
+     * @param samplingInterval time one evaluation out of <code>samplingInterval</code>, 1 to time all evaluations
+     */
+    public RuleProfiler(int samplingInterval) {
+        if (samplingInterval < 1) {
+            throw new IllegalArgumentException("Sampling interval must be greater than or equal to 1");
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Create a report of the profiles collected so far.
+     *
+     * @return the profiling report
+     */
+    public ProfileReport report() {
+        List<RuleProfileEntry> entries = new ArrayList<>();
+        for (Profile profile : profiles.values()) {
+            entries.add(profile.toEntry());
+        }
+        return new ProfileReport(samplingInterval, entries);
+    }
+
+    /**
+     * Discard the profiles collected so far.
+     */
+    public void reset() {
+        profiles.clear();
+    }
+
+    @Override
+    public boolean beforeEvaluate(Rule rule, Facts facts) {
+        Sample sample = samples.get();
+        sample.failed = null;
+        // sampled per rule, so that all rules are timed whatever their number and order
+        if (profileOf(rule).ticks.getAndIncrement() % samplingInterval == 0) {
+            sample.rule = rule;
+            sample.start = System.nanoTime();
+        } else {
+            sample.rule = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+        Sample sample = samples.get();
+        if (sample.failed == rule) {
+            // already profiled by onEvaluationError
+            sample.failed = null;
+            return;
+        }
+        evaluated(sample, rule, Boolean.TRUE.equals(evaluationResult));
+    }
+
+    @Override
+    public void onEvaluationError(Rule rule, Facts facts, Exception exception) {
+        Sample sample = samples.get();
+        evaluated(sample, rule, false);
+        sample.failed = rule;
+    }
+
+    private void evaluated(Sample sample, Rule rule, boolean matched) {
+        Profile profile = profileOf(rule);
+        profile.evaluations.increment();
+        if (matched) {
+            profile.matches.increment();
+        }
+        if (sample.rule == rule) {
+            long nanos = System.nanoTime() - sample.start;
+            sample.rule = null;
+            profile.samples.increment();
+            profile.sampledNanos.add(nanos);
+        }
+    }
+
+    private Profile profileOf(Rule rule) {
+        String ruleName = rule.getName();
+        Profile profile = profiles.get(ruleName);
+        if (profile == null) {
+            profile = profiles.computeIfAbsent(ruleName, name -> new Profile(name, rule.getPriority()));
+        }
+        return profile;
+    }
+
+    private static final class Profile {
+
+        private final String ruleName;
+        private final int priority;
+        private final AtomicLong ticks = new AtomicLong();
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        Profile(String ruleName, int priority) {
+            this.ruleName = ruleName;
+            this.priority = priority;
+        }
+
+        RuleProfileEntry toEntry() {
+            return new RuleProfileEntry(ruleName, priority, evaluations.sum(), matches.sum(),
+                    samples.sum(), sampledNanos.sum());
+        }
+    }
+
+    /*
+     * Evaluation being timed by a thread. Evaluations of other rules reported
+     * in between (by nested engines for example) are not timed. Depending on the
+     * engine, an evaluation error may be followed by an afterEvaluate callback
+     * for the same rule, which must not be profiled twice.
+     */
+    private static final class Sample {
+        private Rule rule;
+        private Rule failed;
+        private long start;
+    }
+}
@@ -77,6 +77,16 @@ public abstract class AbstractRuleDefinitionReader implements RuleDefinitionRead
         Double threshold = (Double) map.get("threshold");
         ruleDefinition.setThreshold(threshold != null ? threshold : Rule.DEFAULT_THRESHOLD);
 
+        Number rateLimit = (Number) map.get("rateLimit");
+        ruleDefinition.setRateLimit(rateLimit != null ? rateLimit.doubleValue() : Rule.NO_RATE_LIMIT);
+
+        Map<String, Object> factTypes = (Map<String, Object>) map.get("factTypes");
+        if (factTypes != null) {
+            for (Map.Entry<String, Object> factType : factTypes.entrySet()) {
+                ruleDefinition.getFactTypes().put(factType.getKey(), String.valueOf(factType.getValue()));
+            }
+        }
+
         String compositeRuleType = (String) map.get("compositeRuleType");
 
         String condition = (String) map.get("condition");
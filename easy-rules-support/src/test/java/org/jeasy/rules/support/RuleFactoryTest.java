@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jeasy.rules.api.Rule;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RuleFactoryTest {
+
+    @Test
+    public void factTypesOfACompositeRuleShouldApplyToComposingRulesWithoutChangingTheirDefinitions() {
+        // Given
+        RuleDefinition untyped = ruleDefinition("untyped", Collections.emptyMap());
+        RuleDefinition typed = ruleDefinition("typed", Collections.singletonMap("person", "com.acme.Student"));
+        RuleDefinition composite = ruleDefinition("composite", Collections.singletonMap("person", "com.acme.Person"));
+        composite.setCompositeRuleType("UnitRuleGroup");
+        composite.setComposingRules(Arrays.asList(untyped, typed));
+        RecordingRuleFactory ruleFactory = new RecordingRuleFactory();
+
+        // When
+        ruleFactory.createRule(composite);
+
+        // Then
+        assertThat(ruleFactory.factTypes.get("untyped")).containsExactly(entry("person", "com.acme.Person"));
+        assertThat(ruleFactory.factTypes.get("typed")).containsExactly(entry("person", "com.acme.Student"));
+        assertThat(untyped.getFactTypes()).isEmpty();
+        assertThat(typed.getFactTypes()).containsOnlyKeys("person");
+    }
+
+    private static Map.Entry<String, String> entry(String name, String type) {
+        return new HashMap.SimpleEntry<>(name, type);
+    }
+
+    private static RuleDefinition ruleDefinition(String name, Map<String, String> factTypes) {
+        RuleDefinition ruleDefinition = new RuleDefinition();
+        ruleDefinition.setName(name);
+        ruleDefinition.setFactTypes(new HashMap<>(factTypes));
+        return ruleDefinition;
+    }
+
+    private static class RecordingRuleFactory extends AbstractRuleFactory {
+
+        private final Map<String, Map<String, String>> factTypes = new HashMap<>();
+
+        @Override
+        protected Rule createSimpleRule(RuleDefinition ruleDefinition) {
+            return createSimpleRule(ruleDefinition, ruleDefinition.getFactTypes());
+        }
+
+        @Override
+        protected Rule createSimpleRule(RuleDefinition ruleDefinition, Map<String, String> factTypes) {
+            this.factTypes.put(ruleDefinition.getName(), factTypes);
+            return mock(Rule.class);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.jeasy.rules.core.RuleBuilder;
+import org.jeasy.rules.support.async.AsyncRuleListener.OverflowPolicy;
+import org.jeasy.rules.support.async.AsyncRuleListener.ProducerType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncRuleListenerTest {
+
+    @Test
+    public void eventsShouldBeDeliveredInOrderOnAnotherThread() {
+        // Given
+        RecordingListener recordingListener = new RecordingListener();
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 16, ProducerType.SINGLE, OverflowPolicy.BLOCK, false);
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(listener);
+        Rule rule = new RuleBuilder().name("rule").when(facts -> true).then(facts -> { }).build();
+
+        // When
+        rulesEngine.fire(new Rules(rule), new Facts());
+        listener.close();
+
+        // Then
+        assertThat(recordingListener.events).containsExactly(
+                "beforeEvaluate:rule", "afterEvaluate:rule:true", "beforeExecute:rule", "onSuccess:rule");
+        assertThat(recordingListener.threads).doesNotContain(Thread.currentThread());
+        assertThat(listener.getDroppedEvents()).isZero();
+    }
+
+    @Test
+    public void rateLimitedRulesShouldBeDelivered() {
+        // Given
+        RecordingListener recordingListener = new RecordingListener();
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 16, ProducerType.SINGLE, OverflowPolicy.BLOCK, false);
+        DefaultRulesEngine rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(listener);
+        Rule rule = new RuleBuilder().name("rule").rateLimit(1).when(facts -> true).then(facts -> { }).build();
+        Rules rules = new Rules(rule);
+
+        // When
+        rulesEngine.fire(rules, new Facts());
+        rulesEngine.fire(rules, new Facts());
+        listener.close();
+
+        // Then
+        assertThat(recordingListener.events).containsExactly(
+                "beforeEvaluate:rule", "afterEvaluate:rule:true", "beforeExecute:rule", "onSuccess:rule",
+                "beforeEvaluate:rule", "onRateLimited:rule", "afterEvaluate:rule:true");
+    }
+
+    @Test
+    public void whenOverflowPolicyIsBlock_thenNoEventShouldBeLost() throws Exception {
+        // Given
+        RecordingListener recordingListener = new RecordingListener();
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 4, ProducerType.MULTI, OverflowPolicy.BLOCK, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    listener.onSuccess(rule, new Facts());
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        listener.close();
+
+        // Then
+        assertThat(recordingListener.events).hasSize(4000);
+        assertThat(listener.getDroppedEvents()).isZero();
+    }
+
+    @Test
+    public void whenOverflowPolicyIsDrop_thenEventsShouldBeDroppedWhenTheBufferIsFull() {
+        // Given
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingListener recordingListener = new RecordingListener(latch);
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 4, ProducerType.SINGLE, OverflowPolicy.DROP, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            listener.onSuccess(rule, new Facts());
+        }
+        latch.countDown();
+        listener.close();
+
+        // Then
+        assertThat(recordingListener.events.size() + listener.getDroppedEvents()).isEqualTo(10);
+        assertThat(listener.getDroppedEvents()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void whenOverflowPolicyIsSample_thenSomeEventsShouldBeKeptWhenTheBufferIsAlmostFull() {
+        // Given
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingListener recordingListener = new RecordingListener(latch);
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 64, ProducerType.SINGLE, OverflowPolicy.SAMPLE, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+
+        // When
+        for (int i = 0; i < 48 + AsyncRuleListener.SAMPLING_RATE * 4; i++) {
+            listener.onSuccess(rule, new Facts());
+        }
+        latch.countDown();
+        listener.close();
+
+        // Then
+        assertThat(listener.getDroppedEvents()).isBetween(AsyncRuleListener.SAMPLING_RATE * 3L, AsyncRuleListener.SAMPLING_RATE * 4L);
+    }
+
+    @Test
+    public void whenFactsAreCopied_thenTheDelegateShouldSeeFactsAsTheyWereWhenPublished() {
+        // Given
+        List<Object> values = Collections.synchronizedList(new ArrayList<>());
+        RuleListener delegate = new RuleListener() {
+            @Override
+            public void onSuccess(Rule rule, Facts facts) {
+                values.add(facts.get("fact"));
+            }
+        };
+        AsyncRuleListener listener = new AsyncRuleListener(delegate, 4, ProducerType.SINGLE, OverflowPolicy.BLOCK, true);
+        Rule rule = new RuleBuilder().name("rule").build();
+        Facts facts = new Facts();
+
+        // When
+        facts.put("fact", 1);
+        listener.onSuccess(rule, facts);
+        facts.put("fact", 2);
+        listener.onSuccess(rule, facts);
+        listener.close();
+
+        // Then
+        assertThat(values).containsExactly(1, 2);
+    }
+
+    @Test
+    public void eventsPublishedAfterCloseShouldBeDropped() {
+        // Given
+        RecordingListener recordingListener = new RecordingListener();
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener);
+        listener.close();
+
+        // When
+        listener.onSuccess(new RuleBuilder().name("rule").build(), new Facts());
+
+        // Then
+        assertThat(recordingListener.events).isEmpty();
+        assertThat(listener.getDroppedEvents()).isEqualTo(1);
+    }
+
+    @Test
+    public void callbacksNotOverriddenByTheDelegateShouldNotBePublished() {
+        // Given
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        RuleListener delegate = new RuleListener() {
+            @Override
+            public void onSuccess(Rule rule, Facts facts) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add("onSuccess:" + rule.getName());
+            }
+        };
+        AsyncRuleListener listener = new AsyncRuleListener(delegate, 1, ProducerType.SINGLE, OverflowPolicy.DROP, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+
+        // When
+        listener.onSuccess(rule, new Facts());
+        for (int i = 0; i < 10; i++) {
+            listener.beforeEvaluate(rule, new Facts());
+            listener.afterEvaluate(rule, new Facts(), true, false);
+        }
+        latch.countDown();
+        listener.close();
+
+        // Then
+        assertThat(events).containsExactly("onSuccess:rule");
+        assertThat(listener.getDroppedEvents()).isZero();
+    }
+
+    @Test(timeout = 10_000)
+    public void whenTheDelegateThrowsAnError_thenBlockedProducersShouldNotHang() {
+        // Given
+        RuleListener delegate = new RuleListener() {
+            @Override
+            public void onSuccess(Rule rule, Facts facts) {
+                throw new Error("boom");
+            }
+        };
+        AsyncRuleListener listener = new AsyncRuleListener(delegate, 4, ProducerType.SINGLE, OverflowPolicy.BLOCK, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            listener.onSuccess(rule, new Facts());
+        }
+        listener.close();
+
+        // Then
+        assertThat(listener.getDroppedEvents()).isGreaterThan(0);
+    }
+
+    @Test
+    public void eventsPublishedWhileTheDeliveryThreadIsWaitingShouldBeDelivered() throws Exception {
+        // Given
+        RecordingListener recordingListener = new RecordingListener();
+        AsyncRuleListener listener = new AsyncRuleListener(recordingListener, 4, ProducerType.SINGLE, OverflowPolicy.BLOCK, false);
+        Rule rule = new RuleBuilder().name("rule").build();
+        Thread.sleep(50);
+
+        // When
+        listener.onSuccess(rule, new Facts());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (recordingListener.events.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertThat(recordingListener.events).containsExactly("onSuccess:rule");
+        listener.close();
+    }
+
+    static class RecordingListener implements RuleListener {
+
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch latch;
+
+        RecordingListener() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingListener(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public boolean beforeEvaluate(Rule rule, Facts facts) {
+            record("beforeEvaluate:" + rule.getName());
+            return true;
+        }
+
+        @Override
+        public void afterEvaluate(Rule rule, Facts facts, Boolean evaluationResult, Boolean randomResult) {
+            record("afterEvaluate:" + rule.getName() + ":" + evaluationResult);
+        }
+
+        @Override
+        public void beforeExecute(Rule rule, Facts facts) {
+            record("beforeExecute:" + rule.getName());
+        }
+
+        @Override
+        public void onSuccess(Rule rule, Facts facts) {
+            record("onSuccess:" + rule.getName());
+        }
+
+        @Override
+        public void onRateLimited(Rule rule, Facts facts) {
+            record("onRateLimited:" + rule.getName());
+        }
+
+        private void record(String event) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+            threads.add(Thread.currentThread());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.FireResult;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.jeasy.rules.core.RuleBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DecisionJournalTest {
+
+    @org.junit.Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private DefaultRulesEngine rulesEngine;
+    private Rules rules;
+    private FireResult fireResult;
+
+    @Before
+    public void setUp() {
+        directory = temporaryFolder.getRoot().toPath().resolve("journal");
+        rulesEngine = new DefaultRulesEngine();
+        Rule even = new RuleBuilder()
+                .name("even")
+                .priority(1)
+                .when(facts -> facts.<Integer>get("number") % 2 == 0)
+                .build();
+        Rule positive = new RuleBuilder()
+                .name("positive")
+                .priority(2)
+                .when(facts -> facts.<Integer>get("number") > 0)
+                .then(facts -> {
+                    throw new IllegalStateException("boom");
+                })
+                .build();
+        rules = new Rules(even, positive);
+        fireResult = new FireResult();
+    }
+
+    @Test
+    public void appendedDecisionsShouldBeReadBack() throws Exception {
+        // Given
+        try (DecisionJournal journal = new DecisionJournal(directory, 64, 16, 0, true)) {
+            // When
+            for (int number = 0; number < 3; number++) {
+                Facts facts = factsOf(number);
+                journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+            }
+        }
+
+        // Then
+        List<DecisionRecord> records = new DecisionJournalReader(directory).query(record -> true);
+        assertThat(records).extracting(DecisionRecord::getFireId).containsExactly(1L, 2L, 3L);
+        DecisionRecord first = records.get(0);
+        assertThat(first.getRuleCount()).isEqualTo(2);
+        assertThat(first.isMatched(0)).isTrue();
+        assertThat(first.isExecuted(0)).isTrue();
+        assertThat(first.isMatched(1)).isFalse();
+        assertThat(first.getFactsHash()).isEqualTo(DecisionJournal.hash(factsOf(0)));
+        DecisionRecord second = records.get(1);
+        assertThat(second.getMatched().cardinality()).isEqualTo(1);
+        assertThat(second.isMatched(1)).isTrue();
+        assertThat(second.isExecuted(1)).isFalse();
+        assertThat(second.getTimestamp()).isGreaterThanOrEqualTo(first.getTimestamp());
+    }
+
+    @Test
+    public void segmentsShouldBeRotatedAndOldestSegmentsDeleted() throws Exception {
+        // Given
+        try (DecisionJournal journal = new DecisionJournal(directory, 64, 2, 2, false)) {
+            // When
+            for (int number = 0; number < 5; number++) {
+                Facts facts = factsOf(number);
+                journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+            }
+        }
+
+        // Then
+        assertThat(DecisionJournalReader.segmentsOf(directory)).hasSize(2);
+        assertThat(new DecisionJournalReader(directory).query(record -> true))
+                .extracting(DecisionRecord::getFireId).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    public void reopenedJournalShouldContinueFireIds() throws Exception {
+        // Given
+        Facts facts = factsOf(1);
+        try (DecisionJournal journal = new DecisionJournal(directory)) {
+            journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+        }
+
+        // When
+        long fireId;
+        try (DecisionJournal journal = new DecisionJournal(directory)) {
+            fireId = journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+        }
+
+        // Then
+        assertThat(fireId).isEqualTo(2L);
+        assertThat(new DecisionJournalReader(directory).getLastFireId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void journalReopenedAfterACrashFollowingARotationShouldContinueFireIds() throws Exception {
+        // Given
+        Facts facts = factsOf(1);
+        try (DecisionJournal journal = new DecisionJournal(directory, 64, 2, 0, false)) {
+            for (int i = 0; i < 2; i++) {
+                journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+            }
+        }
+        writeEmptySegment(3L, 64, 2);
+
+        // When
+        long fireId;
+        try (DecisionJournal journal = new DecisionJournal(directory, 64, 2, 0, false)) {
+            fireId = journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+        }
+
+        // Then
+        assertThat(fireId).isEqualTo(3L);
+        assertThat(new DecisionJournalReader(directory).query(record -> true))
+                .extracting(DecisionRecord::getFireId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void lastFireIdShouldBeGivenByATrailingEmptySegment() throws Exception {
+        // Given
+        Files.createDirectories(directory);
+        writeEmptySegment(5L, 64, 2);
+
+        // When
+        long lastFireId = new DecisionJournalReader(directory).getLastFireId();
+
+        // Then
+        assertThat(lastFireId).isEqualTo(4L);
+    }
+
+    @Test
+    public void rulesBeyondMaxRulesShouldBeTruncated() throws Exception {
+        // Given
+        Facts facts = factsOf(2);
+        try (DecisionJournal journal = new DecisionJournal(directory, 1, 16, 0, false)) {
+            // When
+            journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+        }
+
+        // Then
+        DecisionRecord record = new DecisionJournalReader(directory).iterator().next();
+        assertThat(record.isTruncated()).isTrue();
+        assertThat(record.isMatched(0)).isTrue();
+        assertThat(record.isMatched(1)).isFalse();
+    }
+
+    @Test
+    public void factsHashShouldOnlyDependOnFactNamesAndValues() {
+        assertThat(DecisionJournal.hash(factsOf(1))).isEqualTo(DecisionJournal.hash(factsOf(1)));
+        assertThat(DecisionJournal.hash(factsOf(1))).isNotEqualTo(DecisionJournal.hash(factsOf(2)));
+    }
+
+    @Test
+    public void cliShouldPrintFilteredRecords() throws Exception {
+        // Given
+        try (DecisionJournal journal = new DecisionJournal(directory)) {
+            for (int number = 0; number < 4; number++) {
+                Facts facts = factsOf(number);
+                journal.append(rulesEngine.fire(rules, facts, fireResult), facts);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        int status = DecisionJournalCli.run(new String[]{directory.toString(), "--executed", "0"},
+                new PrintStream(out, true), System.err);
+
+        // Then
+        assertThat(status).isZero();
+        String[] lines = out.toString().trim().split("\\R");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("1 ").contains("executed={0}");
+        assertThat(lines[1]).startsWith("3 ");
+    }
+
+    @Test
+    public void appendingToAClosedJournalShouldFail() throws Exception {
+        // Given
+        DecisionJournal journal = new DecisionJournal(directory);
+        journal.close();
+        Facts facts = factsOf(1);
+        FireResult result = rulesEngine.fire(rules, facts, fireResult);
+
+        // When / Then
+        assertThatThrownBy(() -> journal.append(result, facts)).isInstanceOf(IllegalStateException.class);
+    }
+
+    /*
+     * Write a segment as created by a rotation, before any record is appended to it
+     */
+    private void writeEmptySegment(long firstFireId, int maxRules, int recordsPerSegment) throws Exception {
+        int words = (maxRules + 63) >>> 6;
+        int recordSize = DecisionJournal.RECORD_HEADER_SIZE + 2 * 8 * words;
+        ByteBuffer segment = ByteBuffer.allocate(DecisionJournal.SEGMENT_HEADER_SIZE + recordSize * recordsPerSegment)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(DecisionJournal.MAGIC);
+        segment.putInt(DecisionJournal.FORMAT_VERSION);
+        segment.putInt(words);
+        segment.putInt(recordSize);
+        segment.putLong(firstFireId);
+        Files.write(directory.resolve(DecisionJournal.segmentName(firstFireId)), segment.array());
+    }
+
+    private static Facts factsOf(int number) {
+        Facts facts = new Facts();
+        facts.put("number", number);
+        return facts;
+    }
+}
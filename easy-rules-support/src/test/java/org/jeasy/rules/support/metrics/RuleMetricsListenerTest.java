@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.jeasy.rules.core.RuleBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+public class RuleMetricsListenerTest {
+
+    private RuleMetricsListener listener;
+    private DefaultRulesEngine rulesEngine;
+    private Rules rules;
+
+    @Before
+    public void setUp() {
+        listener = new RuleMetricsListener();
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(listener);
+        Rule evenRule = new RuleBuilder()
+                .name("even")
+                .when(facts -> facts.<Integer>get("number") % 2 == 0)
+                .then(facts -> {
+                    if (facts.<Integer>get("number") == 4) {
+                        throw new IllegalStateException("four");
+                    }
+                })
+                .build();
+        Rule failingRule = new RuleBuilder()
+                .name("failing")
+                .when(facts -> {
+                    throw new IllegalArgumentException("boom");
+                })
+                .build();
+        rules = new Rules(evenRule, failingRule);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        listener.unregisterMBeans();
+    }
+
+    @Test
+    public void evaluationsMatchesErrorsAndExecutionsShouldBeCounted() {
+        // When
+        fire(1, 2, 3, 4);
+
+        // Then
+        Map<String, RuleMetricsSnapshot> snapshots = listener.snapshot();
+        assertThat(snapshots).containsOnlyKeys("even", "failing");
+
+        RuleMetricsSnapshot even = snapshots.get("even");
+        assertThat(even.getEvaluations()).isEqualTo(4);
+        assertThat(even.getMatches()).isEqualTo(2);
+        assertThat(even.getMatchRate()).isEqualTo(0.5);
+        assertThat(even.getEvaluationErrors()).isZero();
+        assertThat(even.getExecutions()).isEqualTo(2);
+        assertThat(even.getExecutionFailures()).isEqualTo(1);
+        assertThat(even.getEvaluationLatency().getCount()).isEqualTo(4);
+        assertThat(even.getExecutionLatency().getCount()).isEqualTo(2);
+
+        RuleMetricsSnapshot failing = snapshots.get("failing");
+        assertThat(failing.getEvaluations()).isEqualTo(4);
+        assertThat(failing.getMatches()).isZero();
+        assertThat(failing.getEvaluationErrors()).isEqualTo(4);
+        assertThat(failing.getExecutions()).isZero();
+    }
+
+    @Test
+    public void metricsShouldBeReset() {
+        // Given
+        fire(1, 2);
+
+        // When
+        listener.reset();
+
+        // Then
+        RuleMetricsSnapshot even = listener.getMetrics("even").snapshot();
+        assertThat(even.getEvaluations()).isZero();
+        assertThat(even.getExecutions()).isZero();
+        assertThat(even.getEvaluationLatency().getCount()).isZero();
+    }
+
+    @Test
+    public void metricsShouldBeExposedThroughJmx() throws Exception {
+        // Given
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        fire(2);
+
+        // When
+        listener.registerMBeans(mBeanServer);
+        fire(3);
+
+        // Then
+        ObjectName even = RuleMetricsListener.objectNameOf("even");
+        assertThat(mBeanServer.isRegistered(even)).isTrue();
+        assertThat(mBeanServer.getAttribute(even, "Evaluations")).isEqualTo(2L);
+        assertThat(mBeanServer.getAttribute(even, "Matches")).isEqualTo(1L);
+        assertThat(mBeanServer.getAttribute(even, "MatchRate")).isEqualTo(0.5);
+        assertThat(mBeanServer.isRegistered(RuleMetricsListener.objectNameOf("failing"))).isTrue();
+
+        // When
+        listener.unregisterMBeans();
+
+        // Then
+        assertThat(mBeanServer.isRegistered(even)).isFalse();
+    }
+
+    @Test
+    public void histogramShouldReportPercentilesWithBoundedRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        // Then
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getValueAtPercentile(50)).isBetween(500_000L, 500_000L + 500_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getValueAtPercentile(99)).isBetween(990_000L, 990_000L + 990_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getMax()).isBetween(1_000_000L, 1_000_000L + 1_000_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getMean()).isCloseTo(500_500d, withinPercentage(100d / LatencyHistogram.SUB_BUCKETS));
+    }
+
+    @Test
+    public void histogramBucketsShouldCoverAllValues() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS - 1; bucket++) {
+            assertThat(LatencyHistogram.bucketOf(LatencyHistogram.lowestValueOf(bucket))).isEqualTo(bucket);
+            assertThat(LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(bucket))).isEqualTo(bucket);
+            assertThat(LatencyHistogram.highestValueOf(bucket) + 1).isEqualTo(LatencyHistogram.lowestValueOf(bucket + 1));
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+        assertThat(LatencyHistogram.bucketOf(-1)).isZero();
+    }
+
+    private void fire(int... numbers) {
+        for (int number : numbers) {
+            Facts facts = new Facts();
+            facts.put("number", number);
+            rulesEngine.fire(rules, facts);
+        }
+    }
+}
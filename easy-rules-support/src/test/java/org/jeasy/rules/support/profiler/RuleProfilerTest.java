@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2020, Mahmoud Ben Hassine (mahmoud.benhassine@icloud.com)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package org.jeasy.rules.support.profiler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.jeasy.rules.core.RuleBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RuleProfilerTest {
+
+    private RuleProfiler profiler;
+    private DefaultRulesEngine rulesEngine;
+    private Rules rules;
+
+    @Before
+    public void setUp() {
+        profiler = new RuleProfiler(1);
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(profiler);
+        Rule expensive = new RuleBuilder()
+                .name("a-expensive")
+                .when(facts -> {
+                    sleep(1);
+                    return facts.<Integer>get("number") == 0;
+                })
+                .build();
+        Rule cheap = new RuleBuilder()
+                .name("b-cheap")
+                .when(facts -> facts.<Integer>get("number") % 2 == 0)
+                .build();
+        Rule never = new RuleBuilder()
+                .name("c-never")
+                .priority(2)
+                .when(facts -> false)
+                .build();
+        rules = new Rules(expensive, cheap, never);
+    }
+
+    @Test
+    public void reportShouldRankRulesAndSuggestACheaperOrder() throws Exception {
+        // When
+        fire(10);
+
+        // Then
+        ProfileReport report = profiler.report();
+        assertThat(report.getRules()).extracting(RuleProfileEntry::getRuleName).first().isEqualTo("a-expensive");
+        RuleProfileEntry cheap = report.getRules().stream()
+                .filter(rule -> rule.getRuleName().equals("b-cheap")).findFirst().get();
+        assertThat(cheap.getEvaluations()).isEqualTo(10);
+        assertThat(cheap.getSamples()).isEqualTo(10);
+        assertThat(cheap.getMatchProbability()).isEqualTo(0.5);
+        assertThat(report.getNeverMatchedRules()).containsExactly("c-never");
+        assertThat(report.getReorderingSuggestions()).hasSize(1);
+        ReorderingSuggestion suggestion = report.getReorderingSuggestions().get(0);
+        assertThat(suggestion.getPriority()).isEqualTo(Rule.DEFAULT_PRIORITY);
+        assertThat(suggestion.getCurrentOrder()).containsExactly("a-expensive", "b-cheap");
+        assertThat(suggestion.getSuggestedOrder()).containsExactly("b-cheap", "a-expensive");
+        assertThat(suggestion.getSuggestedExpectedNanos()).isLessThan(suggestion.getCurrentExpectedNanos());
+    }
+
+    @Test
+    public void onlyOneEvaluationOutOfSamplingIntervalShouldBeTimed() {
+        // Given
+        profiler = new RuleProfiler(4);
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(profiler);
+
+        // When
+        fire(4);
+
+        // Then
+        long evaluations = profiler.report().getRules().stream().mapToLong(RuleProfileEntry::getEvaluations).sum();
+        long samples = profiler.report().getRules().stream().mapToLong(RuleProfileEntry::getSamples).sum();
+        assertThat(evaluations).isEqualTo(12);
+        assertThat(samples).isEqualTo(3);
+    }
+
+    @Test
+    public void allRulesShouldBeTimedWhenTheirNumberIsAMultipleOfTheSamplingInterval() {
+        // Given
+        profiler = new RuleProfiler(RuleProfiler.DEFAULT_SAMPLING_INTERVAL);
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(profiler);
+        rules = new Rules();
+        for (int i = 0; i < 2 * RuleProfiler.DEFAULT_SAMPLING_INTERVAL; i++) {
+            rules.register(new RuleBuilder().name("rule" + i).when(facts -> false).build());
+        }
+
+        // When
+        fire(RuleProfiler.DEFAULT_SAMPLING_INTERVAL);
+
+        // Then
+        assertThat(profiler.report().getRules())
+                .hasSize(2 * RuleProfiler.DEFAULT_SAMPLING_INTERVAL)
+                .allSatisfy(rule -> assertThat(rule.getSamples()).isEqualTo(1));
+    }
+
+    @Test
+    public void matchesShouldBeCountedOnEveryEvaluation() {
+        // Given
+        profiler = new RuleProfiler(RuleProfiler.DEFAULT_SAMPLING_INTERVAL);
+        rulesEngine = new DefaultRulesEngine();
+        rulesEngine.registerRuleListener(profiler);
+        rules = new Rules(new RuleBuilder().name("rare").when(facts -> facts.<Integer>get("number") == 1).build());
+
+        // When
+        fire(4 * RuleProfiler.DEFAULT_SAMPLING_INTERVAL);
+
+        // Then
+        ProfileReport report = profiler.report();
+        RuleProfileEntry rare = report.getRules().get(0);
+        assertThat(rare.getMatches()).isEqualTo(1);
+        assertThat(rare.getMatchProbability()).isEqualTo(1d / (4 * RuleProfiler.DEFAULT_SAMPLING_INTERVAL));
+        assertThat(report.getNeverMatchedRules()).isEmpty();
+    }
+
+    @Test
+    public void reportShouldBeExportableAsJson() throws Exception {
+        // Given
+        fire(2);
+
+        // When
+        String json = profiler.report().toJson();
+
+        // Then
+        JsonNode report = new ObjectMapper().readTree(json);
+        assertThat(report.get("samplingInterval").asInt()).isEqualTo(1);
+        assertThat(report.get("rules")).hasSize(3);
+        assertThat(report.get("rules").get(0).get("matchProbability")).isNotNull();
+        assertThat(report.get("rules").get(0).get("estimatedTotalNanos")).isNotNull();
+        assertThat(report.get("neverMatchedRules").get(0).asText()).isEqualTo("c-never");
+        assertThat(report.get("reorderingSuggestions").get(0).get("suggestedOrder").get(0).asText()).isEqualTo("b-cheap");
+    }
+
+    @Test
+    public void samplingIntervalShouldBePositive() {
+        assertThatThrownBy(() -> new RuleProfiler(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void fire(int times) {
+        for (int number = 0; number < times; number++) {
+            Facts facts = new Facts();
+            facts.put("number", number);
+            rulesEngine.fire(rules, facts);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}